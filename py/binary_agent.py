@@ -0,0 +1,94 @@
+import socket
+import struct
+
+# Client of the binary endpoint of the Java agent server (see network.BinaryServer for the frames), which keeps one
+# connection open for the whole game, and sends each observation as the values that changed since the previous one
+# when that is smaller:
+#
+#     agent = BinaryAgentClient("localhost", 12346)
+#     agent.init_agent(0, 1)
+#     action = agent.act(obs, 6)   # obs: Pommerman observation dictionary
+#     agent.episode_end()
+#     agent.close()
+
+INIT, OBSERVATION, ACTION, EPISODE_END, ERROR, DELTA = 1, 2, 3, 4, 5, 6
+PLAYERS = 4
+AGENT0 = 10
+
+
+def encode_observation(obs, player_id):
+    """Returns the values of a Pommerman observation in the layout of core.ObservationCodec."""
+    board = [[int(v) for v in row] for row in obs["board"]]
+    size = len(board)
+    alive = set(int(a) for a in obs["alive"])
+    values = [int(obs["step_count"]), int(obs["ammo"]), int(obs["blast_strength"]), int(bool(obs["can_kick"])),
+              int(AGENT0 + player_id in alive)]
+    positions = {}
+    for y in range(size):
+        for x in range(size):
+            if board[y][x] >= AGENT0:
+                positions[board[y][x]] = (x, y)
+    for i in range(PLAYERS):
+        x, y = positions.get(AGENT0 + i, (-1, -1))
+        values += [x, y, int(AGENT0 + i in alive)]
+    for plane in (board, obs["bomb_blast_strength"], obs["bomb_life"]):
+        for row in plane:
+            values += [int(v) for v in row]
+    return size, values
+
+
+class BinaryAgentClient:
+
+    def __init__(self, host, port):
+        self.sock = socket.create_connection((host, port))
+        self.sock.setsockopt(socket.IPPROTO_TCP, socket.TCP_NODELAY, 1)
+        self.player_id = None
+        self.game_type = None
+        self.last = None  # last observation sent, which the server keeps
+
+    def init_agent(self, player_id, game_type, agent_type=-1, ponder=False):
+        self.player_id = player_id
+        self.game_type = game_type
+        self.last = None
+        self._request(INIT, struct.pack(">iiii", player_id, game_type, agent_type, int(ponder)))
+
+    def act(self, obs, action_space):
+        size, values = encode_observation(obs, self.player_id)
+        changes = None
+        if self.last is not None and len(self.last) == len(values):
+            changes = [(i, v) for i, (u, v) in enumerate(zip(self.last, values)) if u != v]
+        if changes is not None and 2 * len(changes) < len(values):
+            flat = [x for change in changes for x in change]
+            payload = struct.pack(">iiii%di" % len(flat), self.game_type, action_space, size, len(changes), *flat)
+            frame_type = DELTA
+        else:
+            payload = struct.pack(">iii%di" % len(values), self.game_type, action_space, size, *values)
+            frame_type = OBSERVATION
+        self.last = None  # unknown to the server if the request fails
+        action = struct.unpack(">i", self._request(frame_type, payload))[0]
+        self.last = values
+        return action
+
+    def episode_end(self):
+        self.last = None
+        self._request(EPISODE_END, b"")
+
+    def close(self):
+        self.sock.close()
+
+    def _request(self, frame_type, payload):
+        self.sock.sendall(struct.pack(">iB", 1 + len(payload), frame_type) + payload)
+        length, reply_type = struct.unpack(">iB", self._read(5))
+        reply = self._read(length - 1)
+        if reply_type == ERROR:
+            raise RuntimeError(reply.decode("utf-8"))
+        return reply
+
+    def _read(self, n):
+        data = b""
+        while len(data) < n:
+            chunk = self.sock.recv(n - len(data))
+            if not chunk:
+                raise ConnectionError("Connection closed by the server")
+            data += chunk
+        return data
@@ -0,0 +1,83 @@
+import mmap
+import time
+
+import numpy as np
+
+# Reader of the observation ring buffer written by the Java games (see core.ObservationRing for the file layout).
+# Records are read straight from the memory-mapped file, without copying:
+#
+#     ring = ObservationRing("observations.ring")
+#     while True:
+#         batch = ring.read()
+#         if batch is None:
+#             continue
+#         streams, ticks, actions, observations = batch
+#         ...  # use the arrays (views of the ring) before committing
+#         ring.commit(len(ticks))
+#
+# observations has shape (records, 4, obs_length); each observation is laid out as in core.ObservationCodec.
+
+MAGIC = 0x42524D50
+VERSION = 1
+HEADER_BYTES = 192
+WRITE_SEQ = 64
+READ_SEQ = 128
+PLAYERS = 4
+
+
+class ObservationRing:
+
+    def __init__(self, path, timeout=10.0):
+        self.file = open(path, "r+b")
+        self.mm = mmap.mmap(self.file.fileno(), 0)
+        header = np.frombuffer(self.mm, dtype="<i4", count=6)
+        deadline = time.time() + timeout
+        while header[0] != MAGIC:  # the writer sets the magic number last
+            if time.time() > deadline:
+                raise IOError("Not an observation ring: " + path)
+            time.sleep(0.01)
+        if header[1] != VERSION:
+            raise IOError("Unsupported observation ring version: " + str(header[1]))
+        self.slots, self.obs_length, self.board_size, record_bytes = (int(v) for v in header[2:6])
+
+        self.write_seq = np.frombuffer(self.mm, dtype="<i8", count=1, offset=WRITE_SEQ)
+        self.read_seq = np.frombuffer(self.mm, dtype="<i8", count=1, offset=READ_SEQ)
+        records = np.frombuffer(self.mm, dtype="<i4", count=self.slots * record_bytes // 4, offset=HEADER_BYTES)
+        records = records.reshape(self.slots, record_bytes // 4)
+        self.record_seqs = records[:, 0:2].view("<i8")[:, 0]
+        self.streams = records[:, 2]
+        self.ticks = records[:, 3]
+        self.actions = records[:, 4:4 + PLAYERS]
+        self.observations = records[:, 4 + PLAYERS:].reshape(self.slots, PLAYERS, self.obs_length)
+
+    def available(self):
+        """Number of records written and not read yet."""
+        return int(self.write_seq[0]) - int(self.read_seq[0])
+
+    def read(self, max_records=None):
+        """Returns (streams, ticks, actions, observations) of the next records, as views of the ring, or None if
+        there are no new records. At most the records up to the end of the ring are returned, so that they are
+        contiguous. The records stay valid until they are committed."""
+        start = int(self.read_seq[0])
+        n = int(self.write_seq[0]) - start
+        if n <= 0:
+            return None
+        first = start % self.slots
+        n = min(n, self.slots - first)
+        if max_records is not None:
+            n = min(n, max_records)
+        last = first + n
+        if self.record_seqs[last - 1] != start + n:
+            raise IOError("Observation ring out of sync at record " + str(start + n - 1))
+        return self.streams[first:last], self.ticks[first:last], self.actions[first:last], \
+            self.observations[first:last]
+
+    def commit(self, n):
+        """Marks the next n records as read, so the writer can reuse their slots."""
+        self.read_seq[0] += n
+
+    def close(self):
+        del self.write_seq, self.read_seq, self.record_seqs, self.streams, self.ticks, self.actions, \
+            self.observations
+        self.mm.close()
+        self.file.close()
@@ -1,10 +1,6 @@
 import core.Game;
+import core.Tournament;
 import players.*;
-import players.mcts.MCTSParams;
-import players.mcts.MCTSPlayer;
-import players.rhea.RHEAPlayer;
-import players.rhea.utils.Constants;
-import players.rhea.utils.RHEAParams;
 import utils.*;
 
 import java.util.*;
@@ -27,6 +23,9 @@ public class Run {
         System.out.println("\t\t 3 SimplePlayer");
         System.out.println("\t\t 4 RHEA 200 itereations, shift buffer, pop size 1, random init, length: 12");
         System.out.println("\t\t 5 MCTS 200 iterations, length: 12");
+        System.out.println("\t [arg index = 8] (Optional) Number of games played in parallel. Default: 1.");
+        System.out.println("\t [arg index = 9] (Optional) Headless: \"1\" to print only the final results, with games/sec and ticks/sec. Default: 0.");
+        System.out.println("\t [arg index = 10] (Optional) Results file. Results of each game are appended to it; games already in it are not played again (use with fixed seeds, \"-1\").");
     }
 
     public static void main(String[] args) {
@@ -35,7 +34,7 @@ public class Run {
         if(args.length == 0)
             args = new String[]{"0", "1", "1", "-1", "2", "3", "4", "5"};
 
-        if(args.length != 8) {
+        if(args.length < 8 || args.length > 11) {
             printHelp();
             return;
         }
@@ -55,6 +54,9 @@ public class Run {
 
             int S = Integer.parseInt(args[1]);
             int N = Integer.parseInt(args[2]);
+            int nWorkers = args.length > 8 ? Integer.parseInt(args[8]) : 1;
+            boolean headless = args.length > 9 && Integer.parseInt(args[9]) == 1;
+            String resultsFile = args.length > 10 ? args[10] : null;
             Types.DEFAULT_VISION_RANGE = Integer.parseInt(args[3]);
 
             long seeds[];
@@ -81,49 +83,10 @@ public class Run {
 
             for(int i = 4; i <= 7; ++i) {
                 int agentType = Integer.parseInt(args[i]);
-                Player p = null;
-
-
-                switch(agentType) {
-                    case 0:
-                        p = new DoNothingPlayer(playerID++);
-                        playerStr[i-4] = "DoNothing";
-                        break;
-                    case 1:
-                        p = new RandomPlayer(seed, playerID++);
-                        playerStr[i-4] = "Random";
-                        break;
-                    case 2:
-                        p = new OSLAPlayer(seed, playerID++);
-                        playerStr[i-4] = "OSLA";
-                        break;
-                    case 3:
-                        p = new SimplePlayer(seed, playerID++);
-                        playerStr[i-4] = "RuleBased";
-                        break;
-                    case 4:
-                        RHEAParams rheaParams = new RHEAParams();
-                        rheaParams.budget_type = Constants.ITERATION_BUDGET;
-                        rheaParams.iteration_budget = 200;
-                        rheaParams.individual_length = 12;
-                        rheaParams.heuristic_type = Constants.CUSTOM_HEURISTIC;
-
-                        p = new RHEAPlayer(seed, playerID++, rheaParams);
-                        playerStr[i-4] = "RHEA";
-                        break;
-                    case 5:
-                        MCTSParams mctsParams = new MCTSParams();
-                        mctsParams.stop_type = mctsParams.STOP_ITERATIONS;
-                        mctsParams.num_iterations = 200;
-                        mctsParams.rollout_depth = 12;
-
-                        mctsParams.heuristic_method = mctsParams.CUSTOM_HEURISTIC;
-                        p = new MCTSPlayer(seed, playerID++, mctsParams);
-                        playerStr[i-4] = "MCTS";
-                        break;
-                    default:
-                        System.out.println("WARNING: Invalid agent ID: " + agentType );
-                }
+                Player p = PlayerFactory.create(agentType, seed, playerID++);
+                playerStr[i-4] = PlayerFactory.name(agentType);
+                if (p == null)
+                    System.out.println("WARNING: Invalid agent ID: " + agentType );
 
                 players.add(p);
             }
@@ -150,7 +113,13 @@ public class Run {
             }
             System.out.println("]");
 
-            runGames(game, seeds, N, false);
+            Tournament tournament = new Tournament(game, seeds, N, nWorkers, System.currentTimeMillis());
+            if (resultsFile != null)
+                tournament.setResultsFile(resultsFile);
+            if (headless)
+                runGamesHeadless(tournament);
+            else
+                runGames(tournament, false);
         } catch(Exception e) {
             e.printStackTrace();
             printHelp();
@@ -182,67 +151,55 @@ public class Run {
     }
 
     public static void runGames(Game g, long seeds[], int repetitions, boolean useSeparateThreads){
-        int numPlayers = g.getPlayers().size();
-        int[] winCount = new int[numPlayers];
-        int[] tieCount = new int[numPlayers];
-        int[] lossCount = new int[numPlayers];
-
-        int[] overtimeCount = new int[numPlayers];
-
-        int numSeeds = seeds.length;
-        int totalNgames = numSeeds * repetitions;
-
-        for(int s = 0; s<numSeeds; s++) {
-            long seed = seeds[s];
-
-            for (int i = 0; i < repetitions; i++) {
-                long playerSeed = System.currentTimeMillis();
-
-                System.out.print( playerSeed + ", " + seed + ", " + (s*repetitions + i) + "/" + totalNgames + ", ");
-
-                g.reset(seed);
-                EventsStatistics.REP = i;
-                GameLog.REP = i;
-
-                // Set random seed for players and reset them
-                ArrayList<Player> players = g.getPlayers();
-                for (int p = 0; p < g.nPlayers(); p++) {
-                    players.get(p).reset(playerSeed, p);
-                }
-                Types.RESULT[] results = g.run(useSeparateThreads);
-
-                for (int pIdx = 0; pIdx < numPlayers; pIdx++) {
-                    switch (results[pIdx]) {
-                        case WIN:
-                            winCount[pIdx]++;
-                            break;
-                        case TIE:
-                            tieCount[pIdx]++;
-                            break;
-                        case LOSS:
-                            lossCount[pIdx]++;
-                            break;
-                    }
-                }
-
-                int[] overtimes = g.getPlayerOvertimes();
-                for(int j = 0; j < overtimes.length; ++j)
-                    overtimeCount[j] += overtimes[j];
+        runGames(g, seeds, repetitions, useSeparateThreads, 1);
+    }
 
-            }
-        }
+    /**
+     * Runs all repetitions of the given seeds, and prints the results of each player.
+     * @param g - game to run, with its players
+     * @param seeds - level generation seeds
+     * @param repetitions - games played with each seed
+     * @param useSeparateThreads - if separate threads should be used for the agents or not.
+     * @param nWorkers - number of games played in parallel, each with its own copies of the players.
+     */
+    public static void runGames(Game g, long seeds[], int repetitions, boolean useSeparateThreads, int nWorkers){
+        runGames(new Tournament(g, seeds, repetitions, nWorkers, System.currentTimeMillis()), useSeparateThreads);
+    }
+
+    /**
+     * Runs all the games of a tournament, and prints the results of each player.
+     * @param tournament - tournament to run
+     * @param useSeparateThreads - if separate threads should be used for the agents or not.
+     */
+    public static void runGames(Tournament tournament, boolean useSeparateThreads){
+        tournament.run(useSeparateThreads);
 
         //Done, show stats
-        System.out.println("N \tWin \tTie \tLoss \tPlayer (overtime average)");
-        for (int pIdx = 0; pIdx < numPlayers; pIdx++) {
-            String player = g.getPlayers().get(pIdx).getClass().toString().replaceFirst("class ", "");
+        tournament.printResults();
+    }
+
+    /**
+     * Runs all repetitions of the given seeds as fast as possible: without visuals, in the main threads of the
+     * workers and without printing anything until the end. Prints the results of each player, and the number of
+     * games and ticks played per second.
+     * @param g - game to run, with its players
+     * @param seeds - level generation seeds
+     * @param repetitions - games played with each seed
+     * @param nWorkers - number of games played in parallel, each with its own copies of the players.
+     */
+    public static void runGamesHeadless(Game g, long seeds[], int repetitions, int nWorkers){
+        runGamesHeadless(new Tournament(g, seeds, repetitions, nWorkers, System.currentTimeMillis()));
+    }
 
-            double winPerc = winCount[pIdx] * 100.0 / (double)totalNgames;
-            double tiePerc = tieCount[pIdx] * 100.0 / (double)totalNgames;
-            double lossPerc = lossCount[pIdx] * 100.0 / (double)totalNgames;
-            double overtimesAvg = overtimeCount[pIdx] / (double)totalNgames;
+    /**
+     * Runs all the games of a tournament as fast as possible (see runGamesHeadless(Game, long[], int, int)).
+     * @param tournament - tournament to run
+     */
+    public static void runGamesHeadless(Tournament tournament){
+        tournament.setPrintGames(false);
+        tournament.run(false);
 
-            System.out.println(totalNgames + "\t" + winPerc + "%\t" + tiePerc + "%\t" + lossPerc + "%\t" + player + " (" + overtimesAvg + ")" );
-        }
+        tournament.printResults();
+        tournament.printThroughput();
     }
 }
@@ -0,0 +1,219 @@
+package core;
+
+import utils.Zobrist;
+
+import java.util.Arrays;
+
+/**
+ * Bombs in the game, stored as parallel arrays of primitives (one entry per bomb) instead of a list of Bomb objects,
+ * so that the forward model can be copied with a few array copies. The order of the entries is the order in which
+ * bombs were added to the game, and it is kept on removal: it decides which bombs explode first.
+ * Position, life and blast strength must only be changed through the methods of this class, which keep the Zobrist
+ * hash of the list up to date.
+ */
+class BombList {
+
+    // Number of bombs in the game.
+    private int size;
+
+    // Position, desired position, velocity, life, blast strength and owner (-1 if unknown) of each bomb.
+    int[] x, y;
+    int[] desiredX, desiredY;
+    int[] velocityX, velocityY;
+    int[] life;
+    int[] blastStrength;
+    int[] playerIdx;
+
+    // Zobrist hash of the bombs: XOR of the keys of all of them (see key()).
+    private long hash;
+
+    BombList() {
+        this(8);
+    }
+
+    private BombList(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        desiredX = new int[capacity];
+        desiredY = new int[capacity];
+        velocityX = new int[capacity];
+        velocityY = new int[capacity];
+        life = new int[capacity];
+        blastStrength = new int[capacity];
+        playerIdx = new int[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a static bomb at the end of the list.
+     *
+     * @return index of the new bomb.
+     */
+    int add(int x, int y, int life, int blastStrength, int playerIdx) {
+        ensureCapacity(size + 1);
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        desiredX[i] = x;
+        desiredY[i] = y;
+        velocityX[i] = 0;
+        velocityY[i] = 0;
+        this.life[i] = life;
+        this.blastStrength[i] = blastStrength;
+        this.playerIdx[i] = playerIdx;
+        hash ^= key(i);
+        return i;
+    }
+
+    /**
+     * Adds a copy of bomb 'i' of another list at the end of this list.
+     */
+    void add(BombList other, int i) {
+        int j = add(other.x[i], other.y[i], other.life[i], other.blastStrength[i], other.playerIdx[i]);
+        desiredX[j] = other.desiredX[i];
+        desiredY[j] = other.desiredY[i];
+        velocityX[j] = other.velocityX[i];
+        velocityY[j] = other.velocityY[i];
+    }
+
+    /**
+     * Removes bomb 'i', keeping the order of the rest.
+     */
+    void remove(int i) {
+        hash ^= key(i);
+        int n = size - i - 1;
+        if (n > 0) {
+            System.arraycopy(x, i + 1, x, i, n);
+            System.arraycopy(y, i + 1, y, i, n);
+            System.arraycopy(desiredX, i + 1, desiredX, i, n);
+            System.arraycopy(desiredY, i + 1, desiredY, i, n);
+            System.arraycopy(velocityX, i + 1, velocityX, i, n);
+            System.arraycopy(velocityY, i + 1, velocityY, i, n);
+            System.arraycopy(life, i + 1, life, i, n);
+            System.arraycopy(blastStrength, i + 1, blastStrength, i, n);
+            System.arraycopy(playerIdx, i + 1, playerIdx, i, n);
+        }
+        size--;
+    }
+
+    /**
+     * Removes all bombs placed at (x, y).
+     */
+    void removeAt(int x, int y) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (this.x[i] == x && this.y[i] == y)
+                remove(i);
+        }
+    }
+
+    /**
+     * Sets the life of bomb 'i'.
+     */
+    void setLife(int i, int life) {
+        hash ^= key(i);
+        this.life[i] = life;
+        hash ^= key(i);
+    }
+
+    /**
+     * Moves bomb 'i' to (x, y).
+     */
+    void move(int i, int x, int y) {
+        hash ^= key(i);
+        this.x[i] = x;
+        this.y[i] = y;
+        hash ^= key(i);
+    }
+
+    void clear() {
+        size = 0;
+        hash = 0;
+    }
+
+    /**
+     * @return the Zobrist hash of the bombs: position, life and blast strength of each of them, in any order.
+     */
+    long hash() {
+        return hash;
+    }
+
+    // Zobrist key of bomb 'i'.
+    private long key(int i) {
+        return Zobrist.key(Zobrist.BOMB, Zobrist.position(x[i], y[i]), life[i] | blastStrength[i] << 8);
+    }
+
+    /**
+     * Overwrites the contents of this list with the ones of another list.
+     */
+    void copyFrom(BombList other) {
+        size = 0;
+        ensureCapacity(other.size);
+        size = other.size;
+        System.arraycopy(other.x, 0, x, 0, size);
+        System.arraycopy(other.y, 0, y, 0, size);
+        System.arraycopy(other.desiredX, 0, desiredX, 0, size);
+        System.arraycopy(other.desiredY, 0, desiredY, 0, size);
+        System.arraycopy(other.velocityX, 0, velocityX, 0, size);
+        System.arraycopy(other.velocityY, 0, velocityY, 0, size);
+        System.arraycopy(other.life, 0, life, 0, size);
+        System.arraycopy(other.blastStrength, 0, blastStrength, 0, size);
+        System.arraycopy(other.playerIdx, 0, playerIdx, 0, size);
+        hash = other.hash;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= x.length)
+            return;
+        int n = Math.max(capacity, x.length * 2);
+        x = Arrays.copyOf(x, n);
+        y = Arrays.copyOf(y, n);
+        desiredX = Arrays.copyOf(desiredX, n);
+        desiredY = Arrays.copyOf(desiredY, n);
+        velocityX = Arrays.copyOf(velocityX, n);
+        velocityY = Arrays.copyOf(velocityY, n);
+        life = Arrays.copyOf(life, n);
+        blastStrength = Arrays.copyOf(blastStrength, n);
+        playerIdx = Arrays.copyOf(playerIdx, n);
+    }
+
+    /**
+     * Checks if bombs 'i' and 'j' are equal, with the same criteria as Bomb.equals(): same life, position and
+     * desired position.
+     */
+    boolean same(int i, int j) {
+        return life[i] == life[j] && x[i] == x[j] && y[i] == y[j]
+                && desiredX[i] == desiredX[j] && desiredY[i] == desiredY[j];
+    }
+
+    /**
+     * Two lists are equal if they contain equal bombs (see same()) in the same order.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BombList))
+            return false;
+        BombList other = (BombList) o;
+        if (size != other.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (life[i] != other.life[i] || x[i] != other.x[i] || y[i] != other.y[i]
+                    || desiredX[i] != other.desiredX[i] || desiredY[i] != other.desiredY[i])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = size;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + life[i];
+            h = 31 * h + x[i];
+            h = 31 * h + y[i];
+        }
+        return h;
+    }
+}
@@ -0,0 +1,166 @@
+package core;
+
+import utils.Zobrist;
+
+import java.util.Arrays;
+
+/**
+ * Flames in the game, stored as parallel arrays of primitives (one entry per flame) instead of a list of Flame
+ * objects. Flames never move, so their desired position is always their position. Several flames may share a
+ * position; the order of the entries is kept on removal. Life must only be changed through setLife(), which keeps
+ * the Zobrist hash of the list up to date.
+ */
+class FlameList {
+
+    // Number of flames in the game.
+    private int size;
+
+    // Position, life and owner (player whose bomb created it, -1 if unknown) of each flame.
+    int[] x, y;
+    int[] life;
+    int[] playerIdx;
+
+    // Zobrist hash of the flames: XOR of the keys of all of them (see key()).
+    private long hash;
+
+    FlameList() {
+        this(16);
+    }
+
+    private FlameList(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        life = new int[capacity];
+        playerIdx = new int[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a flame at the end of the list.
+     *
+     * @return index of the new flame.
+     */
+    int add(int x, int y, int life, int playerIdx) {
+        ensureCapacity(size + 1);
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.life[i] = life;
+        this.playerIdx[i] = playerIdx;
+        hash ^= key(i);
+        return i;
+    }
+
+    /**
+     * Adds a copy of flame 'i' of another list at the end of this list.
+     */
+    void add(FlameList other, int i) {
+        add(other.x[i], other.y[i], other.life[i], other.playerIdx[i]);
+    }
+
+    /**
+     * Removes flame 'i', keeping the order of the rest.
+     */
+    void remove(int i) {
+        hash ^= key(i);
+        int n = size - i - 1;
+        if (n > 0) {
+            System.arraycopy(x, i + 1, x, i, n);
+            System.arraycopy(y, i + 1, y, i, n);
+            System.arraycopy(life, i + 1, life, i, n);
+            System.arraycopy(playerIdx, i + 1, playerIdx, i, n);
+        }
+        size--;
+    }
+
+    /**
+     * Removes all flames at (x, y).
+     */
+    void removeAt(int x, int y) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (this.x[i] == x && this.y[i] == y)
+                remove(i);
+        }
+    }
+
+    /**
+     * Sets the life of flame 'i'.
+     */
+    void setLife(int i, int life) {
+        hash ^= key(i);
+        this.life[i] = life;
+        hash ^= key(i);
+    }
+
+    void clear() {
+        size = 0;
+        hash = 0;
+    }
+
+    /**
+     * @return the Zobrist hash of the flames: position and life of each of them, in any order.
+     */
+    long hash() {
+        return hash;
+    }
+
+    // Zobrist key of flame 'i'.
+    private long key(int i) {
+        return Zobrist.key(Zobrist.FLAME, Zobrist.position(x[i], y[i]), life[i]);
+    }
+
+    /**
+     * Overwrites the contents of this list with the ones of another list.
+     */
+    void copyFrom(FlameList other) {
+        size = 0;
+        ensureCapacity(other.size);
+        size = other.size;
+        System.arraycopy(other.x, 0, x, 0, size);
+        System.arraycopy(other.y, 0, y, 0, size);
+        System.arraycopy(other.life, 0, life, 0, size);
+        System.arraycopy(other.playerIdx, 0, playerIdx, 0, size);
+        hash = other.hash;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= x.length)
+            return;
+        int n = Math.max(capacity, x.length * 2);
+        x = Arrays.copyOf(x, n);
+        y = Arrays.copyOf(y, n);
+        life = Arrays.copyOf(life, n);
+        playerIdx = Arrays.copyOf(playerIdx, n);
+    }
+
+    /**
+     * Two lists are equal if they contain flames with the same position and life, in the same order.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof FlameList))
+            return false;
+        FlameList other = (FlameList) o;
+        if (size != other.size)
+            return false;
+        for (int i = 0; i < size; i++) {
+            if (life[i] != other.life[i] || x[i] != other.x[i] || y[i] != other.y[i])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = size;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + life[i];
+            h = 31 * h + x[i];
+            h = 31 * h + y[i];
+        }
+        return h;
+    }
+}
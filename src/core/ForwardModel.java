@@ -1,18 +1,21 @@
 package core;
 
+import core.gameConfig.GameConfig;
 import negotiations.Agreement;
 import negotiations.Negotiation;
 import objects.Avatar;
 import objects.Bomb;
-import objects.Flame;
 import objects.GameObject;
+import utils.BitBoard;
 import utils.EventsStatistics;
 import utils.LevelGenerator;
 import utils.Types;
+import utils.Utils;
 import utils.Vector2d;
+import utils.VisibilityMasks;
+import utils.Zobrist;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static utils.Types.*;
 import static utils.Utils.*;
@@ -20,7 +23,10 @@ import static utils.Utils.*;
 public class ForwardModel {
 
     static Negotiation emptyNegotiation = Negotiation.createFromAgreements(Collections.emptyList());
-    // Board of the game, with all objects distributed in a 2D array of size 'this.size x this.size'
+    private static final Types.TILETYPE[] TILE_TYPES = Types.TILETYPE.values();
+    // Board of the game, with all objects distributed in a 2D array of size 'this.size x this.size'. Kept as a grid
+    // rather than a flat array because players read it directly (GameState.getBoard()) on every rollout step; its
+    // primitive form is 'tiles', and copies share its rows (see reduce()).
     private Types.TILETYPE[][] board;
 
     // Blast strength of bombs mapped on board structure
@@ -29,18 +35,46 @@ public class ForwardModel {
     // Lives of bombs mapped on board structure
     private int[][] bombLife;
 
+    // False if the bomb maps above are out of date, and must be built from the bombs before they are read. Copies
+    // of the model build them on first use (see bombMaps()).
+    private boolean bombMapsValid;
+
     // Power-ups of the game, hidden. All power-ups are distributed in a 2D array of size 'this.size x this.size'
     private Types.TILETYPE[][] powerups;
 
+    // Board as bit masks, one layer per tile type (layer index is the type key). Always in sync with 'board',
+    // which must only be written to through setTile().
+    private BitBoard tiles;
+
+    // Zobrist hash of the board, kept up to date by setTile(). Bombs, flames and avatars keep their own (see hash()).
+    private long tileHash;
+
+    // Copies of a model share the rows of the board and power-up arrays, the tile masks and the lists of bombs and
+    // flames with the model they were copied from (see reduce()). Shared rows and structures are cloned by whichever
+    // model writes to them first. Null row flags mean no row is shared.
+    private boolean[] boardRowShared;
+    private boolean[] powerupRowShared;
+    private boolean tilesShared;
+    private boolean entitiesShared;
+
+    // Scratch buffers reused by every call to next(). Created on first use, they are never copied with the model,
+    // but may be shared with other models (see StateBatch).
+    private StepBuffers buffers;
+
+    // Changes made by next() since the first undo frame was pushed, null if undo has never been used. Never copied
+    // with the model.
+    private UndoJournal journal;
+
     // All agents that are playing the game, and the ones that are alive.
+    // Avatars stay objects: players and heuristics read and change them through GameState, and there are only four.
     private GameObject[] agents;  // This never changes dimension, keep as array for efficiency
     private ArrayList<GameObject> aliveAgents;
 
     // Current flames in the board. They kill!
-    protected ArrayList<GameObject> flames;
+    protected FlameList flames;
 
     // Current bombs in the game. They explode!
-    protected ArrayList<GameObject> bombs;
+    protected BombList bombs;
 
     // Size of the board.
     private int size;
@@ -48,6 +82,9 @@ public class ForwardModel {
     // Game mode being played
     private Types.GAME_MODE game_mode;
 
+    // Rules and settings of the game, shared with copies.
+    private GameConfig config;
+
 
     // Indicates if this model is the true model of the game. False if it is in a simulation of the agents.
     private boolean trueModel = false;
@@ -71,14 +108,26 @@ public class ForwardModel {
     } // ability to inject a set of agreements if needed (primarily for testing)
 
     /**
-     * Creates a forward model object.
+     * Creates a forward model object, with the default config (see GameConfig.defaults()).
      *
      * @param size      Size of the board.
      * @param game_mode game mode being played.
      */
     ForwardModel(int size, Types.GAME_MODE game_mode) {
+        this(size, game_mode, GameConfig.defaults());
+    }
+
+    /**
+     * Creates a forward model object.
+     *
+     * @param size      Size of the board.
+     * @param game_mode game mode being played.
+     * @param config    rules and settings of the game.
+     */
+    ForwardModel(int size, Types.GAME_MODE game_mode, GameConfig config) {
         this.size = size;
         this.game_mode = game_mode;
+        this.config = config;
     }
 
     /**
@@ -91,6 +140,7 @@ public class ForwardModel {
     ForwardModel(long seed, int size, Types.GAME_MODE game_mode) {
         this.size = size;
         this.game_mode = game_mode;
+        this.config = GameConfig.defaults();
         init(seed, size, game_mode, null, null);
     }
 
@@ -104,6 +154,7 @@ public class ForwardModel {
     public ForwardModel(long seed, int[][] intBoard, Types.GAME_MODE game_mode) {
         size = intBoard.length;
         this.game_mode = game_mode;
+        this.config = GameConfig.defaults();
         init(seed, intBoard.length, game_mode, intBoard, null);
     }
 
@@ -121,10 +172,15 @@ public class ForwardModel {
         // this is used for communicating with the python client
         this.size = intBoard.length;
         this.game_mode = game_mode;
-        this.board = new TILETYPE[size][size];
+        this.config = GameConfig.defaults();
+        newBoard();
         init(10, intBoard.length, game_mode, intBoard, alive);
-        this.bombBlastStrength = bombBlastStrength;
-        this.bombLife = bombLife;
+        // The bomb maps are updated by the model, so it keeps its own copies of them
+        for (int y = 0; y < size; y++) {
+            System.arraycopy(bombBlastStrength[y], 0, this.bombBlastStrength[y], 0, size);
+            System.arraycopy(bombLife[y], 0, this.bombLife[y], 0, size);
+        }
+        this.bombMapsValid = true;
 
         Vector2d avatarPosition = null;
         int range = -1;
@@ -183,12 +239,19 @@ public class ForwardModel {
         trueModel = true;
     }
 
+    /**
+     * @return rules and settings of the game.
+     */
+    GameConfig getConfig() {
+        return config;
+    }
+
     /**
      * Executes "saveToTextFile" method of EventsStatistics class, only works for the true model.
      */
-    void saveEventsStatistics(String gameIdStr, long seed) {
-        if (trueModel && LOGGING_STATISTICS && es != null)
-            es.saveToTextFile(gameIdStr, seed);
+    void saveEventsStatistics(String gameIdStr, long seed, int rep) {
+        if (trueModel && config.isLoggingStatistics() && es != null)
+            es.saveToTextFile(gameIdStr, seed, rep);
     }
 
     /**
@@ -197,25 +260,27 @@ public class ForwardModel {
      * Generates the initial board of the game.
      */
     void init(long seed, int size, Types.GAME_MODE gameMode, int[][] intBoard, int[] alive) {
-        flames = new ArrayList<>();
-        bombs = new ArrayList<>();
+        flames = new FlameList();
+        bombs = new BombList();
 
         boolean noBoard = false;
         if (intBoard == null) {
             noBoard = true;
-            board = new Types.TILETYPE[size][size];
+            newBoard();
         }
 
         powerups = new Types.TILETYPE[size][size];
+        powerupRowShared = null;
 
         //boardObs = new int[size][size];
         bombBlastStrength = new int[size][size];
         bombLife = new int[size][size];
+        bombMapsValid = true;
 
         HashSet<Types.TILETYPE> agentTypes = Types.TILETYPE.getAgentTypes();
         agents = new GameObject[agentTypes.size()];
         for (Types.TILETYPE type : agentTypes) {
-            agents[type.getKey() - Types.TILETYPE.AGENT0.getKey()] = new Avatar(type.getKey(), gameMode);
+            agents[type.getKey() - Types.TILETYPE.AGENT0.getKey()] = new Avatar(type.getKey(), gameMode, config.getTeamConfig());
         }
 
         for (GameObject agent : agents) {
@@ -238,7 +303,7 @@ public class ForwardModel {
         else
             generateBoard(intBoard, seed);
 
-        if (trueModel && LOGGING_STATISTICS) {
+        if (trueModel && config.isLoggingStatistics()) {
             tick = 0;
             isAgentStuck = new boolean[]{false, false, false, false};
             es = new EventsStatistics();
@@ -253,10 +318,12 @@ public class ForwardModel {
     }
 
     int[][] getBombBlastStrength() {
+        bombMaps();
         return bombBlastStrength;
     }
 
     int[][] getBombLife() {
+        bombMaps();
         return bombLife;
     }
 
@@ -274,7 +341,7 @@ public class ForwardModel {
      * @return a deep copy of this model
      */
     ForwardModel copy(int playerIdx) {
-        ForwardModel copy = new ForwardModel(size, game_mode);
+        ForwardModel copy = new ForwardModel(size, game_mode, config);
         copy.trueModel = false;  // This is a copy, not the true model
         reduce(copy, playerIdx);
         return copy;
@@ -292,6 +359,10 @@ public class ForwardModel {
         if (VERBOSE_FM_DEBUG && trueModel) {
             System.out.println();
         }
+        ownEntities();
+        if (buffers == null) {
+            buffers = new StepBuffers();
+        }
 
         // 1. Put actions into effect
         translatePlayerActions(playerActions);
@@ -304,63 +375,64 @@ public class ForwardModel {
             }
         }
 
-        // 2. Tick the flames
-        ArrayList<GameObject> deadFlames = new ArrayList<>();
-        for (GameObject f : flames) {
-            f.tick();
-            if (f.getLife() == 0) {  // Flame is dead, remove it from the list
-                deadFlames.add(f);
-            }
+        // 2. Tick the flames. The ones that reach 0 life are dead, and removed once explosions are resolved.
+        int nFlames = flames.size();
+        for (int i = 0; i < nFlames; i++) {
+            flames.setLife(i, flames.life[i] - 1);
         }
 
         // 3. Agents already have desired positions set from GameState call according to their chosen actions
-        // 4. Tick bombs, they set their desired position in the tick() method as well as their life. They also
-        for (GameObject b : bombs) {
-            b.tick();
+        // 4. Tick bombs, they set their desired position according to their velocity, as well as their life.
+        for (int i = 0; i < bombs.size(); i++) {
+            bombs.setLife(i, bombs.life[i] - 1);
 
             // Wrap around board size, don't let bombs outside of game area, check collisions with walls.
-            if (!setDesiredCoordinate(b, b.getDesiredCoordinate(), board))
-                ((Bomb) b).setVelocity(new Vector2d());
+            if (!setBombDesiredCoordinate(i, bombs.x[i] + bombs.velocityX[i], bombs.y[i] + bombs.velocityY[i], false)) {
+                bombs.velocityX[i] = 0;
+                bombs.velocityY[i] = 0;
+            }
         }
 
         // 5. Position swap:
         //      agent <-> agent. Bounce back both.
         //      bomb <-> bomb. Bounce back both.
         //      bomb <-> agent. Bomb only bounce back.
-        checkPositionSwap(aliveAgents, aliveAgents, board, false, VERBOSE_FM_DEBUG && trueModel);
-        checkPositionSwap(bombs, bombs, board, false, VERBOSE_FM_DEBUG && trueModel);
-        checkPositionSwap(aliveAgents, bombs, board, true, VERBOSE_FM_DEBUG && trueModel);
+        checkAgentSwap();
+        checkBombSwap();
+        checkAgentBombSwap();
 
         // 6. If >= 2 agents or >= 2 bombs on same space, bounce both back.
-        checkPositionOverlap(aliveAgents, board, VERBOSE_FM_DEBUG && trueModel);
-        checkPositionOverlap(bombs, board, VERBOSE_FM_DEBUG && trueModel);
+        checkAgentOverlap();
+        checkBombOverlap();
 
         // 7. Handle kicks & moving bombs hitting agents that can not kick
         handleMovingBombs();
 
         // 8. Late update bomb overlaps. In previous loop it's possible that some bombs ended up overlapping.
-        checkPositionOverlap(bombs, board, VERBOSE_FM_DEBUG && trueModel);
+        checkBombOverlap();
 
         // If bombs were bounced back, then they may overlap players again, bounce players back too if players moved.
-        for (GameObject b : bombs) {
+        for (int i = 0; i < bombs.size(); i++) {
             for (GameObject p : agents) {
                 if (p.getDesiredCoordinate() != null && p.getPosition() != null) {
                     if (!p.getDesiredCoordinate().equals(p.getPosition()) &&
-                            p.getDesiredCoordinate().equals(b.getDesiredCoordinate())) {
+                            p.getDesiredCoordinate().x == bombs.desiredX[i] &&
+                            p.getDesiredCoordinate().y == bombs.desiredY[i]) {
                         // Bounce agent back
                         if (VERBOSE_FM_DEBUG && trueModel) {
                             System.out.println("Reverting " + p.getType() + " overlap bomb late update.");
                         }
-                        setDesiredCoordinate(p, p.getPosition(), board);
+                        revertAgent(p);
                     }
                 }
             }
             // Update bomb positions to their desired positions
-            move(b);
+            moveBomb(i);
         }
 
         // 9. Players pick up power-ups
-        for (GameObject p : aliveAgents) {
+        for (int a = 0; a < aliveAgents.size(); a++) {
+            GameObject p = aliveAgents.get(a);
             if (p.getDesiredCoordinate() != null) {
                 int x = p.getDesiredCoordinate().x;
                 int y = p.getDesiredCoordinate().y;
@@ -369,34 +441,37 @@ public class ForwardModel {
         }
 
         // 10. Explode bombs
-        HashMap<Vector2d, Integer> flameOccupancy = handleBombExplosions();
+        BitBoard flameOccupancy = handleBombExplosions();
 
-        // 11. Resolve flame on death effects
-        for (GameObject f : deadFlames) {
-            if (f.getPosition() != null) {  // Flame had a physical presence, resolve on death effects
-                int x = f.getPosition().x;
-                int y = f.getPosition().y;
+        // 11. Resolve flame on death effects. New flames from this tick's explosions were added after the old ones.
+        for (int i = 0; i < nFlames; i++) {
+            if (flames.life[i] == 0) {
+                int x = flames.x[i];
+                int y = flames.y[i];
 
                 // If there is a power-up at that position, add it to the board
                 if (powerups[y][x] != null) {
-                    board[y][x] = powerups[y][x];
-                    powerups[y][x] = null;
+                    setTile(x, y, powerups[y][x]);
+                    setPowerup(x, y, null);
                     // If no power-up, add a passage to the board
                 } else {
-                    board[y][x] = Types.TILETYPE.PASSAGE;
+                    setTile(x, y, Types.TILETYPE.PASSAGE);
                 }
             }
         }
-        flames.removeAll(deadFlames);
+        for (int i = nFlames - 1; i >= 0; i--) {
+            if (flames.life[i] == 0) {
+                flames.remove(i);
+            }
+        }
 
         // 12. Add flames left alive back into the board if missing. Multiple flames may share a position, and the board
         // Should contain a flame until all flames are dead.
-        for (GameObject f : flames) {
-            int x = f.getDesiredCoordinate().x;
-            int y = f.getDesiredCoordinate().y;
+        for (int i = 0; i < flames.size(); i++) {
+            int x = flames.x[i];
+            int y = flames.y[i];
             if (board[y][x] != Types.TILETYPE.FLAMES) {
-                f.setPosition(f.getDesiredCoordinate());
-                board[y][x] = f.getType();
+                setTile(x, y, Types.TILETYPE.FLAMES);
             }
         }
 
@@ -405,30 +480,26 @@ public class ForwardModel {
 
         // 14. Check for terminated agents
         if (deadAgentsThisTick.size() > 0) {
-            Types.getGameConfig().processDeadAgents(agents, aliveAgents, deadAgentsThisTick, game_mode);
+            config.getTeamConfig().processDeadAgents(agents, aliveAgents, deadAgentsThisTick, game_mode);
         }
 
-        // 15. Update observable board grids of item types, bomb blast strengths, bomb lives
-        bombBlastStrength = new int[size][size];
-        bombLife = new int[size][size];
-
-        for (GameObject bombObject : bombs) {
-            Bomb bomb = (Bomb) bombObject;
-            Vector2d position = bomb.getPosition();
-            bombBlastStrength[position.y][position.x] = bomb.getBlastStrength();
-            bombLife[position.y][position.x] = bomb.getLife();
-        }
+        // 15. Update observable board grids of item types, bomb blast strengths, bomb lives. They are built from the
+        // bombs when next read.
+        bombMapsValid = false;
 
         // 16. Collapse
-        if (Types.COLLAPSE_BOARD) {
-            if (gsTick >= COLLAPSE_START && (gsTick - COLLAPSE_START) % COLLAPSE_STEP == 0) {
+        if (config.isCollapseBoard()) {
+            int collapseStart = config.getCollapseStart();
+            int collapseStep = config.getCollapseStep();
+            if (gsTick >= collapseStart && (gsTick - collapseStart) % collapseStep == 0) {
 
-                int collapse_stage = (gsTick - COLLAPSE_START) / COLLAPSE_STEP; // 0, 1, 2, ...
+                int collapse_stage = (gsTick - collapseStart) / collapseStep; // 0, 1, 2, ...
 
                 int ring_min = collapse_stage;
                 int ring_max = size - collapse_stage - 1;
 
-                ArrayList<GameObject> collapsedAgents = new ArrayList<>();
+                ArrayList<GameObject> collapsedAgents = deadAgentsThisTick;
+                collapsedAgents.clear();
 
                 for (int x = ring_min; x <= ring_max; x++) {
                     if (x == ring_min || x == ring_max) {
@@ -442,15 +513,15 @@ public class ForwardModel {
 
                 // Kill agents.
                 if (collapsedAgents.size() > 0)
-                    Types.getGameConfig().processDeadAgents(agents, aliveAgents, collapsedAgents, game_mode);
+                    config.getTeamConfig().processDeadAgents(agents, aliveAgents, collapsedAgents, game_mode);
             }
         }
 
         // 17. Logging
-        if (trueModel && LOGGING_STATISTICS) {
+        if (trueModel && config.isLoggingStatistics()) {
             for (GameObject p : aliveAgents) {
                 int agentID = p.getType().getKey() - 10;
-                boolean isStuck = isStuckAdvanced(board, bombs, ((Avatar) p)); //isStuck(board, ((Avatar) p));
+                boolean isStuck = isStuckAdvanced(board, getBombObjects(), ((Avatar) p)); //isStuck(board, ((Avatar) p));
                 /*
                 if (!isAgentStuck[agentID] && isStuck){
                     String eventString = tick + " | [" + agentID + "] got stuck at ("
@@ -470,50 +541,168 @@ public class ForwardModel {
         Types.TILETYPE tiletype = board[y][x];
 
         if (tiletype == Types.TILETYPE.BOMB) {
-            Vector2d pos = new Vector2d(x, y);
-            ArrayList<GameObject> gos = findObjectInList(pos, bombs);
-            for (GameObject go : gos) {
-                bombs.remove(go);
-            }
-            bombLife[y][x] = 0;
-            bombBlastStrength[y][x] = 0;
+            bombs.removeAt(x, y);
+            clearBombMaps(x, y);
         } else if (tiletype == Types.TILETYPE.FLAMES) {
-            Vector2d pos = new Vector2d(x, y);
-            ArrayList<GameObject> gos = findObjectInList(pos, flames);
-            for (GameObject go : gos) {
-                flames.remove(go);
-            }
+            flames.removeAt(x, y);
         } else if (tiletype == Types.TILETYPE.AGENT0 ||
                 tiletype == Types.TILETYPE.AGENT1 ||
                 tiletype == Types.TILETYPE.AGENT2 ||
                 tiletype == Types.TILETYPE.AGENT3) {
 
-            Vector2d pos = new Vector2d(x, y);
-            ArrayList<GameObject> gos = findObjectInList(pos, aliveAgents);
-            collapsedAgents.addAll(gos);
+            for (int a = 0; a < aliveAgents.size(); a++) {
+                GameObject p = aliveAgents.get(a);
+                if (p.getPosition() != null && p.getPosition().x == x && p.getPosition().y == y)
+                    collapsedAgents.add(p);
+            }
         }
-        board[y][x] = Types.TILETYPE.RIGID;
+        setTile(x, y, Types.TILETYPE.RIGID);
+    }
+
+    /**
+     * Checks if any two agents want to swap positions, and bounces both back if so.
+     */
+    private void checkAgentSwap() {
+        for (int i = 0; i < aliveAgents.size(); i++) {
+            GameObject g1 = aliveAgents.get(i);
+            for (int j = 0; j < aliveAgents.size(); j++) {
+                GameObject g2 = aliveAgents.get(j);
+                if (g1 != g2 && agentMoves(g1) && agentMoves(g2) &&
+                        g1.getDesiredCoordinate().equals(g2.getPosition()) &&
+                        g2.getDesiredCoordinate().equals(g1.getPosition())) {
+                    if (VERBOSE_FM_DEBUG && trueModel) {
+                        System.out.println("Reverting " + g1.getType() + " swap with " + g2.getType());
+                        System.out.println("Reverting " + g2.getType() + " swap with " + g1.getType());
+                    }
+                    revertAgent(g1);
+                    revertAgent(g2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if more than 1 agent wants to move to the same position, and bounces all of them back.
+     */
+    private void checkAgentOverlap() {
+        int n = aliveAgents.size();
+        int overlapping = 0;  // Bit i is set if the i-th alive agent wants the same position as another agent
+        for (int i = 0; i < n; i++) {
+            Vector2d desired = aliveAgents.get(i).getDesiredCoordinate();
+            if (desired == null)
+                continue;
+            for (int j = i + 1; j < n; j++) {
+                if (desired.equals(aliveAgents.get(j).getDesiredCoordinate())) {
+                    overlapping |= (1 << i) | (1 << j);
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if ((overlapping & (1 << i)) != 0) {
+                if (VERBOSE_FM_DEBUG && trueModel) {
+                    System.out.println("Reverting " + aliveAgents.get(i).getType() + " overlap");
+                }
+                revertAgent(aliveAgents.get(i));
+            }
+        }
+    }
+
+    /**
+     * Checks if any two bombs want to swap positions, and bounces both back if so.
+     */
+    private void checkBombSwap() {
+        for (int i = 0; i < bombs.size(); i++) {
+            for (int j = 0; j < bombs.size(); j++) {
+                if (!bombs.same(i, j) && bombMoves(i) && bombMoves(j) &&
+                        bombs.desiredX[i] == bombs.x[j] && bombs.desiredY[i] == bombs.y[j] &&
+                        bombs.desiredX[j] == bombs.x[i] && bombs.desiredY[j] == bombs.y[i]) {
+                    if (VERBOSE_FM_DEBUG && trueModel) {
+                        System.out.println("Reverting BOMB swap with BOMB");
+                    }
+                    revertBomb(i);
+                    revertBomb(j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if any agent and bomb want to swap positions, and bounces the bomb back if so.
+     */
+    private void checkAgentBombSwap() {
+        for (int a = 0; a < aliveAgents.size(); a++) {
+            GameObject p = aliveAgents.get(a);
+            Vector2d pPos = p.getPosition();
+            Vector2d pDesired = p.getDesiredCoordinate();
+            if (pPos == null || pDesired == null || pPos.equals(pDesired))
+                continue;
+            for (int i = 0; i < bombs.size(); i++) {
+                if (bombMoves(i) && pDesired.x == bombs.x[i] && pDesired.y == bombs.y[i] &&
+                        bombs.desiredX[i] == pPos.x && bombs.desiredY[i] == pPos.y) {
+                    if (VERBOSE_FM_DEBUG && trueModel) {
+                        System.out.println("Reverting BOMB swap with " + p.getType());
+                    }
+                    revertBomb(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if more than 1 bomb wants to move to the same position, and bounces all of them back.
+     */
+    private void checkBombOverlap() {
+        int n = bombs.size();
+        boolean[] overlap = clearBombFlags();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (bombs.desiredX[i] == bombs.desiredX[j] && bombs.desiredY[i] == bombs.desiredY[j]) {
+                    overlap[i] = true;
+                    overlap[j] = true;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (overlap[i]) {
+                if (VERBOSE_FM_DEBUG && trueModel) {
+                    System.out.println("Reverting BOMB overlap");
+                }
+                revertBomb(i);
+            }
+        }
+    }
+
+    /**
+     * @return the scratch flags for the bombs in the game, all set to false.
+     */
+    private boolean[] clearBombFlags() {
+        return buffers.bombFlags(bombs.size());
     }
 
     /**
      * Handles the movement of bombs, including kicking them if the agent can do so.
      */
     private void handleMovingBombs() {
-        for (GameObject b : bombs) {
-            for (GameObject p : aliveAgents) {
+        for (int i = 0; i < bombs.size(); i++) {
+            for (int a = 0; a < aliveAgents.size(); a++) {
+                GameObject p = aliveAgents.get(a);
 
                 if (p.getDesiredCoordinate() != null && p.getPosition() != null) {
 
 
-                    if (b.getDesiredCoordinate().equals(b.getPosition())) {
-                        ((Bomb) b).setVelocity(new Vector2d());
+                    if (!bombMoves(i)) {
+                        bombs.velocityX[i] = 0;
+                        bombs.velocityY[i] = 0;
                     }
-                    if (p.getDesiredCoordinate().equals(b.getDesiredCoordinate())) {
+                    if (p.getDesiredCoordinate().x == bombs.desiredX[i] && p.getDesiredCoordinate().y == bombs.desiredY[i]) {
                         // Agent tried to move onto bomb OR bomb tried to move onto agent, check if agent can kick
-                        Vector2d velocity = p.getDesiredCoordinate().subtract(p.getPosition());
+                        Vector2d velocity = buffers.kickVelocity;
+                        velocity.set(p.getDesiredCoordinate().x - p.getPosition().x,
+                                p.getDesiredCoordinate().y - p.getPosition().y);
                         if (((Avatar) p).canKick() && negotiation.isKickPermitted(p, velocity, agents)) {
                             // Player can kick, so set bomb velocity
-                            ((Bomb) b).setVelocity(velocity);
+                            bombs.velocityX[i] = velocity.x;
+                            bombs.velocityY[i] = velocity.y;
                             // for kicking therefore we need to check to see if this velocity will send the bomb to any player
                             // with whom we have a no ball kicking agreement.
                             // At its simplest this could dot the vectors and if close, disallow action
@@ -521,23 +710,19 @@ public class ForwardModel {
 
                             // First bomb move on the same tick as the kick happened. Do not move into players or walls.
                             // If bomb couldn't move, reset its velocity
-                            ArrayList<Types.TILETYPE> collisions = new ArrayList<>();
-                            collisions.add(Types.TILETYPE.RIGID);
-                            collisions.add(Types.TILETYPE.WOOD);
-                            collisions.addAll(Types.TILETYPE.getAgentTypes());
-
-                            if (velocity.mag() == 0) {
+                            if (velocity.x == 0 && velocity.y == 0) {
                                 // They can be on same position only if agent just dropped bomb
                                 // Move agent back if they moved & the bomb didn't move when the kick was attempted
                                 if (!p.getDesiredCoordinate().equals(p.getPosition())) {
                                     if (VERBOSE_FM_DEBUG && trueModel) {
-                                        System.out.println("Reverting " + p.getType() + " bomb overlap " + b.getDesiredCoordinate());
+                                        System.out.println("Reverting " + p.getType() + " bomb overlap " + p.getDesiredCoordinate());
                                     }
-                                    setDesiredCoordinate(p, p.getPosition(), board);
+                                    revertAgent(p);
                                 }
                             } else {
-                                if (!setDesiredCoordinate(b, b.getDesiredCoordinate().add(velocity), board, collisions)) {
-                                    ((Bomb) b).setVelocity(new Vector2d());
+                                if (!setBombDesiredCoordinate(i, bombs.desiredX[i] + velocity.x, bombs.desiredY[i] + velocity.y, true)) {
+                                    bombs.velocityX[i] = 0;
+                                    bombs.velocityY[i] = 0;
                                 }
                             }
                         } else {
@@ -546,12 +731,12 @@ public class ForwardModel {
                                 if (VERBOSE_FM_DEBUG && trueModel) {
                                     System.out.println("Reverting " + p.getType() +
                                             " trying to overlap bomb, bomb revert too: " + p.getDesiredCoordinate() + " <> " +
-                                            b.getDesiredCoordinate());
+                                            bombs.desiredX[i] + " : " + bombs.desiredY[i]);
                                 }
-                                setDesiredCoordinate(p, p.getPosition(), board);
+                                revertAgent(p);
                             }
-                            if (!b.getDesiredCoordinate().equals(b.getPosition())) {
-                                setDesiredCoordinate(b, b.getPosition(), board);
+                            if (bombMoves(i)) {
+                                revertBomb(i);
                             }
                         }
                     }
@@ -564,35 +749,63 @@ public class ForwardModel {
     /**
      * Handles bomb explosions, creating the flame objects that destroy things.
      *
-     * @return the set of positions occupied by flames.
+     * Explosions are resolved as if all bombs were checked in order, over and over, until no bomb explodes (a bomb
+     * explodes when its life reaches 0 or a flame hits it). Instead of rescanning all bombs, the bombs hit by the
+     * flames of each explosion are queued as they are found: in the same pass if they come later in the list, or
+     * in the next pass otherwise. This visits the bombs in exactly the same order as the repeated scan, which
+     * matters because flames burn wood and let the blasts of later bombs go further.
+     *
+     * @return the mask of positions occupied by flames.
      */
-    private HashMap<Vector2d, Integer> handleBombExplosions() {
-        boolean newExplosions = true;
-
+    private BitBoard handleBombExplosions() {
         // Get positions of flames
-        HashMap<Vector2d, Integer> flameOccupancy = checkOccupancy(flames);
+        BitBoard flameOccupancy = buffers.flameOccupancy(size);
+        for (int i = 0; i < flames.size(); i++) {
+            flameOccupancy.set(flames.x[i], flames.y[i]);
+        }
 
-        while (newExplosions) {
-            // Use this flag to chain explosions. If new flames are added, then we need to check all bombs again
-            newExplosions = false;
+        int nBombs = bombs.size();
+        if (nBombs == 0) {
+            return flameOccupancy;
+        }
+        indexBombsByTile();
+        int[] bombAtTile = buffers.bombAtTile;
+        int[] nextBombAtTile = buffers.nextBombAtTile;
+
+        // Bombs to check in this pass and in the next one, one bit per bomb index.
+        int nWords = (nBombs + 63) >>> 6;
+        buffers.clearChains(nWords);
+        long[] chainThisPass = buffers.chainThisPass;
+        long[] chainNextPass = buffers.chainNextPass;
+
+        // First pass: bombs with no life left or already in flames.
+        for (int i = 0; i < nBombs; i++) {
+            if (bombs.life[i] == 0 || flameOccupancy.get(bombs.x[i], bombs.y[i])) {
+                chainThisPass[i >>> 6] |= 1L << i;
+            }
+        }
 
-            ArrayList<GameObject> deadBombs = new ArrayList<>();
-            for (GameObject b : bombs) {
+        boolean[] deadBombs = clearBombFlags();
+        boolean pending = true;
+        while (pending) {
+            for (int i = nextBomb(chainThisPass, nWords, 0); i >= 0; i = nextBomb(chainThisPass, nWords, i + 1)) {
+                if (deadBombs[i]) continue;
+                int x = bombs.x[i];
+                int y = bombs.y[i];
 
                 // Force this bomb to explode if there is a flame at this position.
-                boolean forceExplosion = false;
-                if (flameOccupancy.get(b.getPosition()) != null) forceExplosion = true;
+                boolean forceExplosion = flameOccupancy.get(x, y);
 
                 // Find the flame owners who triggered the explosion
-                if (trueModel && LOGGING_STATISTICS) {
+                if (trueModel && config.isLoggingStatistics()) {
                     if (forceExplosion) {
                         StringBuilder eventSB = new StringBuilder();
-                        eventSB.append(tick + " | [" + ((Bomb) b).getPlayerIdx() + "]'s bomb exploded at ("
-                                + b.getPosition().x + ", " + b.getPosition().y + ") triggered by ");
+                        eventSB.append(tick + " | [" + bombs.playerIdx[i] + "]'s bomb exploded at ("
+                                + x + ", " + y + ") triggered by ");
                         Set<Integer> killerIDs = new HashSet<>();
-                        for (GameObject flame : this.flames) {
-                            if (flame.getPosition().equals(b.getPosition()))
-                                killerIDs.add(((Flame) flame).playerIdx);
+                        for (int f = 0; f < flames.size(); f++) {
+                            if (flames.x[f] == x && flames.y[f] == y)
+                                killerIDs.add(flames.playerIdx[f]);
                         }
                         for (Integer id : killerIDs) {
                             eventSB.append("[" + id + "]");
@@ -600,70 +813,177 @@ public class ForwardModel {
                         }
                         eventSB.append("\n");
                         es.events.add(eventSB.toString());
-                    } else if (b.getLife() == 0) {
-                        String eventString = tick + " | [" + ((Bomb) b).getPlayerIdx() + "]'s bomb exploded at ("
-                                + b.getPosition().x + ", " + b.getPosition().y + ")\n";
+                    } else if (bombs.life[i] == 0) {
+                        String eventString = tick + " | [" + bombs.playerIdx[i] + "]'s bomb exploded at ("
+                                + x + ", " + y + ")\n";
                         es.events.add(eventString);
                     }
                 }
 
-                // TODO: Wood removals happen here, but within Bomb class, what's the best way of doing this? (to count them)
-
                 // This bomb will explode and create new flames if life reached 0, or forced to explode
-                ArrayList<GameObject> newFlames = ((Bomb) b).explode(forceExplosion, board, powerups);
-                if (newFlames != null && newFlames.size() > 0) {
-
-                    flames.addAll(newFlames);
-                    newExplosions = true;
-
+                int firstNewFlame = flames.size();
+                if (explode(i, forceExplosion)) {
                     // Remove this bomb from the list of bombs
-                    deadBombs.add(b);
+                    deadBombs[i] = true;
 
                     // Give the player 1 ammo back for this bomb
-                    int pIdx = ((Bomb) b).getPlayerIdx();
+                    int pIdx = bombs.playerIdx[i];
                     if (pIdx >= 0) {
                         ((Avatar) agents[pIdx]).addAmmo();
                     }
 
-                    // Add new flame positions to the map
-                    HashMap<Vector2d, Integer> newOccupancy = checkOccupancy(newFlames);
-                    for (Map.Entry<Vector2d, Integer> e : newOccupancy.entrySet()) {
-                        flameOccupancy.merge(e.getKey(), e.getValue(), (a, b1) -> b1 + a);
+                    // Add new flame positions to the mask, and queue the bombs they hit
+                    for (int f = firstNewFlame; f < flames.size(); f++) {
+                        int fx = flames.x[f], fy = flames.y[f];
+                        flameOccupancy.set(fx, fy);
+                        for (int j = bombAtTile[fy * size + fx]; j >= 0; j = nextBombAtTile[j]) {
+                            if (deadBombs[j]) continue;
+                            if (j > i) chainThisPass[j >>> 6] |= 1L << j;
+                            else chainNextPass[j >>> 6] |= 1L << j;
+                        }
                     }
                 }
             }
-            bombs.removeAll(deadBombs);
+
+            // Bombs equal to one that exploded in this pass (same life and position) are removed with it, without
+            // exploding.
+            for (int i = nextBomb(chainThisPass, nWords, 0); i >= 0; i = nextBomb(chainThisPass, nWords, i + 1)) {
+                if (!deadBombs[i]) continue;
+                for (int j = bombAtTile[bombs.y[i] * size + bombs.x[i]]; j >= 0; j = nextBombAtTile[j]) {
+                    if (!deadBombs[j] && bombs.same(i, j)) deadBombs[j] = true;
+                }
+            }
+
+            long[] swap = chainThisPass;
+            chainThisPass = chainNextPass;
+            chainNextPass = swap;
+            Arrays.fill(chainNextPass, 0, nWords, 0L);
+            pending = nextBomb(chainThisPass, nWords, 0) >= 0;
+        }
+
+        for (int i = nBombs - 1; i >= 0; i--) {
+            if (deadBombs[i]) {
+                bombs.remove(i);
+            }
         }
 
         return flameOccupancy;
     }
 
+    /**
+     * Links the bombs in the game by tile: bombAtTile holds the first bomb at each tile (-1 if none), and
+     * nextBombAtTile the next bomb at the same tile as each bomb, in increasing index order.
+     */
+    private void indexBombsByTile() {
+        int nBombs = bombs.size();
+        buffers.clearBombIndex(size * size, nBombs);
+        int[] bombAtTile = buffers.bombAtTile;
+        int[] nextBombAtTile = buffers.nextBombAtTile;
+        for (int i = nBombs - 1; i >= 0; i--) {
+            int t = bombs.y[i] * size + bombs.x[i];
+            nextBombAtTile[i] = bombAtTile[t];
+            bombAtTile[t] = i;
+        }
+    }
+
+    /**
+     * @return the first bomb index, from 'from' onwards, set in the given bits; -1 if none.
+     */
+    private static int nextBomb(long[] bits, int nWords, int from) {
+        int w = from >>> 6;
+        if (w >= nWords) return -1;
+        long word = bits[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == nWords) return -1;
+            word = bits[w];
+        }
+    }
+
+    /**
+     * Explodes a bomb if its life reached 0 or it is forced to, placing flames in its position and along the 4
+     * directions up to its blast strength. Flames are stopped by rigid blocks, and after the first wooden block.
+     *
+     * @param i            index of the bomb to explode
+     * @param forceExplode true if the bomb should explode regardless of its life (i.e. hit by a flame)
+     * @return true if the bomb exploded and created new flames.
+     */
+    private boolean explode(int i, boolean forceExplode) {
+        if (bombs.life[i] != 0 && !forceExplode)
+            return false;
+
+        int x = bombs.x[i];
+        int y = bombs.y[i];
+        int blastStrength = bombs.blastStrength[i];
+        int pIdx = bombs.playerIdx[i];
+
+        if (VERBOSE)
+            System.out.println("KABOOM at " + x + " : " + y);
+
+        // First add the flame at the current position, then the rays. Horizontal rays are expanded before the
+        // vertical ones, alternating between both directions.
+        int nFlames = flames.size();
+        tryToAddFlame(x, y, pIdx);
+        boolean advanceP = true;
+        boolean advanceM = true;
+        for (int d = 1; d < blastStrength; d++) {
+            if (advanceP) advanceP = tryToAddFlame(x + d, y, pIdx);
+            if (advanceM) advanceM = tryToAddFlame(x - d, y, pIdx);
+        }
+        advanceP = true;
+        advanceM = true;
+        for (int d = 1; d < blastStrength; d++) {
+            if (advanceP) advanceP = tryToAddFlame(x, y + d, pIdx);
+            if (advanceM) advanceM = tryToAddFlame(x, y - d, pIdx);
+        }
+        return flames.size() > nFlames;
+    }
+
+    /**
+     * Adds a flame at (x, y), unless the position is off the board or a rigid block.
+     *
+     * @return true if the blast can continue past this position.
+     */
+    private boolean tryToAddFlame(int x, int y, int pIdx) {
+        if (x < 0 || y < 0 || x >= size || y >= size || tiles.get(TILETYPE.RIGID.getKey(), x, y)) {
+            return false;
+        }
+        boolean wood = tiles.get(TILETYPE.WOOD.getKey(), x, y);
+
+        flames.add(x, y, FLAME_LIFE, pIdx);
+        setTile(x, y, Types.TILETYPE.FLAMES);
+
+        return !wood;  // Flames should stop at first wooden block
+    }
+
     /**
      * Handles killing agents with flames in the board.
      *
      * @param flameOccupancy location of the flames on this tick.
      * @return list of agents killed on this tick
      */
-    private ArrayList<GameObject> handleAgentKilling(HashMap<Vector2d, Integer> flameOccupancy) {
-        ArrayList<GameObject> deadAgentsThisTick = new ArrayList<>();
-        for (GameObject p : aliveAgents) {
+    private ArrayList<GameObject> handleAgentKilling(BitBoard flameOccupancy) {
+        ArrayList<GameObject> deadAgentsThisTick = buffers.deadAgents;
+        deadAgentsThisTick.clear();
+        for (int a = 0; a < aliveAgents.size(); a++) {
+            GameObject p = aliveAgents.get(a);
             Vector2d nextPos = p.getDesiredCoordinate();
             Vector2d currPos = p.getPosition();
 
-            if (nextPos != null && currPos != null && flameOccupancy.containsKey(nextPos)) {
+            if (nextPos != null && currPos != null && flameOccupancy.get(nextPos.x, nextPos.y)) {
                 // This agent was killed by a flame, remove from list
                 p.setLife(0);
                 deadAgentsThisTick.add(p);
 
-                if (trueModel && LOGGING_STATISTICS) {
+                if (trueModel && config.isLoggingStatistics()) {
                     StringBuilder eventSB = new StringBuilder();
                     eventSB.append(tick + " | [" + (((Avatar) p).getPlayerID() - 10) + "] died at ("
                             + nextPos.x + ", " + nextPos.y + ") by ");
 
                     Set<Integer> killerIDs = new HashSet<>();
-                    for (GameObject flame : this.flames) {
-                        if (flame.getPosition().equals(nextPos))
-                            killerIDs.add(((Flame) flame).playerIdx);
+                    for (int f = 0; f < flames.size(); f++) {
+                        if (flames.x[f] == nextPos.x && flames.y[f] == nextPos.y)
+                            killerIDs.add(flames.playerIdx[f]);
                     }
                     for (Integer id : killerIDs) {
                         eventSB.append("[" + id + "]");
@@ -684,7 +1004,7 @@ public class ForwardModel {
 
                 if (board[currPos.y][currPos.x] != Types.TILETYPE.BOMB
                         && board[currPos.y][currPos.x] != Types.TILETYPE.FLAMES) {
-                    board[currPos.y][currPos.x] = Types.TILETYPE.PASSAGE;
+                    setTile(currPos.x, currPos.y, Types.TILETYPE.PASSAGE);
                 }
             } else {
                 move(p);
@@ -703,57 +1023,82 @@ public class ForwardModel {
         Vector2d nextPos = o.getDesiredCoordinate();
 
         if (currentPos != null && nextPos != null) {
+            if (!(currentPos.equals(nextPos)) && leaveTile(currentPos.x, currentPos.y, nextPos.x, nextPos.y, o.getType())) {
+                o.setPosition(nextPos.x, nextPos.y);
+            }
 
-            //System.out.println(o.getType());
-            //System.out.println("cp: "+currentPos+" | np: "+nextPos);
+            // Update next position. The order is bombs, avatars, so avatars would overwrite bombs.
+            setTile(nextPos.x, nextPos.y, o.getType());
+        }
+    }
 
-            if (!(currentPos.equals(nextPos))) { // !(currentPos.equals(nextPos))  //(currentPos != null && !(currentPos.equals(nextPos)))
-                Types.TILETYPE nextType = board[nextPos.y][nextPos.x];
+    /**
+     * Moves bomb 'i' from its current position to its desired position, as move() does for other objects.
+     */
+    private void moveBomb(int i) {
+        int nextX = bombs.desiredX[i];
+        int nextY = bombs.desiredY[i];
+        if (bombMoves(i) && leaveTile(bombs.x[i], bombs.y[i], nextX, nextY, Types.TILETYPE.BOMB)) {
+            bombs.move(i, nextX, nextY);
+        }
+        setTile(nextX, nextY, Types.TILETYPE.BOMB);
+    }
 
-                if (board[nextPos.y][nextPos.x] != Types.TILETYPE.RIGID &&
-                        board[nextPos.y][nextPos.x] != Types.TILETYPE.WOOD) {
-                    if (trueModel && VERBOSE_FM_DEBUG) {
-                        System.out.println("Moving " + o.getType() + ": " + currentPos + " -> " + nextPos);
-                    }
-                    o.setPosition(nextPos.copy());
+    /**
+     * Updates the board for an object of the given type moving from (x, y) to (nextX, nextY). Objects don't move
+     * through walls (rigid or wood).
+     *
+     * @return true if the object can move, false if the next position is blocked.
+     */
+    private boolean leaveTile(int x, int y, int nextX, int nextY, Types.TILETYPE type) {
+        Types.TILETYPE nextType = board[nextY][nextX];
+        if (nextType == Types.TILETYPE.RIGID || nextType == Types.TILETYPE.WOOD) {
+            return false;
+        }
+        if (trueModel && VERBOSE_FM_DEBUG) {
+            System.out.println("Moving " + type + ": " + x + " : " + y + " -> " + nextX + " : " + nextY);
+        }
 
-                    HashSet<Types.TILETYPE> powerUpTypes = Types.TILETYPE.getPowerUpTypes();
-                    HashSet<Types.TILETYPE> agentTypes = TILETYPE.getAgentTypes();
+        // Bombs don't leave traces of bombs behind them, and other sprites do not remove bombs from the board
+        if (type == Types.TILETYPE.BOMB && isPowerUp(nextType)) {
+            // Next is a powerup, we should put it back in the powerup array before removing it from the board
+            // (unless it's an avatar collecting it).
+            setPowerup(nextX, nextY, nextType);
+        }
 
-                    // Set up sprites that cannot be replaced with a passage when current sprite moves from its square.
-                    HashSet<Types.TILETYPE> illegalOverwriteTypes = new HashSet<>(powerUpTypes);
-                    illegalOverwriteTypes.add(Types.TILETYPE.FLAMES);  // We don't remove flames
-                    illegalOverwriteTypes.addAll(agentTypes);  // We don't remove other agents...
-                    illegalOverwriteTypes.remove(o.getType()); // Unless this agent is the current object
+        // Update current position
+        // Only update current position if the object there can be overwritten: power-ups, flames, other agents and
+        // bombs (unless a bomb is moving) stay. Replace with passage if there isn't a power-up there that should be
+        // added back in
+        Types.TILETYPE currentType = board[y][x];
+        boolean keep = isPowerUp(currentType) || currentType == Types.TILETYPE.FLAMES
+                || (isAgent(currentType) && currentType != type)
+                || (currentType == Types.TILETYPE.BOMB && type != Types.TILETYPE.BOMB);
+        if (!keep) {
+            if (powerups[y][x] != null) {
+                setTile(x, y, powerups[y][x]);
+                setPowerup(x, y, null);
+            } else {
+                setTile(x, y, Types.TILETYPE.PASSAGE);
+            }
+        }
+        return true;
+    }
 
-                    // Bombs don't leave traces of bombs behind them, and other sprites do not remove bombs from the board
-                    if (o.getType() != Types.TILETYPE.BOMB) {
-                        illegalOverwriteTypes.add(Types.TILETYPE.BOMB);
-                    } else {
-                        // Check if next is a powerup, we should put it back in the powerup array before removing it from
-                        // the board (unless it's an avatar collecting it).
-                        if (!agentTypes.contains(o.getType()) && powerUpTypes.contains(nextType)) {
-                            powerups[nextPos.y][nextPos.x] = board[nextPos.y][nextPos.x];
-                        }
-                    }
+    private static boolean isPowerUp(Types.TILETYPE type) {
+        return type == Types.TILETYPE.EXTRABOMB || type == Types.TILETYPE.INCRRANGE || type == Types.TILETYPE.KICK;
+    }
 
-                    // Update current position
-                    // Only update current position if the object there can be overwritten
-                    // Replace with passage if there isn't a power-up there that should be added back in
-                    if (canOverwrite(currentPos, board, illegalOverwriteTypes)) {
-                        if (powerups[currentPos.y][currentPos.x] != null) {
-                            board[currentPos.y][currentPos.x] = powerups[currentPos.y][currentPos.x];
-                            powerups[currentPos.y][currentPos.x] = null;
-                        } else {
-                            board[currentPos.y][currentPos.x] = Types.TILETYPE.PASSAGE;
-                        }
-                    }
-                }
-            }
+    private static boolean isAgent(Types.TILETYPE type) {
+        return type == Types.TILETYPE.AGENT0 || type == Types.TILETYPE.AGENT1
+                || type == Types.TILETYPE.AGENT2 || type == Types.TILETYPE.AGENT3;
+    }
 
-            // Update next position. The order is bombs, avatars, so avatars would overwrite bombs.
-            board[nextPos.y][nextPos.x] = o.getType();
-        }
+    /**
+     * Checks if an action of an agent is allowed by the agreements negotiated, at the distances of the config.
+     */
+    private boolean isPermitted(Types.ACTIONS action, Avatar agent) {
+        return negotiation.isPermitted(action, agent, agents, config.getStayApartDistance(), config.getNoBombDistance());
     }
 
     /**
@@ -781,21 +1126,22 @@ public class ForwardModel {
                 action = Types.ACTIONS.ACTION_STOP;
             }
 
-            boolean successful = setDesiredCoordinate(agent, pos.add(action.getDirection().toVec()), board);
+            Types.DIRECTIONS direction = action.getDirection();
+            boolean successful = setDesiredCoordinate(agent, pos.x + direction.x(), pos.y + direction.y(), false);
             // check that this is ok with results of negotiation
-            if (successful && NEGOTIATION && !negotiation.isPermitted(action, agent, agents)) {
+            if (successful && config.isNegotiation() && !isPermitted(action, agent)) {
                 // and if not, then do not move
-                agent.setDesiredCoordinate(pos);
+                agent.setDesiredCoordinate(pos.x, pos.y);
             }
 
             if (action == Types.ACTIONS.ACTION_BOMB) {
-                if (agent.getAmmo() > 0 && bombBlastStrength[pos.y][pos.x] == 0
-                        && negotiation.isPermitted(action, agent, agents)) {
+                if (agent.getAmmo() > 0 && bombMaps()[pos.y][pos.x] == 0
+                        && isPermitted(action, agent)) {
                     // Check if a bomb is not already there, and we are not in breach of an Agreement
                     agent.reduceAmmo();
                     addBomb(pos.x, pos.y, agent.getBlastStrength(), BOMB_LIFE, i, true);
                     successful = true;
-                    if (trueModel && LOGGING_STATISTICS) {
+                    if (trueModel && config.isLoggingStatistics()) {
                         int agentID = (agent.getPlayerID() - 10);
                         String eventString = tick + " | [" + agentID + "] placed a bomb at ("
                                 + pos.x + ", " + pos.y + ")\n";
@@ -805,7 +1151,7 @@ public class ForwardModel {
                     }
                 } else {
                     successful = false;
-                    if (trueModel && LOGGING_STATISTICS) {
+                    if (trueModel && config.isLoggingStatistics()) {
                         int agentID = (agent.getPlayerID() - 10);
                         String eventString = tick + " | [" + agentID + "] failed to place a bomb at ("
                                 + pos.x + ", " + pos.y + ")\n";
@@ -836,7 +1182,7 @@ public class ForwardModel {
         if (x >= 0 && x < size && y >= 0 && y < size) {
             if (board[y][x] == Types.TILETYPE.EXTRABOMB) {
                 p.addAmmo();
-                if (trueModel && LOGGING_STATISTICS) {
+                if (trueModel && config.isLoggingStatistics()) {
                     String eventString = tick + " | [" + (p.getPlayerID() - 10) + "] picked up AMMO at ("
                             + x + ", " + y + ")\n";
                     es.events.add(eventString);
@@ -844,7 +1190,7 @@ public class ForwardModel {
                 }
             } else if (board[y][x] == Types.TILETYPE.INCRRANGE) {
                 p.addBlastStrength();
-                if (trueModel && LOGGING_STATISTICS) {
+                if (trueModel && config.isLoggingStatistics()) {
                     String eventString = tick + " | [" + (p.getPlayerID() - 10) + "] picked up BLAST STRENGTH at ("
                             + x + ", " + y + ")\n";
                     es.events.add(eventString);
@@ -852,7 +1198,7 @@ public class ForwardModel {
                 }
             } else if (board[y][x] == Types.TILETYPE.KICK) {
                 p.setCanKick();
-                if (trueModel && LOGGING_STATISTICS) {
+                if (trueModel && config.isLoggingStatistics()) {
                     String eventString = tick + " | [" + (p.getPlayerID() - 10) + "] picked up CAN KICK at ("
                             + x + ", " + y + ")\n";
                     es.events.add(eventString);
@@ -864,10 +1210,10 @@ public class ForwardModel {
 
     /**
      * Generates the game board, of size 'this.size' and using the seed 'this.seed'.
-     * It uses Types.BOARD_* to decide number of rigid blocks, wood, items, etc.
+     * It uses the board settings of the config to decide number of rigid blocks, wood, items, etc.
      */
     private void generateBoard(long seed) {
-        int[][] intBoard = LevelGenerator.makeBoard(seed, size, Types.BOARD_NUM_RIGID, Types.BOARD_NUM_WOOD, agents);
+        int[][] intBoard = LevelGenerator.makeBoard(seed, size, config, agents);
         generateBoard(intBoard, seed);
     }
 
@@ -875,7 +1221,7 @@ public class ForwardModel {
      * Generates the game board given an intBoard that will be translated.
      */
     private void generateBoard(int[][] intBoard, long seed) {
-        int[][] intPowerups = LevelGenerator.makeItems(intBoard, Types.BOARD_NUM_ITEMS, seed);
+        int[][] intPowerups = LevelGenerator.makeItems(intBoard, config.getBoardNumItems(), seed);
         translate(intBoard, true);
         translate(intPowerups, false);
     }
@@ -889,11 +1235,9 @@ public class ForwardModel {
      */
     private void translate(int[][] intBoard, boolean updateBoard) {
         if (updateBoard) {
-            board = new Types.TILETYPE[size][];
+            newBoard();
 
             for (int i = 0; i < intBoard.length; i++) {
-                board[i] = new Types.TILETYPE[size];
-
                 for (int j = 0; j < intBoard[i].length; j++) {
                     Types.TILETYPE type = utils.Types.TILETYPE.values()[intBoard[i][j]];
                     if (type == Types.TILETYPE.BOMB) {
@@ -913,6 +1257,7 @@ public class ForwardModel {
             }
         } else {
             powerups = new Types.TILETYPE[intBoard.length][];
+            powerupRowShared = null;
             for (int i = 0; i < intBoard.length; i++) {
                 powerups[i] = new Types.TILETYPE[size];
                 for (int j = 0; j < intBoard[i].length; j++) {
@@ -923,25 +1268,237 @@ public class ForwardModel {
         }
     }
 
+    /**
+     * Creates a new empty board, and its bit mask representation.
+     */
+    private void newBoard() {
+        board = new Types.TILETYPE[size][size];
+        tiles = new BitBoard(size, Types.TILETYPE.values().length);
+        tileHash = 0;
+        boardRowShared = null;
+        tilesShared = false;
+    }
+
+    /**
+     * Sets the type of a tile in the board, keeping the tile masks up to date. All writes to the board go
+     * through this method.
+     *
+     * @param x    x coordinate of the tile
+     * @param y    y coordinate of the tile
+     * @param type new type of the tile
+     */
+    private void setTile(int x, int y, Types.TILETYPE type) {
+        if (boardRowShared != null && boardRowShared[y]) {
+            board[y] = board[y].clone();
+            boardRowShared[y] = false;
+        }
+        if (tilesShared) {
+            tiles = tiles.copy();
+            tilesShared = false;
+        }
+        Types.TILETYPE old = board[y][x];
+        if (journal != null && journal.isRecording()) {
+            journal.log(UndoJournal.BOARD, x, y, old == null ? -1 : old.getKey());
+        }
+        int idx = y * size + x;
+        if (old != null) {
+            tiles.clear(old.getKey(), x, y);
+            tileHash ^= Zobrist.key(Zobrist.TILE, idx, old.getKey());
+        }
+        if (type != null) {
+            tiles.set(type.getKey(), x, y);
+            tileHash ^= Zobrist.key(Zobrist.TILE, idx, type.getKey());
+        }
+        board[y][x] = type;
+    }
+
+    /**
+     * Sets the power-up at (x, y), cloning its row first if it is shared with another model.
+     *
+     * @param x    x coordinate of the tile
+     * @param y    y coordinate of the tile
+     * @param type new power-up of the tile, null for none
+     */
+    private void setPowerup(int x, int y, Types.TILETYPE type) {
+        if (powerupRowShared != null && powerupRowShared[y]) {
+            powerups[y] = powerups[y].clone();
+            powerupRowShared[y] = false;
+        }
+        if (journal != null && journal.isRecording()) {
+            Types.TILETYPE old = powerups[y][x];
+            journal.log(UndoJournal.POWERUP, x, y, old == null ? -1 : old.getKey());
+        }
+        powerups[y][x] = type;
+    }
+
+    /**
+     * Clones the lists of bombs and flames if they are shared with another model, so that they can be modified.
+     * Called before any change to them.
+     */
+    private void ownEntities() {
+        if (entitiesShared) {
+            BombList b = new BombList();
+            b.copyFrom(bombs);
+            bombs = b;
+            FlameList f = new FlameList();
+            f.copyFrom(flames);
+            flames = f;
+            entitiesShared = false;
+        }
+    }
+
+    /**
+     * Builds the bomb blast strength and life maps from the bombs in the game, if they are out of date.
+     *
+     * @return the bomb blast strength map.
+     */
+    private int[][] bombMaps() {
+        if (!bombMapsValid) {
+            if (bombBlastStrength == null) {
+                bombBlastStrength = new int[size][size];
+                bombLife = new int[size][size];
+            } else {
+                for (int y = 0; y < size; y++) {
+                    Arrays.fill(bombBlastStrength[y], 0);
+                    Arrays.fill(bombLife[y], 0);
+                }
+            }
+            for (int i = 0; i < bombs.size(); i++) {
+                bombBlastStrength[bombs.y[i]][bombs.x[i]] = bombs.blastStrength[i];
+                bombLife[bombs.y[i]][bombs.x[i]] = bombs.life[i];
+            }
+            bombMapsValid = true;
+        }
+        return bombBlastStrength;
+    }
+
+    /**
+     * Clears the bomb maps at (x, y), once the bombs there have been removed. Maps out of date are left as they are,
+     * they will be built without those bombs.
+     */
+    private void clearBombMaps(int x, int y) {
+        if (bombMapsValid) {
+            bombLife[y][x] = 0;
+            bombBlastStrength[y][x] = 0;
+        }
+    }
+
+    /**
+     * Checks if a position is on the board and not blocked by walls (rigid or wooden). Optionally agents also
+     * block the position.
+     */
+    private boolean isLegalPosition(int x, int y, boolean agentsCollide) {
+        if (x < 0 || y < 0 || x >= size || y >= size)
+            return false;
+        if (tiles.getAny(TILETYPE.RIGID.getKey(), TILETYPE.WOOD.getKey(), x, y))
+            return false;
+        return !agentsCollide || !tiles.getAnyInRange(TILETYPE.AGENT0.getKey(), TILETYPE.AGENT3.getKey(), x, y);
+    }
+
+    /**
+     * Sets the desired coordinate of a game object if the given position is legal (see isLegalPosition()),
+     * otherwise resets it to the object's current position.
+     *
+     * @return true if new position set successfully, false otherwise
+     */
+    private boolean setDesiredCoordinate(GameObject gameObject, int x, int y, boolean agentsCollide) {
+        if (isLegalPosition(x, y, agentsCollide)) {
+            gameObject.setDesiredCoordinate(x, y);
+            return true;
+        } else {
+            Vector2d position = gameObject.getPosition();
+            if (position != null) {
+                gameObject.setDesiredCoordinate(position.x, position.y);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Bounces an agent back: its desired position becomes its current position.
+     */
+    private void revertAgent(GameObject agent) {
+        Vector2d position = agent.getPosition();
+        if (position != null) {
+            agent.setDesiredCoordinate(position.x, position.y);
+        }
+    }
+
+    /**
+     * @return true if the agent wants to move away from its current position.
+     */
+    private static boolean agentMoves(GameObject agent) {
+        return agent.getDesiredCoordinate() != null && agent.getPosition() != null &&
+                !agent.getDesiredCoordinate().equals(agent.getPosition());
+    }
+
+    /**
+     * Sets the desired coordinate of bomb 'i' if the given position is legal (see isLegalPosition()), otherwise
+     * resets it to the bomb's current position.
+     *
+     * @return true if new position set successfully, false otherwise
+     */
+    private boolean setBombDesiredCoordinate(int i, int x, int y, boolean agentsCollide) {
+        if (isLegalPosition(x, y, agentsCollide)) {
+            bombs.desiredX[i] = x;
+            bombs.desiredY[i] = y;
+            return true;
+        } else {
+            revertBomb(i);
+            return false;
+        }
+    }
+
+    /**
+     * Bounces bomb 'i' back: its desired position becomes its current position.
+     */
+    private void revertBomb(int i) {
+        bombs.desiredX[i] = bombs.x[i];
+        bombs.desiredY[i] = bombs.y[i];
+    }
+
+    /**
+     * @return true if bomb 'i' wants to move away from its current position.
+     */
+    private boolean bombMoves(int i) {
+        return bombs.desiredX[i] != bombs.x[i] || bombs.desiredY[i] != bombs.y[i];
+    }
+
+    /**
+     * Creates Bomb objects for the bombs currently in the game, for the utilities that work with game objects.
+     */
+    private ArrayList<GameObject> getBombObjects() {
+        ArrayList<GameObject> list = new ArrayList<>();
+        for (int i = 0; i < bombs.size(); i++) {
+            Bomb bomb = new Bomb(bombs.blastStrength[i], bombs.life[i], bombs.playerIdx[i]);
+            bomb.setPosition(new Vector2d(bombs.x[i], bombs.y[i]));
+            bomb.setDesiredCoordinate(new Vector2d(bombs.desiredX[i], bombs.desiredY[i]));
+            bomb.setVelocity(new Vector2d(bombs.velocityX[i], bombs.velocityY[i]));
+            list.add(bomb);
+        }
+        return list;
+    }
+
     // add* methods can be used by agents to insert things into the model
 
     void addBomb(int x, int y, int blastStrength, int bombLife, int playerIdx, boolean addToBoard) {
-        Bomb bomb = new Bomb(blastStrength, bombLife, playerIdx);
-        bomb.setPosition(new Vector2d(x, y));
-        setDesiredCoordinate(bomb, new Vector2d(x, y), board);
-        bombs.add(bomb);
+        bombMaps();
+        ownEntities();
+        bombs.add(x, y, bombLife, blastStrength, playerIdx);
         if (addToBoard) {
-            board[y][x] = Types.TILETYPE.BOMB;
+            setTile(x, y, Types.TILETYPE.BOMB);
         }
     }
 
     void addFlame(int x, int y, int life) {
-        Flame flame = new Flame();
-        flame.setLife(life);
-        setDesiredCoordinate(flame, new Vector2d(x, y), board);
-        flame.setPosition(flame.getDesiredCoordinate());
-        flames.add(flame);
-        board[y][x] = Types.TILETYPE.FLAMES;
+        // Flames can't be placed on walls; a flame added there has no valid position and defaults to (0, 0)
+        ownEntities();
+        if (isLegalPosition(x, y, false)) {
+            flames.add(x, y, life, 0);
+        } else {
+            flames.add(0, 0, life, 0);
+        }
+        setTile(x, y, Types.TILETYPE.FLAMES);
     }
 
     void addPowerUp(int x, int y, Types.TILETYPE type, boolean visible) {
@@ -962,8 +1519,8 @@ public class ForwardModel {
         GameObject agent = agents[idx];
         ((Avatar) agent).setWinner(Types.RESULT.INCOMPLETE);
         agent.setPosition(new Vector2d(x, y));
-        setDesiredCoordinate(agent, new Vector2d(x, y), board);
-        board[y][x] = agent.getType();
+        setDesiredCoordinate(agent, x, y, false);
+        setTile(x, y, agent.getType());
     }
 
     void removePowerUp(int x, int y, Types.TILETYPE type) {
@@ -977,33 +1534,30 @@ public class ForwardModel {
     private void addObject(int x, int y, Types.TILETYPE type, Types.TILETYPE[][] targetArray) {
         GameObject object = new GameObject(type);
         object.setPosition(new Vector2d(x, y));
-        setDesiredCoordinate(object, new Vector2d(x, y), targetArray);
-        targetArray[y][x] = type;
+        Utils.setDesiredCoordinate(object, new Vector2d(x, y), targetArray);
+        if (targetArray == board) setTile(x, y, type);
+        else setPowerup(x, y, type);
     }
 
     private void removeObject(int x, int y, Types.TILETYPE type, Types.TILETYPE[][] targetArray, boolean onlyBoard) {
-        Vector2d pos = new Vector2d(x, y);
-        targetArray[y][x] = TILETYPE.PASSAGE;
+        if (targetArray == board) setTile(x, y, TILETYPE.PASSAGE);
+        else setPowerup(x, y, TILETYPE.PASSAGE);
 
         if (!onlyBoard) {
             if (type == TILETYPE.BOMB) {
-                ArrayList<GameObject> gos = findObjectInList(pos, bombs);
-                for (GameObject go : gos) {
-                    bombs.remove(go);
-                }
-                bombLife[y][x] = 0;
-                bombBlastStrength[y][x] = 0;
+                bombMaps();
+                ownEntities();
+                bombs.removeAt(x, y);
+                clearBombMaps(x, y);
             } else if (type == TILETYPE.FLAMES) {
-                ArrayList<GameObject> gos = findObjectInList(pos, flames);
-                for (GameObject go : gos) {
-                    flames.remove(go);
-                }
+                ownEntities();
+                flames.removeAt(x, y);
             } else if (TILETYPE.getAgentTypes().contains(type)) {
                 GameObject ob = agents[type.getKey() - 10];
                 ((Avatar) ob).setWinner(RESULT.LOSS);
                 aliveAgents.remove(ob);
             } else if (TILETYPE.getPowerUpTypes().contains(type)) {
-                powerups[y][x] = null;
+                setPowerup(x, y, null);
             }
         }
     }
@@ -1019,35 +1573,113 @@ public class ForwardModel {
 
     // Sets properties of bomb, identified by position
     void setBomb(int x, int y, int playerIdx, Vector2d velocity) {
-        Vector2d pos = new Vector2d(x, y);
-        ArrayList<GameObject> gos = findObjectInList(pos, bombs);
-        for (GameObject go : gos) {
-            Bomb bomb = (Bomb) go;
-            bomb.setPlayerIdx(playerIdx);
-            bomb.setVelocity(velocity);
+        ownEntities();
+        for (int i = 0; i < bombs.size(); i++) {
+            if (bombs.x[i] == x && bombs.y[i] == y) {
+                bombs.playerIdx[i] = playerIdx;
+                bombs.velocityX[i] = velocity.x;
+                bombs.velocityY[i] = velocity.y;
+            }
         }
     }
 
     // Sets properties of flame, identified by position
     void setFlame(int x, int y, int life) {
-        Vector2d pos = new Vector2d(x, y);
-        ArrayList<GameObject> flame = findObjectInList(pos, flames);
-        for (GameObject f : flame) {
-            f.setLife(life);
+        ownEntities();
+        for (int i = 0; i < flames.size(); i++) {
+            if (flames.x[i] == x && flames.y[i] == y) {
+                flames.setLife(i, life);
+            }
+        }
+    }
+
+    /**
+     * Makes this model use the given scratch buffers in next(). Models sharing buffers must not be stepped at the
+     * same time.
+     */
+    void useBuffers(StepBuffers buffers) {
+        this.buffers = buffers;
+    }
+
+    /**
+     * Saves the state of the model, so that the changes made from now on by next() can be undone with
+     * popUndoFrame(). Frames can be nested, and are undone in reverse order. The logging state of the true model
+     * (statistics, tick counter) is not saved, undo is meant for models used in simulations.
+     *
+     * @param gsTick game tick to restore with the frame.
+     */
+    void pushUndoFrame(int gsTick) {
+        if (journal == null) {
+            journal = new UndoJournal();
+        }
+        UndoJournal.Frame f = journal.push();
+        f.gsTick = gsTick;
+        f.bombs.copyFrom(bombs);
+        f.flames.copyFrom(flames);
+        int n = agents.length * Avatar.STATE_SIZE;
+        if (f.avatars == null || f.avatars.length != n) {
+            f.avatars = new int[n];
         }
+        for (int i = 0; i < agents.length; i++) {
+            ((Avatar) agents[i]).saveState(f.avatars, i * Avatar.STATE_SIZE);
+        }
+        f.aliveAgents = aliveAgents.toArray(f.aliveAgents);
+        f.nAlive = aliveAgents.size();
+    }
+
+    /**
+     * Restores the state saved by the last call to pushUndoFrame().
+     *
+     * @return the game tick saved with the frame.
+     */
+    int popUndoFrame() {
+        UndoJournal.Frame f = journal.pop();
+        journal.undoWrites(f, this);
+        ownEntities();
+        bombs.copyFrom(f.bombs);
+        flames.copyFrom(f.flames);
+        for (int i = 0; i < agents.length; i++) {
+            ((Avatar) agents[i]).restoreState(f.avatars, i * Avatar.STATE_SIZE);
+        }
+        aliveAgents.clear();
+        for (int i = 0; i < f.nAlive; i++) {
+            aliveAgents.add(f.aliveAgents[i]);
+        }
+        bombMapsValid = false;
+        return f.gsTick;
+    }
+
+    /**
+     * @return number of undo frames pushed and not popped yet.
+     */
+    int undoDepth() {
+        return journal == null ? 0 : journal.depth();
+    }
+
+    /**
+     * Reverts a write logged in the undo journal.
+     *
+     * @param kind        UndoJournal.BOARD or UndoJournal.POWERUP
+     * @param x           x coordinate of the tile
+     * @param y           y coordinate of the tile
+     * @param previousKey key of the type the tile had before the write, -1 for none
+     */
+    void undoWrite(int kind, int x, int y, int previousKey) {
+        Types.TILETYPE type = previousKey < 0 ? null : TILE_TYPES[previousKey];
+        if (kind == UndoJournal.BOARD) setTile(x, y, type);
+        else setPowerup(x, y, type);
     }
 
     /**
      * Construct a completely empty board
      */
     private void emptyBoard() {
-        board = new Types.TILETYPE[size][];
+        newBoard();
 
         // Add empty passages everywhere
         for (int i = 0; i < board.length; i++) {
-            board[i] = new Types.TILETYPE[size];
             for (int i1 = 0; i1 < board[i].length; i1++) {
-                board[i][i1] = Types.TILETYPE.PASSAGE;
+                setTile(i1, i, Types.TILETYPE.PASSAGE);
             }
         }
 
@@ -1096,6 +1728,35 @@ public class ForwardModel {
         return stringBuilder.toString();
     }
 
+    /**
+     * Finds the tiles seen by a player: those in its vision range, and in the range of the allies (still alive)
+     * sharing their vision with it. Players that lost see nothing.
+     *
+     * @param playerIdx - index of the player.
+     * @return the tiles seen by the player, or null if it sees the whole board.
+     */
+    BitBoard visibleTiles(int playerIdx) {
+        Avatar avatar = (Avatar) agents[playerIdx];
+        int range = avatar.getVisionRange();
+        if (avatar.getWinner() == RESULT.LOSS)
+            return new BitBoard(size);
+        if (range == -1)
+            return null;
+
+        BitBoard visible = new BitBoard(size);
+        Vector2d avatarPosition = avatar.getPosition();
+        if (avatarPosition != null) {
+            VisibilityMasks.addVisible(visible, range, avatarPosition.x, avatarPosition.y);
+            for (int j : negotiation.getAgreements(playerIdx, Agreement.TYPE.SHARE_VISION)) {
+                Vector2d focus = agents[j].getPosition();
+                if (((Avatar) agents[j]).getWinner() == RESULT.INCOMPLETE && focus != null) {
+                    VisibilityMasks.addVisible(visible, range, focus.x, focus.y);
+                }
+            }
+        }
+        return visible;
+    }
+
     /**
      * Method to reduce the current model of the game to the vision range of the player.
      * Any objects outside the vision range would show up as FOG type in the board, and removed from the lists
@@ -1107,44 +1768,32 @@ public class ForwardModel {
      */
     private void reduce(ForwardModel copy, int playerIdx) {
 
-        // Init new power-up and board arrays
-        copy.powerups = new Types.TILETYPE[size][size];
-        copy.board = new Types.TILETYPE[size][size];
-
-        // Init new flames and bomb arrays
-        copy.flames = new ArrayList<>();
-        copy.bombs = new ArrayList<>();
-
         copy.agents = deepCopy(agents);
 
-        Vector2d avatarPosition = null;
         int range = -1;
 
         if (playerIdx >= 0) {
             Avatar avatar = (Avatar) agents[playerIdx];
-            avatarPosition = avatar.getPosition();
             range = avatar.getVisionRange();
             if (avatar.getWinner() == RESULT.LOSS) {
+                copy.powerups = new Types.TILETYPE[size][size];
+                copy.newBoard();
+                copy.flames = new FlameList();
+                copy.bombs = new BombList();
                 for (int x = 0; x < size; x++)
                     for (int y = 0; y < size; y++)
-                        copy.board[y][x] = TILETYPE.FOG;
+                        copy.setTile(x, y, TILETYPE.FOG);
                 return;
             }
         }
 
-        // Agents position is removed and their properties reset if we don't know where they are when reducing state.
+        BitBoard visible = range == -1 ? null : visibleTiles(playerIdx);
 
-        Set<Vector2d> agentFoci = negotiation.getAgreements(playerIdx, Agreement.TYPE.SHARE_VISION).stream()
-                .filter(j -> ((Avatar) agents[j]).getWinner() == RESULT.INCOMPLETE) // check alive
-                .map(j -> agents[j].getPosition())
-                .collect(Collectors.toSet());
-        agentFoci.add(avatarPosition);
-
-        int finalRange = range;
+        // Agents position is removed and their properties reset if we don't know where they are when reducing state.
         if (range != -1) {
             for (int i = 0; i < copy.agents.length; i++) {
                 GameObject a = copy.agents[i];
-                if (a.getPosition() != null && agentFoci.stream().noneMatch(f -> a.getPosition().custom_dist(f) <= finalRange)) {
+                if (a.getPosition() != null && !visible.get(a.getPosition().x, a.getPosition().y)) {
                     // This agent's position is not observed
                     a.setPositionNull();
                     a.setDesiredCoordinateNull();
@@ -1157,41 +1806,121 @@ public class ForwardModel {
         }
 
         // Reduce power-ups and board arrays
-        for (int y = 0; y < size; y++) {
-            int finalY = y;
-            for (int x = 0; x < size; x++) {
-                int finalX = x;
-                if (range == -1 || avatarPosition != null && agentFoci.stream().anyMatch(f -> f.custom_dist(finalX, finalY) <= finalRange)) {
-                    copy.board[y][x] = board[y][x];
-                    if (range == -1)
-                        copy.powerups[y][x] = powerups[y][x];
-                } else {
-                    copy.board[y][x] = Types.TILETYPE.FOG;
+        if (range == -1) {
+            // Nothing hidden, the copy shares the rows of the board and power-ups, and the masks, with this model
+            copy.board = board.clone();
+            copy.powerups = powerups.clone();
+            copy.tiles = tiles;
+            copy.tileHash = tileHash;
+            boardRowShared = shareAllRows(boardRowShared);
+            powerupRowShared = shareAllRows(powerupRowShared);
+            copy.boardRowShared = shareAllRows(null);
+            copy.powerupRowShared = shareAllRows(null);
+            tilesShared = true;
+            copy.tilesShared = true;
+        } else {
+            // Masked copy: tiles in view keep their type, all others are fog.
+            copy.powerups = new Types.TILETYPE[size][size];
+            copy.newBoard();
+            BitBoard hidden = visible.copy();
+            hidden.flip(0);
+            copy.tiles.copyFrom(tiles);
+            for (int layer = 0; layer < copy.tiles.getLayers(); layer++) {
+                copy.tiles.and(layer, visible, 0);
+            }
+            copy.tiles.or(TILETYPE.FOG.getKey(), hidden, 0);
+            for (int y = 0; y < size; y++) {
+                Types.TILETYPE[] row = copy.board[y];
+                for (int x = 0; x < size; x++) {
+                    Types.TILETYPE type = visible.get(x, y) ? board[y][x] : Types.TILETYPE.FOG;
+                    row[x] = type;
+                    copy.tileHash ^= Zobrist.key(Zobrist.TILE, y * size + x, type.getKey());
                 }
             }
         }
 
-        // Reduce arraylists of flames and bombs
-        // Reset flames life if playerIdx > -1, players don't know this information
-        _reduceHiddenList(flames, copy.flames, agentFoci, range);
-        _reduceHiddenList(bombs, copy.bombs, agentFoci, range);
+        // Reduce lists of flames and bombs to the ones in range. If nothing is hidden, and no flame life or bomb
+        // owner and velocity needs to be hidden either (i.e. this is already a copy), the lists are shared.
+        if (range == -1 && entitiesReduced()) {
+            copy.flames = flames;
+            copy.bombs = bombs;
+            entitiesShared = true;
+            copy.entitiesShared = true;
+        } else if (range == -1) {
+            copy.flames = new FlameList();
+            copy.bombs = new BombList();
+            copy.flames.copyFrom(flames);
+            copy.bombs.copyFrom(bombs);
+        } else {
+            copy.flames = new FlameList();
+            copy.bombs = new BombList();
+            for (int i = 0; i < flames.size(); i++) {
+                if (visible.get(flames.x[i], flames.y[i]))
+                    copy.flames.add(flames, i);
+            }
+            for (int i = 0; i < bombs.size(); i++) {
+                if (visible.get(bombs.x[i], bombs.y[i]))
+                    copy.bombs.add(bombs, i);
+            }
+        }
+        // Players don't know how long flames will last, nor who owns the bombs or where they are going
+        if (!copy.entitiesShared) {
+            for (int i = 0; i < copy.flames.size(); i++) {
+                copy.flames.setLife(i, FLAME_LIFE);
+            }
+            Arrays.fill(copy.bombs.velocityX, 0, copy.bombs.size(), 0);
+            Arrays.fill(copy.bombs.velocityY, 0, copy.bombs.size(), 0);
+            Arrays.fill(copy.bombs.playerIdx, 0, copy.bombs.size(), -1);
+        }
         copy.aliveAgents = findAliveAgents(copy.agents);
 
-        // Finally construct the main components of observations
-        copy.bombBlastStrength = new int[size][size];
-        copy.bombLife = new int[size][size];
-
-        for (GameObject bombObject : copy.bombs) {
-            Bomb bomb = (Bomb) bombObject;
-            Vector2d position = bomb.getPosition();
-            copy.bombBlastStrength[position.y][position.x] = bomb.getBlastStrength();
-            copy.bombLife[position.y][position.x] = bomb.getLife();
-        }
+        // The main components of observations, bomb maps, are built from the bombs when first read.
 
         // remove any Agreements that the player is not party to
         copy.negotiation = negotiation.reduce(playerIdx);
     }
 
+    /**
+     * Checks if the bombs and flames already hide what players can't know (see reduce()): flame lives, and bomb
+     * owners and velocities.
+     */
+    private boolean entitiesReduced() {
+        for (int i = 0; i < flames.size(); i++) {
+            if (flames.life[i] != FLAME_LIFE)
+                return false;
+        }
+        for (int i = 0; i < bombs.size(); i++) {
+            if (bombs.velocityX[i] != 0 || bombs.velocityY[i] != 0 || bombs.playerIdx[i] != -1)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return flags marking all rows of the board as shared, reusing the given array if there is one.
+     */
+    private boolean[] shareAllRows(boolean[] rowShared) {
+        if (rowShared == null) rowShared = new boolean[size];
+        Arrays.fill(rowShared, true);
+        return rowShared;
+    }
+
+    /**
+     * Zobrist hash of the state of the game: board, bombs (with their life and blast strength), flames, and
+     * position, ammo, blast strength, kick and result of the avatars. Hidden power-ups and bomb velocities are not
+     * included. Models that are equal have the same hash. Each part is kept up to date as it changes, by setTile(),
+     * the lists of bombs and flames and the avatars, so this only combines them.
+     *
+     * @return the hash of this model.
+     */
+    long hash() {
+        long h = tileHash ^ bombs.hash() ^ flames.hash();
+        for (GameObject agent : agents) {
+            h ^= ((Avatar) agent).zobristKey();
+        }
+        return h;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o.getClass() != getClass()) {
@@ -1205,13 +1934,13 @@ public class ForwardModel {
             return false;
         if (!Types.TILETYPE.boardEquals(board, fm.board))
             return false;
-        if (!Arrays.deepEquals(bombBlastStrength, fm.bombBlastStrength))
+        if (!Arrays.deepEquals(getBombBlastStrength(), fm.getBombBlastStrength()))
             return false;
-        if (!Arrays.deepEquals(bombLife, fm.bombLife))
+        if (!Arrays.deepEquals(getBombLife(), fm.getBombLife()))
             return false;
-        if (!GameObject.listEquals(flames, fm.flames))
+        if (!flames.equals(fm.flames))
             return false;
-        if (!GameObject.listEquals(bombs, fm.bombs))
+        if (!bombs.equals(fm.bombs))
             return false;
         if (!GameObject.arrayEquals(agents, fm.agents))
             return false;
@@ -3,6 +3,7 @@ package core;
 import negotiations.Agreement;
 import negotiations.Negotiation;
 import objects.Avatar;
+import objects.GameObject;
 import org.junit.jupiter.api.Test;
 import players.DoNothingPlayer;
 import players.Player;
@@ -13,6 +14,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Queue;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static utils.Types.VERBOSE;
@@ -1135,6 +1137,41 @@ public class ForwardModelTest {
         assertEquals(4, game.getGameState().getBoard()[7][4].getKey());
     }
 
+    /**
+     * Bombs set off by a bomb placed after them still explode in the same tick, and their flames go through the
+     * wood burnt earlier in the chain.
+     */
+    @Test
+    void chainReactionsWorkBackwards() {
+        int[][] intBoard = new int[][]{
+                new int[]{10, 0, 0, 0, 0, 0, 0, 0, 0, 0, 11},
+                new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 2, 2, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0},
+                new int[]{12, 0, 0, 0, 0, 0, 0, 0, 0, 0, 13},
+        };
+        ForwardModel model = new ForwardModel(seed, intBoard, Types.GAME_MODE.FFA);
+        model.addBomb(1, 5, 2, 9, -1, true);
+        model.addBomb(4, 5, 4, 9, -1, true);
+        model.addBomb(4, 7, 3, 1, -1, true);  // Sets off the bomb at (4, 5)
+        model.addBomb(2, 3, 3, 1, -1, true);  // Burns the wood at (2, 5)
+        model.addBomb(3, 3, 3, 1, -1, true);  // Burns the wood at (3, 5)
+
+        Types.ACTIONS[] actions = new Types.ACTIONS[]{Types.ACTIONS.ACTION_STOP, Types.ACTIONS.ACTION_STOP,
+                Types.ACTIONS.ACTION_STOP, Types.ACTIONS.ACTION_STOP};
+        model.next(actions, 0);
+
+        assertEquals(0, model.bombs.size());
+        assertEquals(Types.TILETYPE.FLAMES, model.getBoard()[5][1]);
+        assertEquals(Types.TILETYPE.FLAMES, model.getBoard()[5][0]);
+    }
+
     /**
      * When the player picks up a blast range boost, their bombs blast range is larger
      */
@@ -1164,6 +1201,105 @@ public class ForwardModelTest {
         assertEquals(4, game.getGameState().getBoard()[6][6].getKey());
     }
 
+    /**
+     * Copies share the board and entities with the model they come from until one of them changes; changes in one of
+     * them never show in the others.
+     */
+    @Test
+    void copiesAreIndependentOfEachOther() {
+        ForwardModel model = new ForwardModel(seed, DEFAULT_BOARD, Types.GAME_MODE.FFA);
+        model.addBomb(7, 7, 2, 1, -1, true);
+        ForwardModel copy = model.copy(-1);
+        ForwardModel copyOfCopy = copy.copy(-1);
+        assertEquals(copy, copyOfCopy);
+
+        Types.ACTIONS[] actions = new Types.ACTIONS[]{Types.ACTIONS.ACTION_STOP, Types.ACTIONS.ACTION_STOP,
+                Types.ACTIONS.ACTION_STOP, Types.ACTIONS.ACTION_STOP};
+        copyOfCopy.next(actions, 0);
+        assertEquals(Types.TILETYPE.FLAMES, copyOfCopy.getBoard()[7][8]);
+        assertEquals(0, copyOfCopy.bombs.size());
+        assertEquals(5, copyOfCopy.flames.size());
+
+        assertEquals(Types.TILETYPE.BOMB, copy.getBoard()[7][7]);
+        assertEquals(Types.TILETYPE.PASSAGE, copy.getBoard()[7][8]);
+        assertEquals(1, copy.bombs.size());
+        assertEquals(0, copy.flames.size());
+        assertEquals(1, copy.getBombLife()[7][7]);
+        assertEquals(Types.TILETYPE.BOMB, model.getBoard()[7][7]);
+        assertEquals(1, model.bombs.size());
+        assertNotEquals(copy, copyOfCopy);
+
+        model.next(actions, 0);
+        assertEquals(Types.TILETYPE.BOMB, copy.getBoard()[7][7]);
+        assertEquals(copyOfCopy.getBoard()[7][8], model.getBoard()[7][8]);
+    }
+
+    @Test
+    void undoRestoresState() {
+        GameState gs = new GameState(seed, 11, Types.GAME_MODE.FFA, true);
+        gs.init();
+        GameState start = gs.copy();
+        Random rnd = new Random(seed);
+
+        for (int trial = 0; trial < 20; trial++) {
+            int startMark = gs.mark();
+            rollRandomly(gs, rnd, 5);
+            GameState middle = gs.copy();
+            int middleMark = gs.mark();
+            rollRandomly(gs, rnd, 40);
+            gs.undo(middleMark);
+            assertEquals(middle, gs);
+            assertEquals(middle.getTick(), gs.getTick());
+
+            gs.undo(startMark);
+            assertEquals(start, gs);
+            assertEquals(0, gs.getTick());
+        }
+
+        // Back at the first mark, the state is no longer recorded
+        rollRandomly(gs, rnd, 5);
+        assertEquals(0, gs.model.undoDepth());
+    }
+
+    @Test
+    void hashFollowsState() {
+        ForwardModel model = new ForwardModel(seed, DEFAULT_BOARD, Types.GAME_MODE.FFA);
+        ForwardModel same = new ForwardModel(seed, DEFAULT_BOARD, Types.GAME_MODE.FFA);
+        assertEquals(model.hash(), same.hash());
+        same.addBomb(7, 7, 2, 5, -1, true);
+        assertNotEquals(model.hash(), same.hash());
+
+        GameState game = new GameState(seed, 11, Types.GAME_MODE.FFA, true);
+        game.init();
+        GameState gs = game.copy();
+        long startHash = gs.hash();
+        assertEquals(startHash, gs.copy().hash());
+
+        Random rnd = new Random(seed);
+        int mark = gs.mark();
+        for (int t = 0; t < 40; t++) {
+            long previous = gs.hash();
+            rollRandomly(gs, rnd, 1);
+            assertNotEquals(previous, gs.hash());
+            // Copies hide flame lives, so they aren't always equal to the state they were copied from
+            GameState copy = gs.copy();
+            assertEquals(copy.equals(gs), copy.hash() == gs.hash());
+        }
+        gs.undo(mark);
+        assertEquals(startHash, gs.hash());
+    }
+
+    private static void rollRandomly(GameState gs, Random rnd, int ticks) {
+        ArrayList<Types.ACTIONS> all = Types.ACTIONS.all();
+        for (int t = 0; t < ticks; t++) {
+            Types.ACTIONS[] actions = new Types.ACTIONS[4];
+            for (int i = 0; i < actions.length; i++) {
+                actions[i] = all.get(rnd.nextInt(all.size()));
+            }
+            gs.next(actions);
+        }
+    }
+
     @Test
     void copyingForwardModelKeepsOnlyRelevantAgreements() {
         ForwardModel model = new ForwardModel(seed, DEFAULT_BOARD, Types.GAME_MODE.FFA);
@@ -1241,6 +1377,24 @@ public class ForwardModelTest {
         assertEquals(1, perspective1.flames.size());
     }
 
+    @Test
+    void forwardModelCopyHidesTilesOutOfVisionRange() {
+        for (int range : new int[]{1, 2, 4}) {
+            ForwardModel model = new ForwardModel(seed, 11, Types.GAME_MODE.FFA);
+            Avatar avatar = (Avatar) model.getAgents()[0];
+            avatar.setVisionRange(range);
+
+            ForwardModel perspective0 = model.copy(0);
+            for (int y = 0; y < 11; y++) {
+                for (int x = 0; x < 11; x++) {
+                    Types.TILETYPE expected = avatar.getPosition().custom_dist(x, y) <= range ?
+                            model.getBoard()[y][x] : Types.TILETYPE.FOG;
+                    assertEquals(expected, perspective0.getBoard()[y][x]);
+                }
+            }
+        }
+    }
+
     @Test
     void forwardModelCopyRemovesItemsOutOfRangeOfFoci() {
 
@@ -1296,4 +1450,39 @@ public class ForwardModelTest {
         assertEquals(2, perspective1.flames.size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void observationCodecMatchesReducedCopy() {
+        GameState gs = new GameState(seed, 11, Types.GAME_MODE.FFA);
+        gs.init();
+        for (GameObject agent : gs.getAgents()) {
+            ((Avatar) agent).setVisionRange(2);
+        }
+        int length = ObservationCodec.length(11);
+        int[] obs = new int[length];
+        Random random = new Random(seed);
+        ArrayList<Types.ACTIONS> allActions = Types.ACTIONS.all();
+
+        for (int tick = 0; tick < 60; tick++) {
+            for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+                assertEquals(length, ObservationCodec.encode(gs, p, obs, 0));
+                ForwardModel reduced = gs.copy(p).model;
+                int[][] blastStrength = reduced.getBombBlastStrength();
+                int[][] life = reduced.getBombLife();
+                for (int y = 0; y < 11; y++) {
+                    for (int x = 0; x < 11; x++) {
+                        int i = ObservationCodec.HEADER + y * 11 + x;
+                        assertEquals(reduced.getBoard()[y][x].getKey(), obs[i]);
+                        assertEquals(blastStrength[y][x], obs[i + 121]);
+                        assertEquals(life[y][x], obs[i + 2 * 121]);
+                    }
+                }
+            }
+            Types.ACTIONS[] actions = new Types.ACTIONS[Types.NUM_PLAYERS];
+            for (int p = 0; p < Types.NUM_PLAYERS; p++) {
+                actions[p] = allActions.get(random.nextInt(allActions.size()));
+            }
+            gs.next(actions);
+        }
+    }
+
+}
@@ -1,5 +1,6 @@
 package core;
 
+import core.gameConfig.GameConfig;
 import negotiations.Negotiation;
 import negotiations.Negotiator;
 import objects.Avatar;
@@ -9,9 +10,9 @@ import players.SimonSaysPlayer;
 import utils.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static utils.Types.*;
-import static utils.Types.VISUALS;
 
 @SuppressWarnings("FieldCanBeLocal")
 public class Game {
@@ -65,17 +66,39 @@ public class Game {
     // String that identifies this game (for logging purposes)
     private String gameIdStr;
 
-    // Log flags
+    // Rules and settings of this game.
+    private GameConfig config;
+
+    // Repetition of the game with the same seed, for the names of log files.
+    private int repetition;
+
+    // Default log flags of new games (see GameConfig)
     public static boolean LOG_GAME = false;
     public static boolean LOG_GAME_JSON = false; // If the game is being logged, should it be saved to json
 
-    // Variables for multi-threaded run 
+    // Variables for multi-threaded run: the actors of the players, and the threads that run them during a game.
     private Actor[] actors = new Actor[NUM_PLAYERS];
-    private Thread[] threads = new Thread[NUM_PLAYERS];
+    private ExecutorService actorExecutor;
+
+    // Decisions of the actors. With async decisions, a cancelled actor may still be deciding in later ticks.
+    private List<Future<Types.ACTIONS>> decisions = new ArrayList<>(Collections.nCopies(NUM_PLAYERS, null));
+
+    // Time given to a cancelled actor to return its best action so far.
+    private static final long CANCEL_GRACE_MILLIS = 5;
+
+    // Time given to the actors still deciding at the end of a game with async decisions, before leaving them behind.
+    private static final long SHUTDOWN_GRACE_MILLIS = 100;
 
     //Counts how many time a player did overtime
     private int[] playerOvertimes = new int[NUM_PLAYERS];
 
+    // If results are printed at the end of the game
+    private boolean printResults = true;
+
+    // Ring buffer the observations and actions of each tick are written to, if any, and stream id of this game in it
+    private ObservationRing observationRing;
+    private int ringStream;
+
     /**
      * Constructor of the game
      *
@@ -84,11 +107,24 @@ public class Game {
      * @param gameMode Mode of this game.
      */
     public Game(long seed, int size, Types.GAME_MODE gameMode, String gameIdStr) {
+        this(seed, gameMode, gameIdStr, GameConfig.defaults().toBuilder().boardSize(size).build());
+    }
+
+    /**
+     * Constructor of the game, with the given rules and settings.
+     *
+     * @param seed     Seed for the game (used only for board generation)
+     * @param gameMode Mode of this game.
+     * @param config   Rules and settings of this game, including the size of the board.
+     */
+    public Game(long seed, Types.GAME_MODE gameMode, String gameIdStr, GameConfig config) {
         this.gameMode = gameMode;
         this.seed = seed;
-        this.size = size;
+        this.size = config.getBoardSize();
         this.gameIdStr = gameIdStr;
+        this.config = config;
         reset(seed);
+        initGameLog();
     }
 
     /**
@@ -104,7 +140,9 @@ public class Game {
         this.gs = state.copy();
         this.gs.model.setTrueModel();
         this.size = state.model.getBoard().length;
+        this.config = state.getConfig();
         updateAssignedGameStates();
+        initGameLog();
     }
 
     /**
@@ -118,9 +156,11 @@ public class Game {
         this.gameMode = gameMode;
         this.seed = seed;
         this.size = model.getBoard().length;
+        this.config = model.getConfig();
         this.gs = new GameState(seed, model, gameMode);
         this.gs.model.setTrueModel();
         updateAssignedGameStates();
+        initGameLog();
     }
 
     /**
@@ -133,8 +173,10 @@ public class Game {
         this.gameMode = gs.gameMode;
         this.seed = gs.getSeed();
         this.size = gs.model.getBoard().length;
+        this.config = gs.getConfig();
         this.gs.model.setTrueModel();
         updateAssignedGameStates();
+        initGameLog();
     }
 
     /**
@@ -144,7 +186,7 @@ public class Game {
      */
     public void reset(long seed) {
         this.seed = seed;
-        this.gs = new GameState(seed, size, gameMode, true);
+        this.gs = new GameState(seed, size, gameMode, config);
         this.gs.model.setTrueModel();
         this.gs.init();
         updateAssignedGameStates();
@@ -159,7 +201,7 @@ public class Game {
         if (!sameBoard) {
             this.seed = System.currentTimeMillis();
         }
-        this.gs = new GameState(seed, size, gameMode, true);
+        this.gs = new GameState(seed, size, gameMode, config);
         this.gs.model.setTrueModel();
         this.gs.init();
         updateAssignedGameStates();
@@ -170,6 +212,9 @@ public class Game {
      */
     public Game copy() {
         Game copy = new Game(gs);
+        copy.config = config;
+        copy.gameIdStr = gameIdStr;
+        copy.repetition = repetition;
         ArrayList<Player> copyPlayers = new ArrayList<>(this.players.size());
         for (Player player : players) {
             copyPlayers.add(player.copy());
@@ -180,8 +225,8 @@ public class Game {
             if (gameStateObservations[i] != null)
                 copy.gameStateObservations[i] = gameStateObservations[i].copy();
         }
-        if (gameLog != null)
-            copy.gameLog = gameLog.copy();
+        copy.gameLog = gameLog == null ? null : gameLog.copy();
+        copy.initGameLog();
         //TODO: Add stuff for negotiations
         copy.negotiationStartTick = negotiationStartTick;
         copy.phase = phase;
@@ -196,8 +241,9 @@ public class Game {
      */
     public void setPlayers(ArrayList<Player> players) {
         this.players = players;
-        if (Types.NEGOTIATION) {
+        if (config.isNegotiation()) {
             negotiation = Negotiation.createForPlayers(players);
+            negotiation.setPrintResults(printResults);
             gs.model.injectNegotiation(negotiation);
             gs.messageManager = negotiation.getMessageManager();
         }
@@ -240,19 +286,19 @@ public class Game {
      * @return the results of the game, per player.
      */
     public Types.RESULT[] run(GUI frame, WindowInput wi, boolean separateThreads) {
-        if (frame == null || wi == null)
-            VISUALS = false;
+        boolean visuals = config.isVisuals() && frame != null && wi != null;
+        separateThreads = separateThreads || config.isAsyncDecisions();
 
         boolean firstEnd = true;
         Types.RESULT[] results = null;
-        if (LOG_GAME)
-            gameLog = new GameLog(seed, size, gameMode);
+        if (config.isLogGame())
+            gameLog = new GameLog(seed, size, gameMode, config);
 
         if (separateThreads) {
             createActors();
         }
 
-        while (!isEnded() || VISUALS && wi != null && !wi.windowClosed && !isEnded()) {
+        while (!isEnded() || visuals && !wi.windowClosed && !isEnded()) {
             // Loop while window is still open, even if the game ended.
             // If not playing with visuals, loop while the game's not ended.
             tick(separateThreads);
@@ -262,14 +308,14 @@ public class Game {
                 firstEnd = false;
                 results = terminate();
 
-                if (!VISUALS) {
+                if (!visuals) {
                     // The game has ended, end the loop if we're running without visuals.
                     break;
                 }
             }
 
             // Paint game state
-            if (VISUALS && frame != null) {
+            if (visuals) {
                 frame.paint();
                 try {
                     Thread.sleep(FRAME_DELAY);
@@ -285,9 +331,9 @@ public class Game {
         }
 
         // Save logged game
-        if (LOG_GAME) {
-            if (LOG_GAME_JSON) {
-                gameLog.serializeJSON(gameIdStr);
+        if (config.isLogGame()) {
+            if (config.isLogGameJson()) {
+                gameLog.serializeJSON(gameIdStr, repetition);
             } else {
                 gameLog.serialize();
             }
@@ -299,6 +345,7 @@ public class Game {
                 killThreads();
             } catch (InterruptedException e) {
                 e.printStackTrace();
+                Thread.currentThread().interrupt();
             }
         }
 
@@ -323,7 +370,8 @@ public class Game {
             case PAUSED:
                 return; // do nothing
             case NORMAL:
-                if (tick >= COLLAPSE_START && (tick - COLLAPSE_START) % COLLAPSE_STEP == 10) {
+                if (tick >= config.getCollapseStart()
+                        && (tick - config.getCollapseStart()) % config.getCollapseStep() == 10) {
                     setPhase(GAME_PHASE.NEGOTIATION_ONE);
                     negotiation.startPhaseOne(gs);
                     negotiationStartTick = tick;
@@ -339,20 +387,24 @@ public class Game {
                     }
 
                     // Log actions
-                    if (LOG_GAME) {
+                    if (config.isLogGame()) {
                         gameLog.addActions(actions);
                     }
+
+                    if (observationRing != null) {
+                        observationRing.write(ringStream, gs, actions);
+                    }
                 }
                 break;
             case NEGOTIATION_ONE:
-                if (tick >= negotiationStartTick + Types.NEGOTIATION_PHASE_ONE_LENGTH) {
+                if (tick >= negotiationStartTick + config.getNegotiationPhaseOneLength()) {
                     negotiation.startPhaseTwo(gs);
                     setPhase(GAME_PHASE.NEGOTIATION_TWO);
                     negotiationStartTick = tick;
                 }
                 break;
             case NEGOTIATION_TWO:
-                if (tick >= negotiationStartTick + NEGOTIATION_PHASE_TWO_LENGTH) {
+                if (tick >= negotiationStartTick + config.getNegotiationPhaseTwoLength()) {
                     negotiation.endPhaseTwo(gs);
                     setPhase(GAME_PHASE.NORMAL);
                     negotiationStartTick = 0;
@@ -406,53 +458,123 @@ public class Game {
 
     /**
      * Get player actions, 1 for each avatar still in the game, using separate threads. Called at every frame.
+     * The actors are run by the threads created with createActors(), which are reused at every frame.
+     * With async decisions, actors still deciding at the time limit are cancelled (see awaitDecision()).
      */
     private Types.ACTIONS[] getAvatarActionsInSeparateThreads() throws InterruptedException {
-        //
         Types.ACTIONS[] actions = new Types.ACTIONS[NUM_PLAYERS];
+        boolean[] deciding = new boolean[NUM_PLAYERS];
         for (int i = 0; i < NUM_PLAYERS; i++) {
             Player p = players.get(i);
 
             // Check if this player is still playing
             if (gameStateObservations[i].winner() == Types.RESULT.INCOMPLETE) {
+                if (decisions.get(i) != null && !decisions.get(i).isDone()) {
+                    // Still deciding on an earlier frame, after being cancelled
+                    actions[i] = Types.ACTIONS.ACTION_STOP;
+                    playerOvertimes[i]++;
+                    continue;
+                }
                 actors[i].player = p;
-                threads[i] = new Thread(actors[i]);
-                threads[i].start();
+                actors[i].gamestate = gameStateObservations[i];
+                decisions.set(i, actorExecutor.submit(actors[i]));
+                deciding[i] = true;
             } else {
-                threads[i] = null;
                 // This player is dead and action will be ignored
                 actions[i] = Types.ACTIONS.ACTION_STOP;
             }
         }
 
-        killThreads();
-
+        boolean deadline = config.isAsyncDecisions() && CHECK_DECISION_TIME;
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DECISION_TIME_LIMIT);
         for (int i = 0; i < NUM_PLAYERS; i++) {
-            if (threads[i] != null)
-                actions[i] = actors[i].getValue();
+            if (!deciding[i]) continue;
+            try {
+                actions[i] = deadline ? awaitDecision(i, deadlineNanos) : decisions.get(i).get();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
         }
 
         return actions;
     }
 
     /**
-     * Creates actor objects for the players.
+     * Waits for the decision of an actor until the deadline. If the actor has not decided by then, it is cancelled
+     * and given a short time to return its best action so far (see Player.decisionCancelled()).
+     *
+     * @param i             index of the player.
+     * @param deadlineNanos System.nanoTime() at which the decision time is over.
+     * @return the action of the player, or ACTION_STOP if it could not decide in time.
+     */
+    private Types.ACTIONS awaitDecision(int i, long deadlineNanos) throws InterruptedException, ExecutionException {
+        try {
+            return decisions.get(i).get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            playerOvertimes[i]++;
+            actors[i].cancel();
+        }
+        try {
+            Types.ACTIONS action = decisions.get(i).get(CANCEL_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            if (VERBOSE)
+                System.out.println("Player " + players.get(i).getPlayerID() + " used more time than allowed. Executing its best action so far.");
+            return action;
+        } catch (TimeoutException e) {
+            if (VERBOSE)
+                System.out.println("Player " + players.get(i).getPlayerID() + " used more time than allowed. Executing action STOP.");
+            return Types.ACTIONS.ACTION_STOP;
+        }
+    }
+
+    /**
+     * Creates actor objects for the players, and the threads to run them. Threads are virtual if the game config
+     * asks for them and the JVM supports them (Java 21+), and platform threads otherwise.
      */
     public void createActors() {
         for (int i = 0; i < NUM_PLAYERS; i++)
             actors[i] = new Actor();
+
+        if (actorExecutor == null) {
+            actorExecutor = newActorExecutor(config.isVirtualAgentThreads());
+        }
+    }
+
+    private static ExecutorService newActorExecutor(boolean virtual) {
+        if (virtual) {
+            try {
+                // Looked up by reflection, so that the game still builds and runs on Java 8
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                if (VERBOSE)
+                    System.out.println("Virtual threads not available, using platform threads for the agents.");
+            }
+        }
+        return Executors.newFixedThreadPool(NUM_PLAYERS, r -> {
+            Thread t = new Thread(r, "agent");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     /**
-     * Kills all threads.
+     * Kills all threads, after the actors running finish. With async decisions, actors still deciding (i.e. cancelled
+     * ones that ignore it) are interrupted, and left behind if they don't finish in SHUTDOWN_GRACE_MILLIS: their
+     * threads are daemons, and the game doesn't wait for them.
      *
      * @throws InterruptedException if threads could not be killed
      */
     private void killThreads() throws InterruptedException {
-        for (int i = 0; i < NUM_PLAYERS; i++) {
-            if (threads[i] != null && threads[i].isAlive())
-                threads[i].join();
+        if (actorExecutor != null) {
+            if (config.isAsyncDecisions()) {
+                actorExecutor.shutdownNow();
+                actorExecutor.awaitTermination(SHUTDOWN_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            } else {
+                actorExecutor.shutdown();
+                actorExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            actorExecutor = null;
         }
+        Collections.fill(decisions, null);
     }
 
     /**
@@ -477,7 +599,7 @@ public class Game {
      */
     boolean isEnded() {
         //Delegate to our game config
-        return getGameConfig().isEnded(gs.getTick(), gameMode, gs.getAliveAgents());
+        return config.getTeamConfig().isEnded(gs.getTick(), gameMode, gs.getAliveAgents());
     }
 
     /**
@@ -486,7 +608,7 @@ public class Game {
     protected void updateMessages() {
         if (gameMode.equals(GAME_MODE.TEAM_RADIO)) {
             for (int i = 0; i < NUM_PLAYERS; i++) {
-                int teammateIdx = getGameConfig().getTeammates(GAME_MODE.TEAM_RADIO, i + TILETYPE.AGENT0.getKey())[0].getKey() - TILETYPE.AGENT0.getKey();
+                int teammateIdx = config.getTeamConfig().getTeammates(GAME_MODE.TEAM_RADIO, i + TILETYPE.AGENT0.getKey())[0].getKey() - TILETYPE.AGENT0.getKey();
                 if (gameStateObservations[teammateIdx].winner() == RESULT.INCOMPLETE)
                     gs.setMessage(i, players.get(teammateIdx).getMessage());
                 else
@@ -511,32 +633,48 @@ public class Game {
         }
 
         // Call all agents' end-of-game method for post-processing. Agents receive their final reward.
-        double[] finalRewards = getGameConfig().getRewards(getTick(), results);
+        double[] finalRewards = config.getTeamConfig().getRewards(getTick(), results);
         for (int i = 0; i < NUM_PLAYERS; i++) {
             Player p = players.get(i);
             p.result(finalRewards[i]);
         }
 
-        if (LOGGING_STATISTICS)
-            gs.model.saveEventsStatistics(gameIdStr, seed);
+        if (config.isLoggingStatistics())
+            gs.model.saveEventsStatistics(gameIdStr, seed, repetition);
 
 //        if (VERBOSE) {
 //        System.out.println("GameOver: " + Arrays.toString(results));
 //        System.out.println(Arrays.toString(results));
 
-        System.out.print("[");
-        for (int i = 0; i < results.length; ++i) {
-            System.out.print(results[i] + (" (" + playerOvertimes[i] + ")"));
-            if (i == results.length - 1)
-                System.out.println("]");
-            else
-                System.out.print(", ");
-        }
+        if (printResults)
+            System.out.println(resultsToString(results));
 
 //        }
         return results;
     }
 
+    /**
+     * @param results results of the game, per player.
+     * @return the results and number of overtimes of each player, in the format printed at the end of games.
+     */
+    String resultsToString(Types.RESULT[] results) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < results.length; ++i) {
+            sb.append(results[i]).append(" (").append(playerOvertimes[i]).append(")");
+            sb.append(i == results.length - 1 ? "]" : ", ");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Sets if the results of the game (and of its negotiations) are printed when it ends.
+     */
+    void setPrintResults(boolean printResults) {
+        this.printResults = printResults;
+        if (negotiation != null)
+            negotiation.setPrintResults(printResults);
+    }
+
     /**
      * Prints the board to console.
      */
@@ -581,6 +719,20 @@ public class Game {
         return gs.model.getAliveAgents();
     }
 
+    /**
+     * @return size of the board.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return string that identifies this game.
+     */
+    public String getGameIdStr() {
+        return gameIdStr;
+    }
+
     /**
      * Returns number of players in the game
      *
@@ -625,33 +777,80 @@ public class Game {
      * @param b - if the game should be logged or not.
      */
     public void setLogGame(boolean b) {
-        if (b && gameLog == null) {
-            gameLog = new GameLog(seed, size, gameMode);
+        config = config.toBuilder().logGame(b).build();
+        initGameLog();
+    }
+
+    /**
+     * Creates the log of the game if the config asks for it and there is none yet, so that ticks played outside
+     * run() can be logged too.
+     */
+    private void initGameLog() {
+        if (config.isLogGame() && gameLog == null) {
+            gameLog = new GameLog(seed, size, gameMode, config);
         }
-        LOG_GAME = b;
     }
 
     /**
      * @return true if this game is being logged, false otherwise.
      */
     public boolean isLogged() {
-        return LOG_GAME;
+        return config.isLogGame();
+    }
+
+    /**
+     * @return rules and settings of this game.
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Sets the repetition of this game with the same seed, used in the names of the log files.
+     *
+     * @param repetition - repetition of the game.
+     */
+    public void setRepetition(int repetition) {
+        this.repetition = repetition;
+    }
+
+    /**
+     * Writes the observations and actions of all players to a ring buffer, in every tick the players act.
+     *
+     * @param ring   ring buffer to write to, or null to stop writing.
+     * @param stream id of this game in the records of the ring.
+     */
+    public void setObservationRing(ObservationRing ring, int stream) {
+        this.observationRing = ring;
+        this.ringStream = stream;
+    }
+
+    /**
+     * Returns the last game logged with the default settings (see GameConfig.defaults()).
+     *
+     * @return - last game logged.
+     */
+    public static Game getLastReplayGame() {
+        return getLastReplayGame(GameConfig.defaults());
     }
 
     /**
      * Returns the last game logged, with SimonSays players executing the logged action sequences, the saved seed,
      * initial state and game mode.
      *
+     * @param config - settings the game was logged with: the format of the log, and the rules to replay it with.
      * @return - last game logged.
      */
-    public static Game getLastReplayGame() {
+    public static Game getLastReplayGame(GameConfig config) {
         GameLog lastLog;
-        if (Game.LOG_GAME_JSON) {
+        if (config.isLogGameJson()) {
             lastLog = GameLog.deserializeLastJSON();
         } else {
             lastLog = GameLog.deserializeLast();
         }
 
+        if (lastLog != null)
+            lastLog.setConfig(config);
         return logToGame(lastLog);
     }
 
@@ -662,8 +861,7 @@ public class Game {
     private static Game logToGame(GameLog log) {
         Game game = null;
         if (log != null) {
-            game = new Game(log.getSeed(), log.getStartingGameState(), log.getGameMode());
-            game.setLogGame(false);
+            game = new Game(log.getSeed(), log.getGameMode(), null, log.getReplayConfig());
 
             Queue<ACTIONS> p1actionsQueue = new ArrayDeque<>();
             Queue<ACTIONS> p2actionsQueue = new ArrayDeque<>();
@@ -702,20 +900,43 @@ public class Game {
     /**
      * Actor class for running multi-threaded games. Each player is an Actor.
      */
-    public class Actor implements Runnable {
+    public class Actor implements Callable<Types.ACTIONS> {
 
         private volatile Types.ACTIONS action;
         public Player player;
         public GameState gamestate;
 
+        // Thread running this actor, while it decides.
+        private Thread thread;
+
         Actor() {
 //            this.player = player;
 //            this.gamestate = gamestate;
         }
 
         @Override
-        public void run() {
-            action = player.act(this.gamestate);
+        public Types.ACTIONS call() {
+            synchronized (this) {
+                thread = Thread.currentThread();
+            }
+            try {
+                action = player.act(this.gamestate);
+                return action;
+            } finally {
+                synchronized (this) {
+                    thread = null;
+                }
+                // Don't leave a late cancellation to the next actor run by this thread
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * Asks the player to stop deciding, interrupting the thread running it.
+         */
+        synchronized void cancel() {
+            if (thread != null)
+                thread.interrupt();
         }
 
         public Types.ACTIONS getValue() {
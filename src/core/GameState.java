@@ -1,11 +1,15 @@
 package core;
 
 import Message.MessageManager;
-import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
+import core.gameConfig.GameConfig;
 import negotiations.Agreement;
 import objects.*;
 import utils.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 import static utils.Types.*;
@@ -34,12 +38,16 @@ public class GameState {
     // Index that is in control of the player in this GameState.
     private int playerIdx = -1;
 
-    // Current tick of the game.
+    // Current tick of the game, and its Zobrist key. Both must only be changed through setTick().
     private int tick = 0;
+    private long tickKey = Zobrist.key(Zobrist.TICK, 0, 0);
 
     // Game mode being played
     Types.GAME_MODE gameMode;
 
+    // True if calls to next() are recorded, so that they can be undone (see mark()).
+    private boolean journaling;
+
     protected MessageManager messageManager;
 
     public MessageManager getMessageManager() {
@@ -71,6 +79,20 @@ public class GameState {
         }
     }
 
+    /**
+     * Creates a GameState object with a new ForwardModel for a game with the given config. The board is generated
+     * when init() is called.
+     *
+     * @param seed     - random seed to be used in generating the board.
+     * @param size     - size of the board.
+     * @param gameMode - game mode being played.
+     * @param config   - rules and settings of the game.
+     */
+    protected GameState(long seed, int size, Types.GAME_MODE gameMode, GameConfig config) {
+        this(seed, size, gameMode, false);
+        model = new ForwardModel(size, gameMode, config);
+    }
+
     /**
      * Optional game state constructor.
      *
@@ -173,6 +195,7 @@ public class GameState {
         GameState copy = new GameState(seed, size, gameMode, false);
         copy.model = model.copy(playerIdx);  // Use given playerIdx to reduce state (-1 in copies of copies)
         copy.tick = tick;
+        copy.tickKey = tickKey;
 
         // Use this copy's player idx as determined earlier to update copy playerIdx and its assigned avatar.
         copy.playerIdx = copyIdx;
@@ -186,6 +209,13 @@ public class GameState {
         return copy;
     }
 
+    /**
+     * @return rules and settings of the game.
+     */
+    public GameConfig getConfig() {
+        return model.getConfig();
+    }
+
     /**
      * @return the random seed of this state
      */
@@ -203,14 +233,17 @@ public class GameState {
      */
     public boolean next(Types.ACTIONS[] actions) {
 
-        if (tick < Types.MAX_GAME_TICKS) {
+        GameConfig config = model.getConfig();
+        if (tick < config.getMaxGameTicks()) {
 
+            if (journaling)
+                model.pushUndoFrame(tick);
             if (actions != null)
                 model.next(actions, tick);
-            tick++;
+            setTick(tick + 1);
 
-            if (tick == Types.MAX_GAME_TICKS)
-                Types.getGameConfig().processTimeout(gameMode, getAgents(), getAliveAgents());
+            if (tick == config.getMaxGameTicks())
+                config.getTeamConfig().processTimeout(gameMode, getAgents(), getAliveAgents());
 
             return true;
         }
@@ -225,6 +258,47 @@ public class GameState {
         return copy(-1);  // No reduction happening if no index specified
     }
 
+    /**
+     * Starts recording the calls to next(), so that they can be undone with undo(). This is cheaper than copying the
+     * state to roll it forward, when the same state is rolled forward many times. Only the changes made by next()
+     * are undone. Once a mark has been taken, all calls to next() are recorded until undo() goes back to the first
+     * mark; recording then stops, and a new mark must be taken before rolling the state forward again.
+     *
+     * @return mark to give to undo() to come back to the current state. Marks can be nested.
+     */
+    public int mark() {
+        journaling = true;
+        return model.undoDepth();
+    }
+
+    /**
+     * Undoes all calls to next() made since the given mark was taken.
+     *
+     * @param mark value returned by mark().
+     */
+    public void undo(int mark) {
+        while (model.undoDepth() > mark) {
+            setTick(model.popUndoFrame());
+        }
+        if (model.undoDepth() == 0)
+            journaling = false;
+    }
+
+    /**
+     * Zobrist hash of this state, covering the board, bombs, flames, avatars and the tick. It is much cheaper than
+     * equals(): all of it is kept up to date as the state changes. Equal states have the same hash.
+     *
+     * @return the hash of this state.
+     */
+    public long hash() {
+        return model.hash() ^ tickKey;
+    }
+
+    private void setTick(int tick) {
+        this.tick = tick;
+        tickKey = Zobrist.key(Zobrist.TICK, 0, tick);
+    }
+
     /**
      * GETTERS AND SETTERES
      **/
@@ -339,7 +413,7 @@ public class GameState {
      * @return true if terminal, false otherwise.
      */
     public boolean isTerminal() {
-        if (tick >= Types.MAX_GAME_TICKS)
+        if (tick >= model.getConfig().getMaxGameTicks())
             return true;
         if (avatar != null)
             return this.winner() != Types.RESULT.INCOMPLETE;
@@ -454,42 +528,38 @@ public class GameState {
      * @param state JSON game state
      */
     public GameState(String state) {
-        // TODO might be too much construction, maybe creating only forward models would be more efficient?
-//        System.out.println("state = " + state);
-
-        // State is [obs, action_space]
-        Gson gson = new Gson();
-        JsonParser parser = new JsonParser();
-        JsonElement element = parser.parse(state);
-        JsonObject object = element.getAsJsonObject();
-
-        // Take obs and further extract the information
-        String obs1 = object.get("obs").toString();
-
-        // TODO this regex works, problem: if obs.get called the JSON breaks so have to fix it with replacements
-        String obs = obs1.replaceAll("\\\\", "");
-        obs = obs.replaceAll("\"\\{", "\\{");
-        obs = obs.replaceAll("\\}\"", "\\}");
-        JsonElement obsE = parser.parse(obs);
-        JsonObject obsObj = obsE.getAsJsonObject();
-
-        // Casting all the information to their java equivalent before passing it to the gamestate constructor
-        int[] alive = gson.fromJson(obsObj.get("alive"), int[].class);
-        int[][] board = gson.fromJson(obsObj.get("board"), int[][].class);
-        int[][] bomb_blast_strength = gson.fromJson(obsObj.get("bomb_blast_strength"), int[][].class);
-        int[][] bomb_life = gson.fromJson(obsObj.get("bomb_life"), int[][].class);
-
-        int game_type = gson.fromJson(obsObj.get("game_type"), int.class); // game_type: 1 FFA
-        String game_env = gson.fromJson(obsObj.get("game_env"), String.class); // pommerman.envs.v0:Pomme
-        int[] position = gson.fromJson(obsObj.get("position"), int[].class); // [9, 1] - current agent's position x,y
-        int blast_strength = gson.fromJson(obsObj.get("blast_strength"), int.class); // int -current agent's blast strength
-        boolean can_kick = gson.fromJson(obsObj.get("can_kick"), boolean.class); // boolean
-        //Types.TILETYPE[] teammate; //teammate - dummy 9 // todo it's hardcoded in our levegenerator
-        int ammo = gson.fromJson(obsObj.get("ammo"), int.class); // int 1 -default
-        //Types.TILETYPE[] enemies; // enemies list // todo
-        int step_count = gson.fromJson(obsObj.get("step_count"), int.class); // step_count
-        int action_space = object.get("action_space").getAsInt();
+        // State is [obs, action_space], read into the buffers of this thread's parser
+        ObservationJson obs = ObservationJson.get();
+        obs.parse(state);
+        initObservation(obs.aliveIds(), obs.board, obs.bombBlastStrength, obs.bombLife, obs.gameType, obs.position,
+                obs.blastStrength, obs.canKick, obs.ammo, obs.stepCount, obs.actionSpace);
+    }
 
+    /**
+     * Optional game state constructor, used for observations received in binary form (see ObservationCodec), with
+     * the same values as the JSON observations.
+     *
+     * @param alive               keys of the agents alive.
+     * @param board               keys of the tile types on the board, by row and column.
+     * @param bomb_blast_strength blast strength of the bomb at each position, 0 if there is none.
+     * @param bomb_life           life of the bomb at each position, 0 if there is none.
+     * @param game_type           game type, as in Pommerman (1: FFA; 2: TEAM; 3: TEAM_RADIO).
+     * @param position            row and column of the player.
+     * @param blast_strength      blast strength of the player.
+     * @param can_kick            if the player can kick bombs.
+     * @param ammo                ammo of the player.
+     * @param step_count          tick of the game.
+     * @param action_space        number of actions available.
+     */
+    public GameState(int[] alive, int[][] board, int[][] bomb_blast_strength, int[][] bomb_life, int game_type,
+                     int[] position, int blast_strength, boolean can_kick, int ammo, int step_count, int action_space) {
+        initObservation(alive, board, bomb_blast_strength, bomb_life, game_type, position, blast_strength, can_kick,
+                ammo, step_count, action_space);
+    }
+
+    private void initObservation(int[] alive, int[][] board, int[][] bomb_blast_strength, int[][] bomb_life,
+                                 int game_type, int[] position, int blast_strength, boolean can_kick, int ammo,
+                                 int step_count, int action_space) {
         Types.GAME_MODE gameMode = Types.GAME_MODE.FFA; // Default
         if (game_type == 1) {
             gameMode = Types.GAME_MODE.FFA;
@@ -503,7 +573,7 @@ public class GameState {
 
         this.gameMode = gameMode;
 
-        this.tick = step_count;
+        setTick(step_count);
         this.seed = -1; // todo setting seed to -1 when communicating with python
         this.playerIdx = board[position[0]][position[1]] - 10; // Coordinates are swapped
         this.nActions = action_space;
@@ -530,89 +600,70 @@ public class GameState {
     }
 
     /**
-     * @return a Json string representing the current game state
+     * @return a Json string representing the current game state, streamed field by field. Names and values match
+     * the observations of the Python framework.
      */
     public String toJson() {
-        SerializableGameState serialisableGameState = new SerializableGameState(
-                getAliveAgentIDs(),
-                model.getBoard(),
-                model.getBombBlastStrength(),
-                model.getBombLife(),
-                gameMode,
-                Types.getGameConfig().getEnvironmentName(),
-                avatar.getPosition(),
-                avatar.getBlastStrength(),
-                avatar.canKick(),
-                avatar.getTeammates(),
-                avatar.getAmmo(),
-                avatar.getEnemies(),
-                getTick());
-
-        // TODO: These may be initialised only once to improve performance
-        GsonBuilder builder = new GsonBuilder();
-        Gson gson = builder.create();
-
-        return gson.toJson(serialisableGameState);
+        StringWriter out = new StringWriter();
+        try (JsonWriter json = new JsonWriter(out)) {
+            // Same output as Gson's defaults: null values are left out, and HTML characters escaped
+            json.setSerializeNulls(false);
+            json.setHtmlSafe(true);
+            json.beginObject();
+            json.name("alive").beginArray();
+            for (GameObject agent : getAliveAgents())
+                json.value(agent.getType().getKey());
+            json.endArray();
+            json.name("board").beginArray();
+            for (Types.TILETYPE[] row : model.getBoard()) {
+                json.beginArray();
+                for (Types.TILETYPE type : row)
+                    json.value(type.getKey());
+                json.endArray();
+            }
+            json.endArray();
+            writeGrid(json.name("bomb_blast_strength"), model.getBombBlastStrength());
+            writeGrid(json.name("bomb_life"), model.getBombLife());
+            json.name("game_mode").value(gameMode.getKey());
+            json.name("game_env").value(model.getConfig().getTeamConfig().getEnvironmentName());
+            Vector2d position = avatar.getPosition();
+            json.name("position").beginArray().value(position.x).value(position.y).endArray();
+            json.name("blast_strength").value(avatar.getBlastStrength());
+            json.name("can_kick").value(avatar.canKick());
+            writeTypes(json.name("teammate"), avatar.getTeammates());
+            json.name("ammo").value(avatar.getAmmo());
+            writeTypes(json.name("enemies"), avatar.getEnemies());
+            json.name("step_count").value(getTick());
+            json.endObject();
+        } catch (IOException e) {
+            // Not thrown by a StringWriter
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static void writeGrid(JsonWriter json, int[][] grid) throws IOException {
+        json.beginArray();
+        for (int[] row : grid) {
+            json.beginArray();
+            for (int v : row)
+                json.value(v);
+            json.endArray();
+        }
+        json.endArray();
     }
 
     /**
-     * A serializable form of GameState containing information compatible with Python framework
+     * Writes tile types by name, or nothing if there are none.
      */
-    @SuppressWarnings({"FieldCanBeLocal", "unused"})
-    class SerializableGameState {
-
-        // Variable namings are set to match Python framework observations
-        private int[] alive;
-        private int[][] board;
-        private int[][] bomb_blast_strength;
-        private int[][] bomb_life;
-        private int game_mode;
-        private String game_env;
-        private int[] position;
-        private int blast_strength;
-        private boolean can_kick;
-        private Types.TILETYPE[] teammate;
-        private int ammo;
-        private Types.TILETYPE[] enemies;
-        private int step_count;
-
-        private SerializableGameState(
-                Types.TILETYPE[] alive,
-                Types.TILETYPE[][] boardTypes,
-                int[][] bombBlastStrength,
-                int[][] bombLife,
-                Types.GAME_MODE gameMode,
-                String gameEnv,
-                Vector2d position,
-                int blastStrength,
-                boolean canKick,
-                Types.TILETYPE[] teammate,
-                int ammo,
-                Types.TILETYPE[] enemies,
-                int ticks) {
-            this.alive = new int[alive.length];
-            for (int i = 0; i < alive.length; i++) {
-                this.alive[i] = alive[i].getKey();
-            }
-
-            this.board = new int[boardTypes.length][boardTypes[0].length];
-            for (int i = 0; i < boardTypes.length; i++) {
-                for (int j = 0; j < boardTypes[0].length; j++) {
-                    board[i][j] = boardTypes[i][j].getKey();
-                }
-            }
-
-            this.bomb_blast_strength = bombBlastStrength;
-            this.bomb_life = bombLife;
-            this.game_mode = gameMode.getKey();
-            this.game_env = gameEnv;
-            this.position = new int[]{position.x, position.y};
-            this.blast_strength = blastStrength;
-            this.can_kick = canKick;
-            this.teammate = teammate;
-            this.ammo = ammo;
-            this.enemies = enemies;
-            this.step_count = ticks;
+    private static void writeTypes(JsonWriter json, Types.TILETYPE[] types) throws IOException {
+        if (types == null) {
+            json.nullValue();
+            return;
         }
+        json.beginArray();
+        for (Types.TILETYPE type : types)
+            json.value(type.name());
+        json.endArray();
     }
 }
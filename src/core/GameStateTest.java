@@ -1,7 +1,10 @@
 package core;
 
+import org.junit.jupiter.api.Test;
 import utils.Types;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 class GameStateTest {
 
     @org.junit.jupiter.api.Test
@@ -10,4 +13,34 @@ class GameStateTest {
         gs.init();
         System.out.println(gs.model);
     }
-}
\ No newline at end of file
+
+    @Test
+    void parsesJsonObservations() {
+        String obs = "{\"alive\": [10, 11, 13], \"game_type\": 1, \"game_env\": \"pommerman.envs.v0:Pomme\", "
+                + "\"board\": [[0, 0, 2, 1], [10, 3, 0, 0], [0, 0, 11, 0], [5, 5, 0, 13]], "
+                + "\"bomb_blast_strength\": [[0, 0, 0, 0], [0, 3.0, 0, 0], [0, 0, 0, 0], [0, 0, 0, 0]], "
+                + "\"bomb_life\": [[0, 0, 0, 0], [0, 7.0, 0, 0], [0, 0, 0, 0], [0, 0, 0, 0]], "
+                + "\"position\": [1, 0], \"blast_strength\": 2, \"can_kick\": true, \"ammo\": 0, "
+                + "\"teammate\": 9, \"enemies\": [11, 12, 13], \"step_count\": 42}";
+        int visionRange = Types.DEFAULT_VISION_RANGE;
+        try {
+            // The observation may come as an object, or as a string with its JSON
+            GameState fromObject = new GameState("{\"obs\": " + obs + ", \"action_space\": 6}");
+            GameState fromString = new GameState("{\"obs\": \"" + obs.replace("\"", "\\\"")
+                    + "\", \"action_space\": 6}");
+            for (GameState gs : new GameState[]{fromObject, fromString}) {
+                assertEquals(42, gs.getTick());
+                assertEquals(0, gs.getPlayerId() - Types.TILETYPE.AGENT0.getKey());
+                assertEquals(2, gs.getBlastStrength());
+                assertEquals(Types.TILETYPE.BOMB, gs.getBoard()[1][1]);
+                assertEquals(3, gs.getBombBlastStrength()[1][1]);
+                assertEquals(7, gs.getBombLife()[1][1]);
+                assertEquals(3, gs.getAliveAgentIDs().length);
+            }
+            assertEquals(fromObject.toJson(), fromString.toJson());
+            assertThrows(IllegalArgumentException.class, () -> new GameState("{\"action_space\": 6}"));
+        } finally {
+            Types.DEFAULT_VISION_RANGE = visionRange;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package core;
 
+import core.gameConfig.GameConfig;
 import objects.Avatar;
 import objects.GameObject;
 import org.junit.jupiter.api.Test;
@@ -195,7 +196,9 @@ class GameTest {
         Types.GAME_MODE gameMode = Types.GAME_MODE.FFA;
         boolean useSeparateThreads = false;
 
-        Game game = new Game(seed, boardSize, gameMode, "");
+        GameConfig config = GameConfig.defaults().toBuilder().boardSize(boardSize).maxGameTicks(800).logGame(true)
+                .logGameJson(true).build();
+        Game game = new Game(seed, gameMode, "", config);
         game.setLogGame(true);
 
         // Create players
@@ -222,9 +225,6 @@ class GameTest {
         game.setPlayers(players);
 
         Game copy = game.copy();
-        Types.MAX_GAME_TICKS = 800;
-        Game.LOG_GAME = true;
-        Game.LOG_GAME_JSON = true;
         //Run a single game with the players
         game.run(null, null, useSeparateThreads);
         System.out.println("game length: "+game.getTick());
@@ -233,7 +233,7 @@ class GameTest {
         assertEquals(log, deserializedLog); //Logs are the same before and after (de)serialization
 
         Game replayGame = game.getReplayGame();
-        Game deserializedReplayGame = Game.getLastReplayGame();
+        Game deserializedReplayGame = Game.getLastReplayGame(game.getConfig());
         assertEquals(replayGame.getGameState(), deserializedReplayGame.getGameState());
 
         int numberOfCopies = 100;
@@ -308,11 +308,11 @@ class GameTest {
             assert players.size() == Types.NUM_PLAYERS : "There should be " + Types.NUM_PLAYERS +
                     " added to the game, but there are " + players.size();
 
-            Game game = new Game(seed, boardSize, gameMode, "");
+            GameConfig config = GameConfig.defaults().toBuilder().boardSize(boardSize).maxGameTicks(800).build();
+            Game game = new Game(seed, gameMode, "", config);
             game.setLogGame(true);
             game.setPlayers(players);
 
-            Types.MAX_GAME_TICKS = 800;
             //Run a single game with the players
             List<GameState> stateList = new ArrayList<>();
 
@@ -369,7 +369,9 @@ class GameTest {
         Types.GAME_MODE gameMode = Types.GAME_MODE.FFA;
         boolean useSeparateThreads = false;
 
-        Game game = new Game(seed, boardSize, gameMode, "");
+        GameConfig config = GameConfig.defaults().toBuilder().boardSize(boardSize).maxGameTicks(400).logGameJson(true)
+                .build();
+        Game game = new Game(seed, gameMode, "", config);
         game.setLogGame(true);
 
         // Create players
@@ -400,7 +402,6 @@ class GameTest {
         game.setPlayers(players);
 
         Game copy = game.copy();
-        Types.MAX_GAME_TICKS = 400;
         //Run a single game with the players
         game.run(null, null, useSeparateThreads);
         GameLog log = game.getGameLog();
@@ -411,7 +412,7 @@ class GameTest {
         /* Uncomment to run the replay of the previous game: */
         if (game.isLogged()){
             Game replayGame = game.getReplayGame();
-            Game deserializedReplayGame = Game.getLastReplayGame();
+            Game deserializedReplayGame = Game.getLastReplayGame(game.getConfig());
             assertEquals(replayGame.getGameState(), deserializedReplayGame.getGameState()); //Replay games from fresh and deserialized log are the same
 
             replayGame.run(null,null, useSeparateThreads);
@@ -449,7 +450,9 @@ class GameTest {
         Types.GAME_MODE gameMode = Types.GAME_MODE.FFA;
         boolean useSeparateThreads = false;
 
-        Game game = new Game(seed, boardSize, gameMode, "");
+        GameConfig config = GameConfig.defaults().toBuilder().boardSize(boardSize).maxGameTicks(400).logGameJson(true)
+                .build();
+        Game game = new Game(seed, gameMode, "", config);
         game.setLogGame(true);
 
         // Create players
@@ -480,7 +483,6 @@ class GameTest {
         game.setPlayers(players);
 
         Game copy = game.copy();
-        Types.MAX_GAME_TICKS = 400;
         //Run a single game with the players
         game.run(null, null, useSeparateThreads);
         GameLog log = game.getGameLog();
@@ -491,7 +493,7 @@ class GameTest {
         /* Uncomment to run the replay of the previous game: */
         if (game.isLogged()){
             Game replayGame = game.getReplayGame();
-            Game deserializedReplayGame = Game.getLastReplayGame();
+            Game deserializedReplayGame = Game.getLastReplayGame(game.getConfig());
             assertEquals(replayGame.getGameState(), deserializedReplayGame.getGameState()); //Replay games from fresh and deserialized log are the same
 
             replayGame.run(null,null, useSeparateThreads);
@@ -0,0 +1,150 @@
+package core;
+
+import objects.Avatar;
+import objects.GameObject;
+import utils.BitBoard;
+import utils.Types;
+import utils.Vector2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Encodes what a player observes of a game state as a flat array of ints, in the same way for all the interfaces
+ * that send observations in bulk or in binary form. The observation of a player on a board of size S has
+ * length(S) = HEADER + 3 * S * S values:
+ * <ul>
+ *     <li>Header: tick, ammo, blast strength, can kick (0/1) and alive (0/1) of the player.</li>
+ *     <li>x, y and alive (0/1) of each of the 4 agents; x and y are -1 for agents that are dead or not seen.</li>
+ *     <li>Board: key of the tile type at each position (row after row), FOG for tiles not in view.</li>
+ *     <li>Blast strength of the bomb at each position, 0 if there is none, or it's not in view.</li>
+ *     <li>Life of the bomb at each position, 0 if there is none, or it's not in view.</li>
+ * </ul>
+ * This is what the player would see in its copy of the game state (see GameState.copy(int)), but the observation
+ * is read from the true state directly, without copying it.
+ */
+public final class ObservationCodec {
+
+    public static final int HEADER = 5 + 3 * Types.NUM_PLAYERS;
+
+    // Offsets of the values in the header.
+    public static final int TICK = 0, AMMO = 1, BLAST_STRENGTH = 2, CAN_KICK = 3, ALIVE = 4, AGENTS = 5;
+
+    private ObservationCodec() {
+    }
+
+    /**
+     * @param size size of the board.
+     * @return number of values in the observation of a player.
+     */
+    public static int length(int size) {
+        return HEADER + 3 * size * size;
+    }
+
+    /**
+     * Writes the observation of a player into an array.
+     *
+     * @param gs        true state of the game.
+     * @param playerIdx index of the player observing the state.
+     * @param dst       array to write the observation to.
+     * @param offset    position of the first value of the observation in dst.
+     * @return position in dst right after the observation.
+     */
+    public static int encode(GameState gs, int playerIdx, int[] dst, int offset) {
+        ForwardModel model = gs.model;
+        int size = model.getBoard().length;
+        int cells = size * size;
+        BitBoard visible = model.visibleTiles(playerIdx);
+        GameObject[] agents = model.getAgents();
+        ArrayList<GameObject> aliveAgents = model.getAliveAgents();
+
+        Avatar self = (Avatar) agents[playerIdx];
+        dst[offset + TICK] = gs.getTick();
+        dst[offset + AMMO] = self.getAmmo();
+        dst[offset + BLAST_STRENGTH] = self.getBlastStrength();
+        dst[offset + CAN_KICK] = self.canKick() ? 1 : 0;
+        dst[offset + ALIVE] = aliveAgents.contains(self) ? 1 : 0;
+
+        for (int i = 0; i < Types.NUM_PLAYERS; i++) {
+            int a = offset + AGENTS + 3 * i;
+            Vector2d position = agents[i].getPosition();
+            boolean alive = aliveAgents.contains(agents[i]);
+            if (position != null && alive && (visible == null || visible.get(position.x, position.y))) {
+                dst[a] = position.x;
+                dst[a + 1] = position.y;
+            } else {
+                dst[a] = -1;
+                dst[a + 1] = -1;
+            }
+            dst[a + 2] = alive ? 1 : 0;
+        }
+
+        int boardOffset = offset + HEADER;
+        int fog = Types.TILETYPE.FOG.getKey();
+        Types.TILETYPE[][] board = model.getBoard();
+        for (int y = 0; y < size; y++) {
+            Types.TILETYPE[] row = board[y];
+            int rowOffset = boardOffset + y * size;
+            for (int x = 0; x < size; x++) {
+                dst[rowOffset + x] = visible == null || visible.get(x, y) ? row[x].getKey() : fog;
+            }
+        }
+
+        int blastOffset = boardOffset + cells;
+        int lifeOffset = blastOffset + cells;
+        Arrays.fill(dst, blastOffset, lifeOffset + cells, 0);
+        BombList bombs = model.bombs;
+        for (int i = 0; i < bombs.size(); i++) {
+            int x = bombs.x[i], y = bombs.y[i];
+            if (visible == null || visible.get(x, y)) {
+                dst[blastOffset + y * size + x] = bombs.blastStrength[i];
+                dst[lifeOffset + y * size + x] = bombs.life[i];
+            }
+        }
+        return lifeOffset + cells;
+    }
+
+    /**
+     * Builds the game state seen by a player from its observation, as GameState(String) does from a JSON
+     * observation.
+     *
+     * @param src         array with the observation.
+     * @param offset      position of the first value of the observation in src.
+     * @param size        size of the board.
+     * @param playerIdx   index of the player observing the state.
+     * @param gameType    game type, as in Pommerman (1: FFA; 2: TEAM; 3: TEAM_RADIO).
+     * @param actionSpace number of actions available.
+     * @return the game state of the player.
+     * @throws IllegalArgumentException if the player is not on the board.
+     */
+    public static GameState decode(int[] src, int offset, int size, int playerIdx, int gameType, int actionSpace) {
+        int cells = size * size;
+        int[][] board = new int[size][size];
+        int[][] blastStrength = new int[size][size];
+        int[][] life = new int[size][size];
+        for (int y = 0; y < size; y++) {
+            System.arraycopy(src, offset + HEADER + y * size, board[y], 0, size);
+            System.arraycopy(src, offset + HEADER + cells + y * size, blastStrength[y], 0, size);
+            System.arraycopy(src, offset + HEADER + 2 * cells + y * size, life[y], 0, size);
+        }
+
+        int nAlive = 0;
+        for (int i = 0; i < Types.NUM_PLAYERS; i++)
+            nAlive += src[offset + AGENTS + 3 * i + 2];
+        int[] alive = new int[nAlive];
+        for (int i = 0, j = 0; i < Types.NUM_PLAYERS; i++) {
+            if (src[offset + AGENTS + 3 * i + 2] == 1)
+                alive[j++] = Types.TILETYPE.AGENT0.getKey() + i;
+        }
+
+        int x = src[offset + AGENTS + 3 * playerIdx];
+        int y = src[offset + AGENTS + 3 * playerIdx + 1];
+        if (x < 0 || y < 0)
+            throw new IllegalArgumentException("Player " + playerIdx + " is not on the board");
+        // Positions are row and column in Pommerman observations
+        int[] position = {y, x};
+
+        return new GameState(alive, board, blastStrength, life, gameType, position, src[offset + BLAST_STRENGTH],
+                src[offset + CAN_KICK] == 1, src[offset + AMMO], src[offset + TICK], actionSpace);
+    }
+}
@@ -0,0 +1,178 @@
+package core;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * Streaming parser of the JSON observations sent by the Python Pommerman environment, {"obs": {...}, "action_space":
+ * n}, where "obs" may also come as a string with the JSON of the observation. The values used by GameState are read
+ * token by token straight into primitive buffers, which are reused from one observation to the next; everything else
+ * in the observation is skipped. Each thread has its own parser (see get()).
+ */
+final class ObservationJson {
+
+    private static final ThreadLocal<ObservationJson> PARSERS = ThreadLocal.withInitial(ObservationJson::new);
+
+    // Values required in an observation, as bits of the field mask.
+    private static final String[] REQUIRED = {"obs", "action_space", "alive", "board", "bomb_blast_strength",
+            "bomb_life", "game_type", "position", "blast_strength", "can_kick", "ammo", "step_count"};
+    private static final int ALL_FIELDS = (1 << REQUIRED.length) - 1;
+
+    // Values of the last observation parsed. Only the first nAlive ids are used.
+    int[][] board = new int[0][];
+    int[][] bombBlastStrength = new int[0][];
+    int[][] bombLife = new int[0][];
+    int[] alive = new int[8];
+    int nAlive;
+    int[] position = new int[2];
+    int gameType, blastStrength, ammo, stepCount, actionSpace;
+    boolean canKick;
+
+    // Mask of the required values read from the last observation.
+    private int fields;
+
+    private ObservationJson() {
+    }
+
+    /**
+     * @return the parser of this thread.
+     */
+    static ObservationJson get() {
+        return PARSERS.get();
+    }
+
+    /**
+     * Parses an observation.
+     *
+     * @param json observation and action space, as sent by the Python environment.
+     * @throws IllegalArgumentException if the observation can't be parsed.
+     */
+    void parse(String json) {
+        fields = 0;
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            in.setLenient(true);
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                mark(name);
+                if (name.equals("obs")) {
+                    if (in.peek() == JsonToken.STRING) {
+                        // Observation sent as a string with its JSON
+                        try (JsonReader obs = new JsonReader(new StringReader(in.nextString()))) {
+                            obs.setLenient(true);
+                            parseObservation(obs);
+                        }
+                    } else {
+                        parseObservation(in);
+                    }
+                } else if (name.equals("action_space")) {
+                    actionSpace = in.nextInt();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid JSON observation", e);
+        }
+        if (fields != ALL_FIELDS)
+            throw new IllegalArgumentException("Missing values in JSON observation");
+    }
+
+    /**
+     * @return ids of the agents alive, in a new array.
+     */
+    int[] aliveIds() {
+        return Arrays.copyOf(alive, nAlive);
+    }
+
+    private void mark(String name) {
+        for (int i = 0; i < REQUIRED.length; i++) {
+            if (REQUIRED[i].equals(name))
+                fields |= 1 << i;
+        }
+    }
+
+    private void parseObservation(JsonReader in) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            mark(name);
+            switch (name) {
+                case "alive":
+                    nAlive = 0;
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (nAlive == alive.length)
+                            alive = Arrays.copyOf(alive, 2 * nAlive);
+                        alive[nAlive++] = in.nextInt();
+                    }
+                    in.endArray();
+                    break;
+                case "board":
+                    board = readGrid(in, board);
+                    break;
+                case "bomb_blast_strength":
+                    bombBlastStrength = readGrid(in, bombBlastStrength);
+                    break;
+                case "bomb_life":
+                    bombLife = readGrid(in, bombLife);
+                    break;
+                case "game_type":
+                    gameType = in.nextInt();
+                    break;
+                case "position":
+                    in.beginArray();
+                    position[0] = in.nextInt();
+                    position[1] = in.nextInt();
+                    in.endArray();
+                    break;
+                case "blast_strength":
+                    blastStrength = in.nextInt();
+                    break;
+                case "can_kick":
+                    canKick = in.peek() == JsonToken.NUMBER ? in.nextInt() != 0 : in.nextBoolean();
+                    break;
+                case "ammo":
+                    ammo = in.nextInt();
+                    break;
+                case "step_count":
+                    stepCount = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+    }
+
+    /**
+     * Reads a grid of ints into a buffer, which is replaced if the grid has a different size.
+     *
+     * @return the buffer with the grid.
+     */
+    private static int[][] readGrid(JsonReader in, int[][] grid) throws IOException {
+        int rows = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (rows == grid.length)
+                grid = Arrays.copyOf(grid, rows + 1);
+            int[] row = grid[rows] == null ? new int[0] : grid[rows];
+            int cols = 0;
+            in.beginArray();
+            while (in.hasNext()) {
+                if (cols == row.length)
+                    row = Arrays.copyOf(row, cols + 1);
+                row[cols++] = in.nextInt();
+            }
+            in.endArray();
+            grid[rows++] = cols == row.length ? row : Arrays.copyOf(row, cols);
+        }
+        in.endArray();
+        return rows == grid.length ? grid : Arrays.copyOf(grid, rows);
+    }
+}
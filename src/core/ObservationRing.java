@@ -0,0 +1,200 @@
+package core;
+
+import sun.misc.Unsafe;
+import utils.Types;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer of observations and actions in a memory-mapped file, written by games (see Game.setObservationRing()
+ * and VecEnv.setObservationRing()) and read by another process straight from the file, e.g. with numpy (see
+ * py/ring.py). Each record holds one tick of one game: the observations of the 4 players (see ObservationCodec)
+ * and the actions they played in that tick.
+ *
+ * All values are little-endian. The file starts with a header:
+ * <pre>
+ *     0    int   MAGIC
+ *     4    int   VERSION
+ *     8    int   number of record slots
+ *     12   int   ints in the observation of one player (ObservationCodec.length())
+ *     16   int   size of the board
+ *     20   int   bytes per record
+ *     64   long  write sequence: number of records written so far
+ *     128  long  read sequence: number of records read so far, updated by the reader
+ * </pre>
+ * Record n is in slot n % slots, at HEADER_BYTES + slot * recordBytes:
+ * <pre>
+ *     0    long  n + 1, once the record is complete
+ *     8    int   stream (game) the record comes from
+ *     12   int   tick
+ *     16   int[] actions of the 4 players (keys of Types.ACTIONS)
+ *     32   int[] observations of the 4 players, one after the other
+ * </pre>
+ * The writer only reuses a slot once the reader has moved its read sequence past it, so no record is lost: writing
+ * waits while the ring is full. The reader reads records up to the write sequence, then moves the read sequence.
+ * Records are written by one thread at a time.
+ */
+public class ObservationRing implements AutoCloseable {
+
+    public static final int MAGIC = 0x42524D50;  // "PMRB"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 192;
+    static final int WRITE_SEQ = 64, READ_SEQ = 128;
+    private static final int RECORD_HEADER_BYTES = 16 + 4 * Types.NUM_PLAYERS;
+
+    // The reader is another process, so Java memory model rules on fields don't order what it sees: stores to the
+    // mapped buffer are ordered with explicit fences instead.
+    private static final Unsafe UNSAFE = loadUnsafe();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final IntBuffer ints;
+    private final int slots;
+    private final int obsLength;
+    private final int recordBytes;
+
+    // Next record to write, and observations of the record being written. Only accessed with the lock held.
+    private long writeSeq;
+    private final int[] observations;
+
+    /**
+     * Creates the ring file, or overwrites it if it exists.
+     *
+     * @param path      path of the file.
+     * @param slots     number of records the ring holds.
+     * @param boardSize size of the boards of the games writing to the ring.
+     * @throws IOException if the file can't be created or mapped.
+     * @throws IllegalArgumentException if the ring would not fit in a mapped file (2GB).
+     */
+    public ObservationRing(Path path, int slots, int boardSize) throws IOException {
+        this.slots = slots;
+        this.obsLength = ObservationCodec.length(boardSize);
+        this.recordBytes = RECORD_HEADER_BYTES + 4 * Types.NUM_PLAYERS * obsLength;
+        this.observations = new int[Types.NUM_PLAYERS * obsLength];
+
+        long fileBytes = HEADER_BYTES + (long) slots * recordBytes;
+        if (slots <= 0 || fileBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid number of slots for a ring file: " + slots);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        ints = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+        buffer.putLong(WRITE_SEQ, 0);
+        buffer.putLong(READ_SEQ, 0);
+        buffer.putInt(8, slots);
+        buffer.putInt(12, obsLength);
+        buffer.putInt(16, boardSize);
+        buffer.putInt(20, recordBytes);
+        buffer.putInt(4, VERSION);
+        UNSAFE.storeFence();
+        buffer.putInt(0, MAGIC);
+    }
+
+    /**
+     * @return ints in the observation of one player.
+     */
+    public int getObservationLength() {
+        return obsLength;
+    }
+
+    /**
+     * @return number of records written so far.
+     */
+    public synchronized long getWriteSequence() {
+        return writeSeq;
+    }
+
+    /**
+     * Writes a record with the observations of all players of a game state, encoded from the state.
+     *
+     * @param stream  game the record comes from.
+     * @param gs      true state of the game, before the actions are played.
+     * @param actions actions of the players in this tick.
+     */
+    public synchronized void write(int stream, GameState gs, Types.ACTIONS[] actions) {
+        int offset = 0;
+        for (int i = 0; i < Types.NUM_PLAYERS; i++)
+            offset = ObservationCodec.encode(gs, i, observations, offset);
+        int slot = claimSlot();
+        int base = (HEADER_BYTES + slot * recordBytes) / 4;
+        for (int i = 0; i < Types.NUM_PLAYERS; i++)
+            ints.put(base + 4 + i, actions[i].getKey());
+        finishRecord(slot, stream, gs.getTick(), base);
+    }
+
+    /**
+     * Writes a record with observations already encoded (see ObservationCodec).
+     *
+     * @param stream       game the record comes from.
+     * @param tick         tick of the game.
+     * @param actions      array with the action keys of the players in this tick.
+     * @param actionOffset position of the action of the first player in actions.
+     * @param obs          array with the observations of the players, one after the other.
+     * @param obsOffset    position of the observation of the first player in obs.
+     */
+    public synchronized void write(int stream, int tick, int[] actions, int actionOffset, int[] obs, int obsOffset) {
+        System.arraycopy(obs, obsOffset, observations, 0, observations.length);
+        int slot = claimSlot();
+        int base = (HEADER_BYTES + slot * recordBytes) / 4;
+        for (int i = 0; i < Types.NUM_PLAYERS; i++)
+            ints.put(base + 4 + i, actions[actionOffset + i]);
+        finishRecord(slot, stream, tick, base);
+    }
+
+    /**
+     * Waits until the reader has read the record in the next slot, if the ring is full.
+     *
+     * @return the next slot.
+     */
+    private int claimSlot() {
+        while (writeSeq - buffer.getLong(READ_SEQ) >= slots) {
+            LockSupport.parkNanos(50_000);
+        }
+        // The reader is done with the slot: don't let the writes to it move before reading the read sequence
+        UNSAFE.loadFence();
+        return (int) (writeSeq % slots);
+    }
+
+    private void finishRecord(int slot, int stream, int tick, int base) {
+        int recordOffset = HEADER_BYTES + slot * recordBytes;
+        buffer.putInt(recordOffset + 8, stream);
+        buffer.putInt(recordOffset + 12, tick);
+        ints.position(base + RECORD_HEADER_BYTES / 4);
+        ints.put(observations);
+
+        // Publish the record: the fence makes its contents visible before the sequence numbers that point to it
+        writeSeq++;
+        UNSAFE.storeFence();
+        buffer.putLong(recordOffset, writeSeq);
+        buffer.putLong(WRITE_SEQ, writeSeq);
+    }
+
+    /**
+     * Flushes the records to the file and closes it.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private static Unsafe loadUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package core;
+
+import utils.Types;
+
+/**
+ * A batch of independent game states, copied from the same root state and advanced together, one tick at a time,
+ * with one joint action per state. This is meant for searches running many rollouts from the same state:
+ * <ul>
+ *     <li>The states are copied once, and rewound to the root state between rollouts instead of copied again (see
+ *     GameState.mark()).</li>
+ *     <li>All states share the scratch buffers of the forward model, so stepping them one after the other keeps a
+ *     single set of buffers in cache. Because of this, a batch must only be used from one thread.</li>
+ * </ul>
+ */
+public class StateBatch {
+
+    private final GameState[] states;
+    private final int[] marks;
+    private final StepBuffers buffers = new StepBuffers();
+
+    /**
+     * Creates a batch of copies of the given state.
+     *
+     * @param root state to copy.
+     * @param n    number of states in the batch.
+     */
+    public StateBatch(GameState root, int n) {
+        states = new GameState[n];
+        marks = new int[n];
+        for (int i = 0; i < n; i++) {
+            states[i] = root.copy();
+            states[i].model.useBuffers(buffers);
+            marks[i] = states[i].mark();
+        }
+    }
+
+    /**
+     * @return number of states in the batch.
+     */
+    public int size() {
+        return states.length;
+    }
+
+    /**
+     * @param i index of the state.
+     * @return state 'i' of the batch.
+     */
+    public GameState get(int i) {
+        return states[i];
+    }
+
+    /**
+     * Advances all states of the batch by one tick.
+     *
+     * @param actions joint actions (one per player) to apply to each state, indexed as the states. A state with a
+     *                null joint action is left as it is, i.e. once its rollout has ended.
+     */
+    public void next(Types.ACTIONS[][] actions) {
+        for (int i = 0; i < states.length; i++) {
+            if (actions[i] != null) {
+                states[i].next(actions[i]);
+            }
+        }
+    }
+
+    /**
+     * Brings all states of the batch back to the root state they were copied from.
+     */
+    public void rewind() {
+        for (int i = 0; i < states.length; i++) {
+            states[i].undo(marks[i]);
+            marks[i] = states[i].mark();
+        }
+    }
+}
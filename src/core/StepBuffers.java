@@ -0,0 +1,82 @@
+package core;
+
+import objects.GameObject;
+import utils.BitBoard;
+import utils.Vector2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Scratch buffers used by ForwardModel.next(), so that rolling a model forward doesn't allocate once the buffers
+ * have grown to their working size. Their contents only matter during a call to next(), so models stepped one
+ * after the other on the same thread can share them (see StateBatch), which keeps a single set of buffers in cache.
+ */
+class StepBuffers {
+
+    // Positions occupied by flames during a tick.
+    private BitBoard flameOccupancy;
+
+    // One flag per bomb.
+    private boolean[] bombFlags;
+
+    // First bomb at each tile, and next bomb at the same tile as each bomb (see ForwardModel.indexBombsByTile()).
+    int[] bombAtTile, nextBombAtTile;
+
+    // Bombs to check in this pass and in the next one of the explosions, one bit per bomb.
+    long[] chainThisPass, chainNextPass;
+
+    final ArrayList<GameObject> deadAgents = new ArrayList<>();
+    final Vector2d kickVelocity = new Vector2d();
+
+    /**
+     * @return an empty mask for the flames of a board of the given size.
+     */
+    BitBoard flameOccupancy(int size) {
+        if (flameOccupancy == null || flameOccupancy.getSize() != size) {
+            flameOccupancy = new BitBoard(size);
+        } else {
+            flameOccupancy.clear();
+        }
+        return flameOccupancy;
+    }
+
+    /**
+     * @return flags for the given number of bombs, all set to false.
+     */
+    boolean[] bombFlags(int nBombs) {
+        if (bombFlags == null || bombFlags.length < nBombs) {
+            bombFlags = new boolean[Math.max(nBombs, 16)];
+        } else {
+            Arrays.fill(bombFlags, 0, nBombs, false);
+        }
+        return bombFlags;
+    }
+
+    /**
+     * Makes room in the bomb index for a board with the given number of tiles and the given number of bombs. The
+     * first bomb of all tiles is set to -1 (none).
+     */
+    void clearBombIndex(int nTiles, int nBombs) {
+        if (bombAtTile == null || bombAtTile.length < nTiles) {
+            bombAtTile = new int[nTiles];
+        }
+        Arrays.fill(bombAtTile, 0, nTiles, -1);
+        if (nextBombAtTile == null || nextBombAtTile.length < nBombs) {
+            nextBombAtTile = new int[Math.max(nBombs, 16)];
+        }
+    }
+
+    /**
+     * Makes room in the explosion chains for the given number of 64-bit words, all cleared.
+     */
+    void clearChains(int nWords) {
+        if (chainThisPass == null || chainThisPass.length < nWords) {
+            chainThisPass = new long[Math.max(nWords, 1)];
+            chainNextPass = new long[Math.max(nWords, 1)];
+        } else {
+            Arrays.fill(chainThisPass, 0, nWords, 0L);
+            Arrays.fill(chainNextPass, 0, nWords, 0L);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package core;
+
+import players.Player;
+import players.optimisers.ParameterSet;
+import players.optimisers.ParameterizedPlayer;
+import utils.Types;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays all repetitions of a set of level seeds with the same players, sharing the games among a pool of workers.
+ * Each worker plays on its own Game, with its own copies of the players (see Player.copy()). Games are numbered
+ * seed after seed, and the players of game k are reset with the seed playerSeed + k, so results don't depend on
+ * the number of workers, nor on which worker plays each game.
+ *
+ * With a results file (see setResultsFile()), the results of each game are appended to the file as soon as it ends.
+ * Running the same tournament again with that file skips the games already in it, and counts their results. Each line
+ * starts with the players and rules of the tournament that played it, so that the games of other tournaments sharing
+ * the file are not counted.
+ */
+public class Tournament {
+
+    // Game played by the first worker. Its mode, id, config and players are used by the other workers too.
+    private final Game game;
+    private final long[] seeds;
+    private final int repetitions;
+    private final int nWorkers;
+    private final long playerSeed;
+
+    // Next game to be played, and results of the games played, per player.
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final AtomicIntegerArray winCount, tieCount, lossCount, overtimeCount;
+
+    // Games and ticks played in the last run, and its wall-clock time, for throughput.
+    private final AtomicInteger playedGames = new AtomicInteger();
+    private final AtomicLong totalTicks = new AtomicLong();
+    private long runNanos;
+
+    // File the results of each game are appended to, if any, players and rules of this tournament that its lines
+    // start with, and games of this tournament found in it, by seed and repetition.
+    private File resultsFile;
+    private Writer resultsWriter;
+    private String runKey;
+    private final Map<String, Integer> resumedGames = new HashMap<>();
+
+    // If a line is printed at the end of each game.
+    private boolean printGames = true;
+
+    /**
+     * Creates a tournament.
+     *
+     * @param game        game to play, with its players already set.
+     * @param seeds       level generation seeds.
+     * @param repetitions number of games played with each seed.
+     * @param nWorkers    number of games played at the same time.
+     * @param playerSeed  seed of the players in the first game.
+     */
+    public Tournament(Game game, long[] seeds, int repetitions, int nWorkers, long playerSeed) {
+        this.game = game;
+        this.seeds = seeds;
+        this.repetitions = repetitions;
+        this.playerSeed = playerSeed;
+        this.nWorkers = Math.max(1, nWorkers);
+
+        int numPlayers = game.getPlayers().size();
+        winCount = new AtomicIntegerArray(numPlayers);
+        tieCount = new AtomicIntegerArray(numPlayers);
+        lossCount = new AtomicIntegerArray(numPlayers);
+        overtimeCount = new AtomicIntegerArray(numPlayers);
+    }
+
+    /**
+     * @return total number of games of the tournament.
+     */
+    public int totalGames() {
+        return seeds.length * repetitions;
+    }
+
+    /**
+     * Plays all the games of the tournament, and prints a line with the results of each game as it ends.
+     *
+     * @param separateThreads if separate threads should be used for the agents or not.
+     */
+    public void run(boolean separateThreads) {
+        long start = System.nanoTime();
+        try {
+            if (resultsFile != null) {
+                boolean partialLine = endsWithPartialLine(resultsFile);
+                resultsWriter = new BufferedWriter(new FileWriter(resultsFile, true));
+                if (partialLine)
+                    resultsWriter.write(System.lineSeparator());
+            }
+            runWorkers(separateThreads);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            runNanos = System.nanoTime() - start;
+            closeResultsFile();
+        }
+    }
+
+    /**
+     * Sets a file to keep the results of the tournament in, so that it can be resumed if it is stopped. Games already
+     * in the file (by seed and repetition) are not played again, and their results are counted, if they were played
+     * with the same players, game mode, vision range and game config, and are part of this tournament. The results of
+     * the games played are appended to the file, one line per game, as they end.
+     *
+     * @param path path of the file, created if it doesn't exist.
+     * @throws IOException if the file exists and can't be read.
+     */
+    public void setResultsFile(String path) throws IOException {
+        resultsFile = new File(path);
+        runKey = runKey();
+        if (!resultsFile.exists())
+            return;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(resultsFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                resumeGame(line);
+            }
+        }
+    }
+
+    /**
+     * Counts the results of a game read from the results file. Lines that can't be parsed (e.g., the last one, if
+     * the process was killed while writing it) are ignored, and their games played again. So are lines of other
+     * tournaments, and games beyond the seeds and repetitions of this one.
+     */
+    private void resumeGame(String line) {
+        String[] fields = line.split(",");
+        int numPlayers = winCount.length();
+        if (fields.length != 3 + numPlayers * 2 || !fields[0].equals(runKey))
+            return;
+
+        Types.RESULT[] results = new Types.RESULT[numPlayers];
+        int[] overtimes = new int[numPlayers];
+        long seed;
+        int rep;
+        try {
+            seed = Long.parseLong(fields[1].trim());
+            rep = Integer.parseInt(fields[2].trim());
+            for (int i = 0; i < numPlayers; i++) {
+                results[i] = Types.RESULT.valueOf(fields[3 + i].trim());
+                overtimes[i] = Integer.parseInt(fields[3 + numPlayers + i].trim());
+            }
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        String key = gameKey(seed, rep);
+        if (resumedGames.getOrDefault(key, 0) >= gamesInRun(seed, rep))
+            return;
+        resumedGames.merge(key, 1, Integer::sum);
+        countResults(results, overtimes);
+    }
+
+    /**
+     * @return number of games of this tournament with the given seed and repetition (more than 1 if the seed is
+     * repeated in the list of seeds).
+     */
+    private int gamesInRun(long seed, int rep) {
+        if (rep < 0 || rep >= repetitions)
+            return 0;
+        int n = 0;
+        for (long s : seeds) {
+            if (s == seed)
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * @return the players (with their parameters), game mode, vision range and rules of this tournament, as the
+     * first field of the lines of the results file.
+     */
+    private String runKey() {
+        StringBuilder sb = new StringBuilder().append(game.getGameMode()).append(" vr=").append(Types.DEFAULT_VISION_RANGE);
+        for (Player p : game.getPlayers()) {
+            sb.append(' ').append(p.getClass().getSimpleName());
+            ParameterSet params = p instanceof ParameterizedPlayer ? ((ParameterizedPlayer) p).getParameters() : null;
+            if (params != null) {
+                sb.append('(');
+                for (String name : params.getParameters())
+                    sb.append(name).append('=').append(params.getParameterValue(name)).append(' ');
+                sb.setCharAt(sb.length() - 1, ')');
+            }
+        }
+        sb.append(' ').append(game.getConfig().rulesKey());
+        // Fields are separated by commas
+        return sb.toString().replace(',', ';');
+    }
+
+    /**
+     * @return true if a game with this seed and repetition was read from the results file, and not skipped yet.
+     */
+    private synchronized boolean skipResumed(long seed, int rep) {
+        String key = gameKey(seed, rep);
+        Integer remaining = resumedGames.get(key);
+        if (remaining == null)
+            return false;
+        if (remaining == 1)
+            resumedGames.remove(key);
+        else
+            resumedGames.put(key, remaining - 1);
+        return true;
+    }
+
+    private static String gameKey(long seed, int rep) {
+        return seed + "_" + rep;
+    }
+
+    /**
+     * Appends the results of a game to the results file, and writes them through, so that they are kept if the
+     * process is killed.
+     */
+    private synchronized void saveResults(long seed, int rep, Types.RESULT[] results, int[] overtimes) {
+        if (resultsWriter == null)
+            return;
+
+        StringBuilder sb = new StringBuilder().append(runKey).append(',').append(seed).append(',').append(rep);
+        for (Types.RESULT r : results)
+            sb.append(',').append(r.name());
+        for (int o : overtimes)
+            sb.append(',').append(o);
+        try {
+            resultsWriter.write(sb.append(System.lineSeparator()).toString());
+            resultsWriter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return true if the file doesn't end with a line break, because the process was killed while writing it.
+     */
+    private static boolean endsWithPartialLine(File file) throws IOException {
+        if (!file.exists() || file.length() == 0)
+            return false;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() != '\n';
+        }
+    }
+
+    private synchronized void closeResultsFile() {
+        if (resultsWriter == null)
+            return;
+        try {
+            resultsWriter.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        resultsWriter = null;
+    }
+
+    private void runWorkers(boolean separateThreads) {
+        if (nWorkers == 1) {
+            play(game, separateThreads);
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(nWorkers);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < nWorkers; w++) {
+                Game workerGame = w == 0 ? game : workerGame();
+                workers.add(pool.submit(() -> play(workerGame, separateThreads)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return a game like the one of the tournament, with copies of its players.
+     */
+    private Game workerGame() {
+        Game copy = new Game(seeds[0], game.getGameMode(), game.getGameIdStr(), game.getConfig());
+        ArrayList<Player> players = new ArrayList<>();
+        for (Player p : game.getPlayers()) {
+            players.add(p.copy());
+        }
+        copy.setPlayers(players);
+        return copy;
+    }
+
+    /**
+     * Plays games on the given game until all games of the tournament have been taken.
+     */
+    private void play(Game g, boolean separateThreads) {
+        int totalNgames = totalGames();
+        g.setPrintResults(false);
+
+        int k;
+        while ((k = nextGame.getAndIncrement()) < totalNgames) {
+            long seed = seeds[k / repetitions];
+            int rep = k % repetitions;
+            long gamePlayerSeed = playerSeed + k;
+            if (skipResumed(seed, rep))
+                continue;
+
+            g.reset(seed);
+            g.setRepetition(rep);
+
+            // Set random seed for players and reset them
+            ArrayList<Player> players = g.getPlayers();
+            for (int p = 0; p < g.nPlayers(); p++) {
+                players.get(p).reset(gamePlayerSeed, p);
+            }
+            int[] overtimesBefore = g.getPlayerOvertimes().clone();
+            Types.RESULT[] results = g.run(separateThreads);
+
+            int[] overtimes = g.getPlayerOvertimes().clone();
+            for (int j = 0; j < overtimes.length; ++j)
+                overtimes[j] -= overtimesBefore[j];
+            countResults(results, overtimes);
+            saveResults(seed, rep, results, overtimes);
+            playedGames.incrementAndGet();
+            totalTicks.addAndGet(g.getTick());
+
+            // One print per game, so that lines of games ending at the same time don't get mixed
+            if (printGames)
+                System.out.println(gamePlayerSeed + ", " + seed + ", " + k + "/" + totalNgames + ", "
+                        + g.resultsToString(results));
+        }
+        g.setPrintResults(true);
+    }
+
+    /**
+     * Adds the results of a game, and the overtimes of its players, to those of the tournament.
+     */
+    private void countResults(Types.RESULT[] results, int[] overtimes) {
+        for (int pIdx = 0; pIdx < results.length; pIdx++) {
+            switch (results[pIdx]) {
+                case WIN:
+                    winCount.incrementAndGet(pIdx);
+                    break;
+                case TIE:
+                    tieCount.incrementAndGet(pIdx);
+                    break;
+                case LOSS:
+                    lossCount.incrementAndGet(pIdx);
+                    break;
+            }
+            overtimeCount.addAndGet(pIdx, overtimes[pIdx]);
+        }
+    }
+
+    /**
+     * Sets if a line with the results of each game is printed as it ends. Printing can be turned off when playing
+     * many games, to keep console output from slowing them down.
+     *
+     * @param printGames true to print the results of each game (default).
+     */
+    public void setPrintGames(boolean printGames) {
+        this.printGames = printGames;
+    }
+
+    /**
+     * @return number of games played in the last run, not counting those resumed from the results file.
+     */
+    public int getPlayedGames() {
+        return playedGames.get();
+    }
+
+    /**
+     * @return total number of ticks played in the games of the last run.
+     */
+    public long getTotalTicks() {
+        return totalTicks.get();
+    }
+
+    /**
+     * Prints the number of games and ticks played per second of wall-clock time in the last run.
+     */
+    public void printThroughput() {
+        double seconds = runNanos / 1e9;
+        System.out.println(String.format("%d games, %d ticks in %.3f s: %.2f games/s, %.1f ticks/s",
+                getPlayedGames(), getTotalTicks(), seconds, getPlayedGames() / seconds, getTotalTicks() / seconds));
+    }
+
+    /**
+     * Prints the percentage of wins, ties and losses, and the average overtimes, of each player.
+     */
+    public void printResults() {
+        int numPlayers = game.getPlayers().size();
+        int totalNgames = totalGames();
+
+        System.out.println("N \tWin \tTie \tLoss \tPlayer (overtime average)");
+        for (int pIdx = 0; pIdx < numPlayers; pIdx++) {
+            String player = game.getPlayers().get(pIdx).getClass().toString().replaceFirst("class ", "");
+
+            double winPerc = winCount.get(pIdx) * 100.0 / (double)totalNgames;
+            double tiePerc = tieCount.get(pIdx) * 100.0 / (double)totalNgames;
+            double lossPerc = lossCount.get(pIdx) * 100.0 / (double)totalNgames;
+            double overtimesAvg = overtimeCount.get(pIdx) / (double)totalNgames;
+
+            System.out.println(totalNgames + "\t" + winPerc + "%\t" + tiePerc + "%\t" + lossPerc + "%\t" + player + " (" + overtimesAvg + ")" );
+        }
+    }
+}
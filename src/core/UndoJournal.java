@@ -0,0 +1,97 @@
+package core;
+
+import objects.GameObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Changes made to a forward model, so that they can be undone (see ForwardModel.pushUndoFrame()). Writes to the
+ * board and power-ups are logged one by one. Bombs, flames and avatars change on almost every tick, so they are saved
+ * whole when a frame is pushed. Frames and their buffers are reused, so that a search going up and down the same
+ * depths doesn't allocate once they have grown to their working size.
+ */
+class UndoJournal {
+
+    // Kinds of logged writes.
+    static final int BOARD = 0;
+    static final int POWERUP = 1;
+
+    /**
+     * State of the model when a frame was pushed.
+     */
+    static class Frame {
+        int nWrites;
+        int gsTick;
+        final BombList bombs = new BombList();
+        final FlameList flames = new FlameList();
+        int[] avatars;
+        GameObject[] aliveAgents = new GameObject[0];
+        int nAlive;
+    }
+
+    // Logged writes, 4 ints each: kind, x, y and previous type key (-1 if none).
+    private int[] writes = new int[256];
+    private int nWrites;
+
+    // Frames pushed, the first 'depth' ones are in use.
+    private final ArrayList<Frame> frames = new ArrayList<>();
+    private int depth;
+
+    // True while undoing, so that the writes made to undo aren't logged.
+    private boolean undoing;
+
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * @return true if writes must be logged.
+     */
+    boolean isRecording() {
+        return depth > 0 && !undoing;
+    }
+
+    void log(int kind, int x, int y, int previousKey) {
+        if (nWrites * 4 == writes.length) {
+            writes = Arrays.copyOf(writes, writes.length * 2);
+        }
+        int i = nWrites++ * 4;
+        writes[i] = kind;
+        writes[i + 1] = x;
+        writes[i + 2] = y;
+        writes[i + 3] = previousKey;
+    }
+
+    /**
+     * @return a new frame on top of the others, to be filled in by the model.
+     */
+    Frame push() {
+        if (depth == frames.size()) {
+            frames.add(new Frame());
+        }
+        Frame f = frames.get(depth++);
+        f.nWrites = nWrites;
+        return f;
+    }
+
+    /**
+     * @return the frame on top, which is removed. Its writes must be undone with undoWrites() before pushing again.
+     */
+    Frame pop() {
+        return frames.get(--depth);
+    }
+
+    /**
+     * Undoes the writes logged after the given frame was pushed, newest first.
+     */
+    void undoWrites(Frame f, ForwardModel model) {
+        undoing = true;
+        for (int w = nWrites - 1; w >= f.nWrites; w--) {
+            int i = w * 4;
+            model.undoWrite(writes[i], writes[i + 1], writes[i + 2], writes[i + 3]);
+        }
+        nWrites = f.nWrites;
+        undoing = false;
+    }
+}
@@ -0,0 +1,215 @@
+package core;
+
+import core.gameConfig.GameConfig;
+import objects.Avatar;
+import objects.GameObject;
+import utils.Types;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A set of K games without players, stepped together from outside the framework, e.g. to train agents. The actions
+ * of all players of all games come in one flat array, and the observations (see ObservationCodec), rewards and
+ * ends of all games go out in flat arrays, which are reused from step to step:
+ * <ul>
+ *     <li>actions[4 * k + i]: key of the action of player i in game k (see Types.ACTIONS).</li>
+ *     <li>getObservations()[(4 * k + i) * getObservationLength() ...]: observation of player i in game k.</li>
+ *     <li>getRewards()[4 * k + i]: reward of player i in game k, 0 until the game ends (see IGameConfig.getRewards()).</li>
+ *     <li>getDones()[k]: 1 if game k ended in the last step, 0 otherwise.</li>
+ * </ul>
+ * A game that ends is reset straight away to a new level, so the observations after a step that ended a game are
+ * the first observations of the next one. Game j of env k is played on the level seed + k + j * K, so the levels
+ * played don't depend on the number of threads.
+ *
+ * Games are stepped with GameState.next() directly: there are no negotiation phases, and messages are not sent.
+ * Games are split among a pool of threads, each one stepping its share of the games one after the other.
+ */
+public class VecEnv implements AutoCloseable {
+
+    private static final Types.ACTIONS[] ACTIONS = Types.ACTIONS.values();
+
+    private final Game[] games;
+    private final long seed;
+    private final int[] episodes;
+    private final int obsLength;
+
+    // Output buffers, overwritten by each step.
+    private final int[] observations;
+    private final float[] rewards;
+    private final byte[] dones;
+
+    // Ring buffer the observations and actions of each step are written to, if any, and stream id of the first game.
+    private ObservationRing observationRing;
+    private int ringStream;
+
+    // Threads stepping the games, null if the games are stepped in the caller's thread.
+    private final ExecutorService pool;
+    private final int nThreads;
+
+    /**
+     * Creates the games, and writes their first observations.
+     *
+     * @param nEnvs    number of games, K.
+     * @param seed     level seed of the first game of the first env.
+     * @param gameMode mode of the games.
+     * @param config   rules and settings of the games.
+     * @param nThreads number of threads stepping the games.
+     */
+    public VecEnv(int nEnvs, long seed, Types.GAME_MODE gameMode, GameConfig config, int nThreads) {
+        this.games = new Game[nEnvs];
+        this.seed = seed;
+        this.episodes = new int[nEnvs];
+        this.obsLength = ObservationCodec.length(config.getBoardSize());
+        this.observations = new int[nEnvs * Types.NUM_PLAYERS * obsLength];
+        this.rewards = new float[nEnvs * Types.NUM_PLAYERS];
+        this.dones = new byte[nEnvs];
+        this.nThreads = Math.max(1, Math.min(nThreads, nEnvs));
+        this.pool = this.nThreads > 1 ? Executors.newFixedThreadPool(this.nThreads, r -> {
+            Thread t = new Thread(r, "vecenv");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+
+        for (int k = 0; k < nEnvs; k++) {
+            games[k] = new Game(seed + k, gameMode, "vecenv", config);
+            encode(k);
+        }
+    }
+
+    /**
+     * @return number of games, K.
+     */
+    public int size() {
+        return games.length;
+    }
+
+    /**
+     * @return number of values in the observation of one player (see ObservationCodec.length()).
+     */
+    public int getObservationLength() {
+        return obsLength;
+    }
+
+    /**
+     * @param k index of the game.
+     * @return game k, as it is now.
+     */
+    public Game getGame(int k) {
+        return games[k];
+    }
+
+    public int[] getObservations() {
+        return observations;
+    }
+
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    public byte[] getDones() {
+        return dones;
+    }
+
+    /**
+     * Writes the observations and actions of all games to a ring buffer, in every step, before the games are stepped.
+     *
+     * @param ring        ring buffer to write to, or null to stop writing.
+     * @param firstStream id of game 0 in the records of the ring, game k is firstStream + k.
+     */
+    public void setObservationRing(ObservationRing ring, int firstStream) {
+        this.observationRing = ring;
+        this.ringStream = firstStream;
+    }
+
+    /**
+     * Advances all games by one tick, resetting those that end, and updates the observations, rewards and dones.
+     *
+     * @param actions keys of the actions of all players of all games, 4 * K values.
+     * @throws IllegalArgumentException if there are not 4 * K actions, or one is not a valid action key.
+     */
+    public void step(int[] actions) {
+        if (actions.length != games.length * Types.NUM_PLAYERS)
+            throw new IllegalArgumentException("Expected " + games.length * Types.NUM_PLAYERS + " actions, got "
+                    + actions.length);
+        for (int a : actions) {
+            if (a < 0 || a >= ACTIONS.length)
+                throw new IllegalArgumentException("Invalid action: " + a);
+        }
+
+        if (observationRing != null) {
+            for (int k = 0; k < games.length; k++)
+                observationRing.write(ringStream + k, games[k].getTick(), actions, k * Types.NUM_PLAYERS,
+                        observations, k * Types.NUM_PLAYERS * obsLength);
+        }
+
+        if (pool == null) {
+            step(actions, 0, games.length);
+            return;
+        }
+
+        // Contiguous shares of the games, one per thread
+        List<Future<?>> shares = new ArrayList<>();
+        for (int t = 0; t < nThreads; t++) {
+            int from = games.length * t / nThreads;
+            int to = games.length * (t + 1) / nThreads;
+            shares.add(pool.submit(() -> step(actions, from, to)));
+        }
+        try {
+            for (Future<?> share : shares)
+                share.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void step(int[] actions, int from, int to) {
+        Types.ACTIONS[] gameActions = new Types.ACTIONS[Types.NUM_PLAYERS];
+        for (int k = from; k < to; k++) {
+            Game game = games[k];
+            for (int i = 0; i < Types.NUM_PLAYERS; i++)
+                gameActions[i] = ACTIONS[actions[k * Types.NUM_PLAYERS + i]];
+            game.getGameState().next(gameActions);
+
+            int r = k * Types.NUM_PLAYERS;
+            if (game.isEnded()) {
+                GameObject[] agents = game.getGameState().getAgents();
+                Types.RESULT[] results = new Types.RESULT[Types.NUM_PLAYERS];
+                for (int i = 0; i < Types.NUM_PLAYERS; i++)
+                    results[i] = ((Avatar) agents[i]).getWinner();
+                double[] finalRewards = game.getConfig().getTeamConfig().getRewards(game.getTick(), results);
+                for (int i = 0; i < Types.NUM_PLAYERS; i++)
+                    rewards[r + i] = (float) finalRewards[i];
+                dones[k] = 1;
+                game.reset(seed + k + (long) (++episodes[k]) * games.length);
+            } else {
+                Arrays.fill(rewards, r, r + Types.NUM_PLAYERS, 0f);
+                dones[k] = 0;
+            }
+            encode(k);
+        }
+    }
+
+    private void encode(int k) {
+        GameState gs = games[k].getGameState();
+        int offset = k * Types.NUM_PLAYERS * obsLength;
+        for (int i = 0; i < Types.NUM_PLAYERS; i++)
+            offset = ObservationCodec.encode(gs, i, observations, offset);
+    }
+
+    /**
+     * Stops the threads stepping the games.
+     */
+    @Override
+    public void close() {
+        if (pool != null)
+            pool.shutdownNow();
+    }
+}
@@ -0,0 +1,406 @@
+package core.gameConfig;
+
+import core.Game;
+import utils.Types;
+
+/**
+ * Rules and settings of a game: duration, board generation, board collapse, negotiation and logging. A config is
+ * immutable, and is given to a Game, which passes it on to its game states and forward models, so that games with
+ * different rules can run at the same time. Create variations of a config with its builder:
+ *
+ *     GameConfig config = GameConfig.defaults().toBuilder().collapseStart(199).build();
+ *
+ * The static settings in Types (MAX_GAME_TICKS, COLLAPSE_*, NEGOTIATION*, ...) and Game (LOG_GAME, LOG_GAME_JSON)
+ * are the defaults used by games created without a config.
+ */
+public final class GameConfig {
+
+    private final int maxGameTicks;
+    private final int boardSize;
+    private final int boardNumRigid;
+    private final int boardNumWood;
+    private final int boardNumItems;
+    private final int maxInaccessibleTiles;
+    private final int cornerDistance;
+    private final int breathingSpace;
+
+    private final boolean collapseBoard;
+    private final int collapseStart;
+    private final int collapseStages;
+    private final int collapseStep;
+
+    private final boolean negotiation;
+    private final int negotiationPhaseOneLength;
+    private final int negotiationPhaseTwoLength;
+    private final int negotiationProposalLimit;
+    private final int stayApartDistance;
+    private final int noBombDistance;
+
+    private final boolean visuals;
+    private final boolean loggingStatistics;
+    private final boolean logGame;
+    private final boolean logGameJson;
+    private final boolean asyncDecisions;
+    private final boolean virtualAgentThreads;
+
+    // Teams and victory conditions, and if they were given (rather than the default for the number of ticks).
+    private final IGameConfig teamConfig;
+    private final boolean teamConfigGiven;
+
+    private GameConfig(Builder b) {
+        maxGameTicks = b.maxGameTicks;
+        boardSize = b.boardSize;
+        boardNumRigid = b.boardNumRigid;
+        boardNumWood = b.boardNumWood;
+        boardNumItems = b.boardNumItems;
+        maxInaccessibleTiles = b.maxInaccessibleTiles;
+        cornerDistance = b.cornerDistance;
+        breathingSpace = b.breathingSpace;
+        collapseBoard = b.collapseBoard;
+        collapseStart = b.collapseStart;
+        collapseStages = b.collapseStages;
+        collapseStep = (maxGameTicks - collapseStart) / collapseStages;
+        negotiation = b.negotiation;
+        negotiationPhaseOneLength = b.negotiationPhaseOneLength;
+        negotiationPhaseTwoLength = b.negotiationPhaseTwoLength;
+        negotiationProposalLimit = b.negotiationProposalLimit;
+        stayApartDistance = b.stayApartDistance;
+        noBombDistance = b.noBombDistance;
+        visuals = b.visuals;
+        loggingStatistics = b.loggingStatistics;
+        logGame = b.logGame;
+        logGameJson = b.logGameJson;
+        asyncDecisions = b.asyncDecisions;
+        virtualAgentThreads = b.virtualAgentThreads;
+        teamConfigGiven = b.teamConfig != null;
+        teamConfig = teamConfigGiven ? b.teamConfig : new OriginalGameConfig(maxGameTicks);
+    }
+
+    /**
+     * @return a config with the current values of the static settings in Types and Game.
+     */
+    public static GameConfig defaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * @return a builder initialised with the settings of this config.
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    public int getMaxGameTicks() {
+        return maxGameTicks;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public int getBoardNumRigid() {
+        return boardNumRigid;
+    }
+
+    public int getBoardNumWood() {
+        return boardNumWood;
+    }
+
+    public int getBoardNumItems() {
+        return boardNumItems;
+    }
+
+    public int getMaxInaccessibleTiles() {
+        return maxInaccessibleTiles;
+    }
+
+    public int getCornerDistance() {
+        return cornerDistance;
+    }
+
+    public int getBreathingSpace() {
+        return breathingSpace;
+    }
+
+    public boolean isCollapseBoard() {
+        return collapseBoard;
+    }
+
+    public int getCollapseStart() {
+        return collapseStart;
+    }
+
+    public int getCollapseStages() {
+        return collapseStages;
+    }
+
+    /**
+     * @return ticks between the collapse of two rings of the board, so that the last one collapses by the end of
+     * the game.
+     */
+    public int getCollapseStep() {
+        return collapseStep;
+    }
+
+    public boolean isNegotiation() {
+        return negotiation;
+    }
+
+    public int getNegotiationPhaseOneLength() {
+        return negotiationPhaseOneLength;
+    }
+
+    public int getNegotiationPhaseTwoLength() {
+        return negotiationPhaseTwoLength;
+    }
+
+    public int getNegotiationProposalLimit() {
+        return negotiationProposalLimit;
+    }
+
+    public int getStayApartDistance() {
+        return stayApartDistance;
+    }
+
+    public int getNoBombDistance() {
+        return noBombDistance;
+    }
+
+    public boolean isVisuals() {
+        return visuals;
+    }
+
+    public boolean isLoggingStatistics() {
+        return loggingStatistics;
+    }
+
+    public boolean isLogGame() {
+        return logGame;
+    }
+
+    public boolean isLogGameJson() {
+        return logGameJson;
+    }
+
+    /**
+     * @return true if agents decide in separate threads with a hard deadline: when the decision time limit is over
+     * (and decision time is checked), agents are cancelled and the game goes on with the action they return right
+     * away, or ACTION_STOP.
+     */
+    public boolean isAsyncDecisions() {
+        return asyncDecisions;
+    }
+
+    /**
+     * @return true if agents running in separate threads should use virtual threads, when the JVM supports them.
+     */
+    public boolean isVirtualAgentThreads() {
+        return virtualAgentThreads;
+    }
+
+    public IGameConfig getTeamConfig() {
+        return teamConfig;
+    }
+
+    /**
+     * @return the settings of this config that change how games are played (not visuals nor logging), as text.
+     * Configs with the same rules key play the same games.
+     */
+    public String rulesKey() {
+        return "ticks=" + maxGameTicks
+                + " board=" + boardSize + "/" + boardNumRigid + "/" + boardNumWood + "/" + boardNumItems
+                + "/" + maxInaccessibleTiles + "/" + cornerDistance + "/" + breathingSpace
+                + " collapse=" + (collapseBoard ? collapseStart + "/" + collapseStages : "off")
+                + " negotiation=" + (negotiation ? negotiationPhaseOneLength + "/" + negotiationPhaseTwoLength
+                        + "/" + negotiationProposalLimit + "/" + stayApartDistance + "/" + noBombDistance : "off")
+                + " async=" + asyncDecisions
+                + " teams=" + teamConfig.getEnvironmentName();
+    }
+
+    /**
+     * Builder of game configs, initialised with the static settings in Types and Game.
+     */
+    public static class Builder {
+        private int maxGameTicks = Types.MAX_GAME_TICKS;
+        private int boardSize = Types.BOARD_SIZE;
+        private int boardNumRigid = Types.BOARD_NUM_RIGID;
+        private int boardNumWood = Types.BOARD_NUM_WOOD;
+        private int boardNumItems = Types.BOARD_NUM_ITEMS;
+        private int maxInaccessibleTiles = Types.MAX_INACCESIBLE_TILES;
+        private int cornerDistance = Types.CORNER_DISTANCE;
+        private int breathingSpace = Types.BREATHING_SPACE;
+        private boolean collapseBoard = Types.COLLAPSE_BOARD;
+        private int collapseStart = Types.COLLAPSE_START;
+        private int collapseStages = Types.COLLAPSE_STAGES;
+        private boolean negotiation = Types.NEGOTIATION;
+        private int negotiationPhaseOneLength = Types.NEGOTIATION_PHASE_ONE_LENGTH;
+        private int negotiationPhaseTwoLength = Types.NEGOTIATION_PHASE_TWO_LENGTH;
+        private int negotiationProposalLimit = Types.NEGOTIATION_PROPOSAL_LIMIT;
+        private int stayApartDistance = Types.STAY_APART_DISTANCE;
+        private int noBombDistance = Types.NO_BOMB_DISTANCE;
+        private boolean visuals = Types.VISUALS;
+        private boolean loggingStatistics = Types.LOGGING_STATISTICS;
+        private boolean logGame = Game.LOG_GAME;
+        private boolean logGameJson = Game.LOG_GAME_JSON;
+        private boolean asyncDecisions = Types.ASYNC_DECISIONS;
+        private boolean virtualAgentThreads = Types.VIRTUAL_AGENT_THREADS;
+        private IGameConfig teamConfig;
+
+        public Builder() {}
+
+        private Builder(GameConfig c) {
+            maxGameTicks = c.maxGameTicks;
+            boardSize = c.boardSize;
+            boardNumRigid = c.boardNumRigid;
+            boardNumWood = c.boardNumWood;
+            boardNumItems = c.boardNumItems;
+            maxInaccessibleTiles = c.maxInaccessibleTiles;
+            cornerDistance = c.cornerDistance;
+            breathingSpace = c.breathingSpace;
+            collapseBoard = c.collapseBoard;
+            collapseStart = c.collapseStart;
+            collapseStages = c.collapseStages;
+            negotiation = c.negotiation;
+            negotiationPhaseOneLength = c.negotiationPhaseOneLength;
+            negotiationPhaseTwoLength = c.negotiationPhaseTwoLength;
+            negotiationProposalLimit = c.negotiationProposalLimit;
+            stayApartDistance = c.stayApartDistance;
+            noBombDistance = c.noBombDistance;
+            visuals = c.visuals;
+            loggingStatistics = c.loggingStatistics;
+            logGame = c.logGame;
+            logGameJson = c.logGameJson;
+            asyncDecisions = c.asyncDecisions;
+            virtualAgentThreads = c.virtualAgentThreads;
+            // The default team config depends on the number of ticks, keep it only if it was given
+            teamConfig = c.teamConfigGiven ? c.teamConfig : null;
+        }
+
+        public Builder maxGameTicks(int maxGameTicks) {
+            this.maxGameTicks = maxGameTicks;
+            return this;
+        }
+
+        public Builder boardSize(int boardSize) {
+            this.boardSize = boardSize;
+            return this;
+        }
+
+        public Builder boardNumRigid(int boardNumRigid) {
+            this.boardNumRigid = boardNumRigid;
+            return this;
+        }
+
+        public Builder boardNumWood(int boardNumWood) {
+            this.boardNumWood = boardNumWood;
+            return this;
+        }
+
+        public Builder boardNumItems(int boardNumItems) {
+            this.boardNumItems = boardNumItems;
+            return this;
+        }
+
+        public Builder maxInaccessibleTiles(int maxInaccessibleTiles) {
+            this.maxInaccessibleTiles = maxInaccessibleTiles;
+            return this;
+        }
+
+        public Builder cornerDistance(int cornerDistance) {
+            this.cornerDistance = cornerDistance;
+            return this;
+        }
+
+        public Builder breathingSpace(int breathingSpace) {
+            this.breathingSpace = breathingSpace;
+            return this;
+        }
+
+        public Builder collapseBoard(boolean collapseBoard) {
+            this.collapseBoard = collapseBoard;
+            return this;
+        }
+
+        public Builder collapseStart(int collapseStart) {
+            this.collapseStart = collapseStart;
+            return this;
+        }
+
+        public Builder collapseStages(int collapseStages) {
+            this.collapseStages = collapseStages;
+            return this;
+        }
+
+        public Builder negotiation(boolean negotiation) {
+            this.negotiation = negotiation;
+            return this;
+        }
+
+        public Builder negotiationPhaseOneLength(int negotiationPhaseOneLength) {
+            this.negotiationPhaseOneLength = negotiationPhaseOneLength;
+            return this;
+        }
+
+        public Builder negotiationPhaseTwoLength(int negotiationPhaseTwoLength) {
+            this.negotiationPhaseTwoLength = negotiationPhaseTwoLength;
+            return this;
+        }
+
+        public Builder negotiationProposalLimit(int negotiationProposalLimit) {
+            this.negotiationProposalLimit = negotiationProposalLimit;
+            return this;
+        }
+
+        public Builder stayApartDistance(int stayApartDistance) {
+            this.stayApartDistance = stayApartDistance;
+            return this;
+        }
+
+        public Builder noBombDistance(int noBombDistance) {
+            this.noBombDistance = noBombDistance;
+            return this;
+        }
+
+        public Builder visuals(boolean visuals) {
+            this.visuals = visuals;
+            return this;
+        }
+
+        public Builder loggingStatistics(boolean loggingStatistics) {
+            this.loggingStatistics = loggingStatistics;
+            return this;
+        }
+
+        public Builder logGame(boolean logGame) {
+            this.logGame = logGame;
+            return this;
+        }
+
+        public Builder logGameJson(boolean logGameJson) {
+            this.logGameJson = logGameJson;
+            return this;
+        }
+
+        public Builder asyncDecisions(boolean asyncDecisions) {
+            this.asyncDecisions = asyncDecisions;
+            return this;
+        }
+
+        public Builder virtualAgentThreads(boolean virtualAgentThreads) {
+            this.virtualAgentThreads = virtualAgentThreads;
+            return this;
+        }
+
+        /**
+         * @param teamConfig teams and victory conditions. If not given, OriginalGameConfig is used.
+         */
+        public Builder teamConfig(IGameConfig teamConfig) {
+            this.teamConfig = teamConfig;
+            return this;
+        }
+
+        public GameConfig build() {
+            return new GameConfig(this);
+        }
+    }
+}
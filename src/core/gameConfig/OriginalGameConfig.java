@@ -8,10 +8,25 @@ import utils.Utils;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import static utils.Types.MAX_GAME_TICKS;
-
 public class OriginalGameConfig implements IGameConfig {
 
+    // Duration of the game, when it times out.
+    private final int maxGameTicks;
+
+    /**
+     * Creates a config for games lasting Types.MAX_GAME_TICKS.
+     */
+    public OriginalGameConfig() {
+        this(Types.MAX_GAME_TICKS);
+    }
+
+    /**
+     * @param maxGameTicks duration of the game.
+     */
+    public OriginalGameConfig(int maxGameTicks) {
+        this.maxGameTicks = maxGameTicks;
+    }
+
     @Override
     public String getEnvironmentName() {
         return "java-pommermam-original";
@@ -205,7 +220,7 @@ public class OriginalGameConfig implements IGameConfig {
     public boolean isEnded(int gameTick, Types.GAME_MODE gameMode, ArrayList<GameObject> aliveAgents) {
 
         //All game modes trigger and end when the the number of game ticks reaches the the max.
-        if (gameTick == MAX_GAME_TICKS) {
+        if (gameTick == maxGameTicks) {
             return true;
         }
 
@@ -240,7 +255,7 @@ public class OriginalGameConfig implements IGameConfig {
         //Fast init.
         Arrays.fill(rewards, -1);
 
-        if (gameTick < MAX_GAME_TICKS) {
+        if (gameTick < maxGameTicks) {
             // The game is not over due to time , then agents get
             // 1 for winning, -1 in all the other cases.
             for (int i = 0; i < results.length; ++i) {
@@ -49,7 +49,7 @@ public class HeuristicsNegotiator implements Negotiator {
 
         int i = 0;
         int madeProposals = 0;
-        while (madeProposals < Types.NEGOTIATION_PROPOSAL_LIMIT && i < heuristics.length) {
+        while (madeProposals < gs.getConfig().getNegotiationProposalLimit() && i < heuristics.length) {
 
             int proposal = orderedIndexes[i] % 3;
             int player = orderedIndexes[i] / 3;
@@ -14,6 +14,7 @@ public class Negotiation {
     private List<Agreement> finalAgreements = Collections.emptyList();
     private MessageManager messageManager = new MessageManager(true);
     private boolean debug = false;
+    private boolean printResults = true;
 
     public MessageManager getMessageManager() {
         return messageManager;
@@ -70,9 +71,18 @@ public class Negotiation {
     public void endPhaseTwo(GameState gs) {
         finalAgreements = messageManager.SecondPhaseEnd();
         //Populate final agreements, with outcome
-        System.out.println("Negotiation results:");
-        for (Agreement a : finalAgreements)
-            System.out.println("\t" + a.toString());
+        if (printResults) {
+            System.out.println("Negotiation results:");
+            for (Agreement a : finalAgreements)
+                System.out.println("\t" + a.toString());
+        }
+    }
+
+    /**
+     * Sets if the final agreements are printed at the end of the negotiation.
+     */
+    public void setPrintResults(boolean printResults) {
+        this.printResults = printResults;
     }
 
     public List<Agreement> getFinalAgreements() {
@@ -89,6 +99,18 @@ public class Negotiation {
     }
 
     public boolean isPermitted(Types.ACTIONS action, Avatar agent, GameObject[] allAgents) {
+        return isPermitted(action, agent, allAgents, Types.STAY_APART_DISTANCE, Types.NO_BOMB_DISTANCE);
+    }
+
+    /**
+     * Checks if an action of an agent is allowed by the final agreements.
+     * @param stayApartDistance - distance agents with a STAY_APART agreement can't move within
+     * @param noBombDistance - distance agents with a NO_BOMB_PLACING agreement can't place bombs within
+     */
+    public boolean isPermitted(Types.ACTIONS action, Avatar agent, GameObject[] allAgents,
+                               int stayApartDistance, int noBombDistance) {
+        if (finalAgreements.isEmpty())
+            return true;  // Nothing agreed, checked on every bomb placed by the forward model
         // First we check for STAY_APART agreements
         // easiest thing to do is move them on board, and then check to see if the agreement is met
         // agent.
@@ -105,11 +127,11 @@ public class Negotiation {
             int manhattanDistance = targetSpace.manhattanDistance(otherAgent.getPosition());
             switch (a.getType()) {
                 case STAY_APART:
-                    if (action.getDirection() != Types.DIRECTIONS.NONE && manhattanDistance <= Types.STAY_APART_DISTANCE)
+                    if (action.getDirection() != Types.DIRECTIONS.NONE && manhattanDistance <= stayApartDistance)
                         return false;
                     break;
                 case NO_BOMB_PLACING:
-                    if (action == Types.ACTIONS.ACTION_BOMB && manhattanDistance <= Types.NO_BOMB_DISTANCE)
+                    if (action == Types.ACTIONS.ACTION_BOMB && manhattanDistance <= noBombDistance)
                         return false;
                     break;
                 case NO_BOMB_KICKING:
@@ -142,6 +164,8 @@ public class Negotiation {
     }
 
     public boolean isKickPermitted(GameObject agent, Vector2d velocity, GameObject[] allAgents) {
+        if (finalAgreements.isEmpty())
+            return true;
         Vector2d normalVelocity = velocity.copy();
         for (Agreement a : finalAgreements) {
             if (a.getType() == Agreement.TYPE.NO_BOMB_KICKING &&
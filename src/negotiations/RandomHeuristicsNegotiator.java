@@ -49,7 +49,7 @@ public class RandomHeuristicsNegotiator implements Negotiator {
 
         int i = 0;
         int madeProposals = 0;
-        while (madeProposals < Types.NEGOTIATION_PROPOSAL_LIMIT && i < heuristics.length) {
+        while (madeProposals < gs.getConfig().getNegotiationProposalLimit() && i < heuristics.length) {
 
             if (heuristics[orderedIndexes[i]] > rnd.nextDouble()) {
                 int proposal = orderedIndexes[i] % 3;
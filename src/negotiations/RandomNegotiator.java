@@ -25,7 +25,7 @@ public class RandomNegotiator implements Negotiator {
      */
     @Override
     public void makeProposals(int playerIndex, GameState gs, MessageManager manager) {
-        for (int i = 0; i < Types.NEGOTIATION_PROPOSAL_LIMIT; i++) {
+        for (int i = 0; i < gs.getConfig().getNegotiationProposalLimit(); i++) {
             int player = rnd.nextInt(3);
             if (playerIndex <= player) player++;
             Agreement.TYPE offerType = types[rnd.nextInt(types.length)];
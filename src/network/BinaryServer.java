@@ -0,0 +1,211 @@
+package network;
+
+import core.GameState;
+import core.ObservationCodec;
+import utils.Types;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TCP endpoint of the agent server, for clients that keep one connection open for a whole game and send binary
+ * observations instead of JSON ones. Each connection serves one agent (see Session). Messages in both directions are
+ * frames of big-endian values: an int with the number of bytes that follow, a byte with the type of the frame, and
+ * its payload:
+ * <pre>
+ *     INIT         client: int id (from 0), int game type, int agent type (as in Run, -1 for MCTS), and optionally
+ *                  int ponder (1 for an MCTS agent that keeps searching between observations, see Session)
+ *                  server: empty, once the agent is ready
+ *     OBSERVATION  client: int game type, int action space, int board size, int[] observation (see ObservationCodec)
+ *                  server: ACTION frame with the int key of the action chosen
+ *     DELTA        client: int game type, int action space, int board size, int n, n times (int index, int value)
+ *                  server: ACTION frame, as for OBSERVATION
+ *     EPISODE_END  client: empty, ends the agent of the connection, which may INIT a new one
+ *                  server: empty
+ *     ERROR        server: UTF-8 message, in reply to a frame that can't be handled
+ * </pre>
+ * A DELTA frame is an observation given as the values that changed since the previous observation of the connection
+ * (index in the observation, and new value); consecutive observations differ in only a few tiles, so deltas are much
+ * smaller than full observations. The connection keeps the last observation, and updates it in place with each
+ * delta. A DELTA needs a full OBSERVATION of the same board size before it, after INIT.
+ */
+public class BinaryServer {
+
+    public static final byte INIT = 1, OBSERVATION = 2, ACTION = 3, EPISODE_END = 4, ERROR = 5, DELTA = 6;
+
+    // Frames larger than this are not accepted (an observation on a 11x11 board takes about 1.5KB)
+    private static final int MAX_FRAME_BYTES = 1 << 20;
+
+    private final ServerSocket serverSocket;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "binary-connection");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * @param port port to listen to.
+     */
+    public BinaryServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port);
+    }
+
+    /**
+     * Starts accepting connections, in a new thread.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::accept, "binary-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * Stops accepting connections, and closes the open ones, which ends their agents.
+     */
+    public void stop() throws IOException {
+        serverSocket.close();
+        // Threads reading from a socket can't be interrupted, closing it is what makes them return
+        for (Socket socket : sockets)
+            socket.close();
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                sockets.add(socket);
+                if (serverSocket.isClosed()) {
+                    // Stopped meanwhile
+                    socket.close();
+                    return;
+                }
+                connections.execute(() -> serve(socket));
+            } catch (SocketException e) {
+                // Server socket closed
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Answers the frames of a connection until it is closed.
+     */
+    private void serve(Socket socket) {
+        Session session = null;
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+            byte[] frame = new byte[0];
+
+            // Last observation of the connection, and size of its board (-1 if there is none yet)
+            int[] observation = new int[0];
+            int observationSize = -1;
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (length < 1 || length > MAX_FRAME_BYTES)
+                    throw new IOException("Invalid frame length: " + length);
+                byte type = in.readByte();
+                if (frame.length < length - 1)
+                    frame = new byte[length - 1];
+                in.readFully(frame, 0, length - 1);
+                ByteBuffer payload = ByteBuffer.wrap(frame, 0, length - 1);
+
+                try {
+                    switch (type) {
+                        case INIT:
+                            if (session != null)
+                                session.close();
+                            session = Session.create(payload.getInt(), payload.getInt(), payload.getInt(),
+                                    payload.remaining() >= 4 && payload.getInt() != 0);
+                            observationSize = -1;
+                            if (session == null)
+                                throw new IllegalArgumentException("invalid agent type");
+                            writeFrame(out, INIT, null);
+                            break;
+                        case OBSERVATION:
+                        case DELTA:
+                            if (session == null)
+                                throw new IllegalStateException("no agent, INIT first");
+                            int gameType = payload.getInt();
+                            int actionSpace = payload.getInt();
+                            int size = payload.getInt();
+                            int obsLength = ObservationCodec.length(size);
+                            if (type == OBSERVATION) {
+                                if (payload.remaining() != 4 * obsLength)
+                                    throw new IllegalArgumentException("observation of " + payload.remaining()
+                                            + " bytes for a board of size " + size);
+                                if (observation.length < obsLength)
+                                    observation = new int[obsLength];
+                                payload.asIntBuffer().get(observation, 0, obsLength);
+                                observationSize = size;
+                            } else {
+                                if (observationSize != size)
+                                    throw new IllegalStateException("no previous observation of a board of size "
+                                            + size + " to apply the delta to");
+                                int n = payload.getInt();
+                                if (payload.remaining() != 8 * n)
+                                    throw new IllegalArgumentException("delta of " + payload.remaining()
+                                            + " bytes for " + n + " values");
+                                for (int i = 0; i < n; i++) {
+                                    int index = payload.getInt();
+                                    if (index < 0 || index >= obsLength) {
+                                        observationSize = -1;
+                                        throw new IllegalArgumentException("invalid index in delta: " + index);
+                                    }
+                                    observation[index] = payload.getInt();
+                                }
+                            }
+                            GameState gs = ObservationCodec.decode(observation, 0, size, session.getPlayerIdx(),
+                                    gameType, actionSpace);
+                            Types.ACTIONS action = session.act(gs);
+                            writeFrame(out, ACTION, ByteBuffer.allocate(4).putInt(action.getKey()).array());
+                            break;
+                        case EPISODE_END:
+                            if (session != null)
+                                session.close();
+                            session = null;
+                            observationSize = -1;
+                            writeFrame(out, EPISODE_END, null);
+                            break;
+                        default:
+                            throw new IllegalArgumentException("unknown frame type " + type);
+                    }
+                } catch (RuntimeException e) {
+                    writeFrame(out, ERROR, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            // Connection lost, its agent goes with it
+        } finally {
+            sockets.remove(socket);
+            if (session != null)
+                session.close();
+        }
+    }
+
+    private static void writeFrame(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        int payloadLength = payload == null ? 0 : payload.length;
+        out.writeInt(1 + payloadLength);
+        out.writeByte(type);
+        if (payload != null)
+            out.write(payload);
+        out.flush();
+    }
+}
@@ -6,13 +6,9 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import core.GameState;
-import players.Player;
-import players.SimplePlayer;
-import players.mcts.MCTSParams;
-import players.mcts.MCTSPlayer;
-import players.rhea.RHEAPlayer;
 import utils.Types;
 
 import java.io.BufferedReader;
@@ -20,58 +16,143 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.*;
 
+/**
+ * HTTP server playing agents for remote (e.g. Python) games. Each /init_agent request creates a session with a new
+ * agent, and answers its token as {"session": token}. Clients using tokens say so in their /init_agent request, with
+ * a "Session" header or "session" query parameter of any value (e.g. "new"); their later requests send the token the
+ * same way, and /episode_end removes the session. Requests without a token go to the default session: the one of
+ * the last /init_agent without a token, which is kept until /shutdown or the next such /init_agent, so a single client
+ * that ignores tokens keeps working. An /init_agent request with "ponder": true gets an MCTS agent that keeps
+ * searching while the client is busy.
+ *
+ * Requests are handled by a bounded pool of workers, so many sessions can be served at the same time. Requests
+ * arriving when all workers are busy and their queue is full are answered with 503 (Service Unavailable).
+ *
+ * Usage: java network.Server [port] [number of workers] [(optional) port of the binary endpoint, see BinaryServer]
+ */
 public class Server {
-    static int id = -1;
-    static int game_type = -1;
-    static Player agent;
 
+    private static final int DEFAULT_PORT = 12345;
+    private static final String SESSION_HEADER = "Session";
+    private static final String SESSION_PARAM = "session=";
+    private static final int QUEUE_PER_WORKER = 16;
 
-    public static void main(String[] args) throws IOException {
-        // todo remove static keyword and maybe from this out from the main function
-        HttpServer server = HttpServer.create(new InetSocketAddress(12345), 0);
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private volatile Session defaultSession;
+
+    /**
+     * Creates a server.
+     *
+     * @param port     port to listen to.
+     * @param nWorkers number of threads handling requests. Requests waiting for a worker are queued, up to
+     *                 QUEUE_PER_WORKER per worker; beyond that, they are answered with 503 (server busy).
+     */
+    public Server(int port, int nWorkers) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
         HttpContext context = server.createContext("/");
         HttpContext actionContext = server.createContext("/action");
         HttpContext initContext = server.createContext("/init_agent");
         HttpContext episodeEndContext = server.createContext("/episode_end");
         HttpContext shutdownContext = server.createContext("/shutdown");
-        context.setHandler(Server::handleRequest);
-        actionContext.setHandler(Server::getAction);
-        initContext.setHandler(Server::initAgent);
-        episodeEndContext.setHandler(Server::episodeEnd);
-        shutdownContext.setHandler(Server::shutdown);
+        context.setHandler(inWorkers(this::handleRequest));
+        actionContext.setHandler(inWorkers(this::getAction));
+        initContext.setHandler(inWorkers(this::initAgent));
+        episodeEndContext.setHandler(inWorkers(this::episodeEnd));
+        shutdownContext.setHandler(inWorkers(this::shutdown));
+
+        // Requests are dispatched by the thread of the server, which hands them to the workers
+        workers = new ThreadPoolExecutor(nWorkers, nWorkers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_PER_WORKER * nWorkers), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int nWorkers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        new Server(port, Math.max(1, nWorkers)).start();
+        if (args.length > 2)
+            new BinaryServer(Integer.parseInt(args[2])).start();
+    }
+
+    public void start() {
         server.start();
     }
 
-    private static void handleRequest(HttpExchange exchange) throws IOException {
+    /**
+     * Stops the server, and the workers handling its requests.
+     */
+    public void stop() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    /**
+     * @return number of sessions open.
+     */
+    public int nSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * @return a handler running the given one in the workers, or answering 503 if they are all busy and their queue
+     * is full. The thread dispatching the requests of the server never runs agents, so it stays responsive.
+     */
+    private HttpHandler inWorkers(HttpHandler handler) {
+        return exchange -> {
+            try {
+                workers.execute(() -> {
+                    try {
+                        handler.handle(exchange);
+                    } catch (RuntimeException e) {
+                        // i.e. a malformed request
+                        e.printStackTrace();
+                        try {
+                            sendResponse(exchange, 500, "");
+                        } catch (IOException | RuntimeException e2) {
+                            exchange.close();
+                        }
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        exchange.close();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                sendResponse(exchange, 503, "{\"error\": \"server busy\"}");
+            }
+        };
+    }
+
+    private void handleRequest(HttpExchange exchange) throws IOException {
         // httpagent calls this first, maybe initialize agents here?
         System.out.println("default");
-        String response = "";
-        exchange.sendResponseHeaders(200, response.getBytes().length);//response code and length
-        OutputStream os = exchange.getResponseBody();
-        os.write(response.getBytes());
-        os.close();
+        sendResponse(exchange, 200, "");
     }
 
-    private static void getAction(HttpExchange exchange) throws IOException {
+    private void getAction(HttpExchange exchange) throws IOException {
+        Session session = getSession(exchange);
+        if (session == null) {
+            sendResponse(exchange, 404, "{\"error\": \"unknown session\"}");
+            return;
+        }
         String state = getMessageBody(exchange);
-        GameState gs = new GameState(state);
         try {
-            Types.ACTIONS action = agent.act(gs);
+            GameState gs = new GameState(state);
+            Types.ACTIONS action = session.act(gs);
             //System.out.println("selected action = " + action);
 
-            String response = "{\"action\": " + action.getKey() + "}";
-            exchange.sendResponseHeaders(200, response.getBytes().length);//response code and length
-            OutputStream os = exchange.getResponseBody();
-            os.write(response.getBytes());
-            os.close();
+            sendResponse(exchange, 200, "{\"action\": " + action.getKey() + "}");
         } catch (Exception e){
             e.printStackTrace();
+            sendResponse(exchange, 500, "");
         }
 
     }
 
-    private static void initAgent(HttpExchange exchange) throws IOException {
+    private void initAgent(HttpExchange exchange) throws IOException {
         // httpagent calls this second
         System.out.println("initAgent");
 
@@ -81,39 +162,96 @@ public class Server {
         JsonParser parser = new JsonParser();
         JsonElement e = parser.parse(value);
         JsonObject obj = e.getAsJsonObject();
-        id = gson.fromJson(obj.get("id"), int.class) + 10; // todo pommerman agent starts from 0
-        game_type = gson.fromJson(obj.get("game_type"), int.class);
-        agent = new MCTSPlayer(0, id, new MCTSParams());
+        int id = gson.fromJson(obj.get("id"), int.class); // pommerman agents start from 0
+        int game_type = gson.fromJson(obj.get("game_type"), int.class);
 
-        System.out.println("id = " + id);
+        // Optional agent type, as in Run. MCTS with default parameters if not given.
+        int agentType = obj.has("agent_type") ? obj.get("agent_type").getAsInt() : -1;
+        // Optional pondering of MCTS agents between requests
+        boolean ponder = obj.has("ponder") && obj.get("ponder").getAsBoolean();
+        Session session = Session.create(id, game_type, agentType, ponder);
+        if (session == null) {
+            sendResponse(exchange, 400, "{\"error\": \"invalid agent type\"}");
+            return;
+        }
+        sessions.put(session.getToken(), session);
+        if (getToken(exchange) == null) {
+            // Clients without tokens can't end their sessions, the new default session replaces the previous one
+            Session previous;
+            synchronized (this) {
+                previous = defaultSession;
+                defaultSession = session;
+            }
+            if (previous != null)
+                closeSession(previous);
+        }
+
+        System.out.println("id = " + session.getId());
         System.out.println("game_type = " + game_type);
+        System.out.println("session = " + session.getToken());
 
-        String response = "";
-        exchange.sendResponseHeaders(200, response.getBytes().length);//response code and length
-        OutputStream os = exchange.getResponseBody();
-        os.write(response.getBytes());
-        os.close();
+        sendResponse(exchange, 200, "{\"session\": \"" + session.getToken() + "\"}");
     }
 
-    private static void episodeEnd(HttpExchange exchange) throws IOException {
+    private void episodeEnd(HttpExchange exchange) throws IOException {
         System.out.println("episodeend");
         String message = getMessageBody(exchange);
         System.out.println(message);
-        String response = "";
-        exchange.sendResponseHeaders(200, response.getBytes().length);//response code and length
-        OutputStream os = exchange.getResponseBody();
-        os.write(response.getBytes());
-        os.close();
+        // The default session is kept for the next episodes, as clients without tokens don't init their agent again
+        String token = getToken(exchange);
+        Session session = token == null ? null : sessions.get(token);
+        if (session != null)
+            closeSession(session);
+        sendResponse(exchange, 200, "");
     }
 
-    private static void shutdown(HttpExchange exchange) throws IOException {
+    private void shutdown(HttpExchange exchange) throws IOException {
         System.out.println("shutdown");
+        Session session = getSession(exchange);
         String message = getMessageBody(exchange);
         System.out.println(message);
-        String response = "";
-        exchange.sendResponseHeaders(200, response.getBytes().length);//response code and length
+        if (session != null)
+            closeSession(session);
+        sendResponse(exchange, 200, "");
+    }
+
+    private void closeSession(Session session) {
+        sessions.remove(session.getToken());
+        synchronized (this) {
+            if (defaultSession == session)
+                defaultSession = null;
+        }
+        session.close();
+    }
+
+    /**
+     * @return the session of a request: the one of its token, or the default session if it has no token. Null if
+     * the token is not of an open session.
+     */
+    private Session getSession(HttpExchange exchange) {
+        String token = getToken(exchange);
+        return token == null ? defaultSession : sessions.get(token);
+    }
+
+    private static String getToken(HttpExchange exchange) {
+        String token = exchange.getRequestHeaders().getFirst(SESSION_HEADER);
+        if (token != null)
+            return token;
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith(SESSION_PARAM))
+                    return param.substring(SESSION_PARAM.length());
+            }
+        }
+        return null;
+    }
+
+    private static void sendResponse(HttpExchange exchange, int code, String response) throws IOException {
+        byte[] bytes = response.getBytes("utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);//response code and length
         OutputStream os = exchange.getResponseBody();
-        os.write(response.getBytes());
+        os.write(bytes);
         os.close();
     }
 
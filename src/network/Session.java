@@ -0,0 +1,107 @@
+package network;
+
+import core.GameState;
+import players.Player;
+import players.PlayerFactory;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+import utils.Types;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One agent served by the Server, for one seat of one game. HTTP sessions are created by /init_agent requests and
+ * identified by a token that the client sends with its following requests; binary sessions (see BinaryServer) belong
+ * to their connection. Requests of a session are answered one at a time; requests of different sessions run in
+ * parallel. MCTS agents may ponder between requests (see MCTSParams.ponder), until the session is closed.
+ */
+class Session {
+
+    private final String token;
+    private final int id;
+    private final int gameType;
+    private final Player agent;
+    private boolean closed;
+
+    Session(String token, int id, int gameType, Player agent) {
+        this.token = token;
+        this.id = id;
+        this.gameType = gameType;
+        this.agent = agent;
+    }
+
+    /**
+     * Creates a session with a new agent and token.
+     *
+     * @param pommermanId id of the agent in Pommerman, from 0.
+     * @param gameType    game type, as in Pommerman (1: FFA; 2: TEAM; 3: TEAM_RADIO).
+     * @param agentType   type of agent, as in Run, or -1 for MCTS with its default parameters.
+     * @param ponder      true if an MCTS agent should keep searching between requests, with a transposition table.
+     *                    Ignored by other agents.
+     * @return the session, or null if the agent type is not valid.
+     */
+    static Session create(int pommermanId, int gameType, int agentType, boolean ponder) {
+        int id = pommermanId + Types.TILETYPE.AGENT0.getKey();
+        MCTSParams params = new MCTSParams();
+        Map<String, String> mctsValues = new HashMap<>();
+        if (ponder) {
+            params.search_structure = params.SEARCH_TRANSPOSITIONS;
+            params.ponder = true;
+            mctsValues.put("search_structure", Integer.toString(params.SEARCH_TRANSPOSITIONS));
+            mctsValues.put("ponder", "true");
+        }
+        Player agent;
+        if (agentType == -1) {
+            agent = new MCTSPlayer(0, id, params);
+        } else {
+            agent = PlayerFactory.create(agentType, 0, id, new HashMap<>(), mctsValues);
+        }
+        return agent == null ? null : new Session(UUID.randomUUID().toString(), id, gameType, agent);
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * @return index of the agent's player in the game, from 0.
+     */
+    int getPlayerIdx() {
+        return id - Types.TILETYPE.AGENT0.getKey();
+    }
+
+    int getGameType() {
+        return gameType;
+    }
+
+    /**
+     * @param gs observation of the agent.
+     * @return the action chosen by the agent.
+     */
+    synchronized Types.ACTIONS act(GameState gs) {
+        Types.ACTIONS action = agent.act(gs);
+        // A request may still be answered after the session is closed, but its agent must not be left pondering
+        if (closed)
+            stopPondering();
+        return action;
+    }
+
+    /**
+     * Ends the session, stopping its agent if it is pondering. Waits for the request being answered, if any.
+     */
+    synchronized void close() {
+        closed = true;
+        stopPondering();
+    }
+
+    private void stopPondering() {
+        if (agent instanceof MCTSPlayer)
+            ((MCTSPlayer) agent).stopPondering();
+    }
+}
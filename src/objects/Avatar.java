@@ -1,7 +1,9 @@
 package objects;
 
+import core.gameConfig.IGameConfig;
 import utils.Types;
 import utils.Vector2d;
+import utils.Zobrist;
 
 import java.util.Arrays;
 
@@ -21,18 +23,28 @@ public class Avatar extends GameObject {
 
     private int team; // Only relevant in non-FFA games
 
-    public Avatar(int pId, Types.GAME_MODE gameMode) {
+    // Zobrist key of the hashed properties (see zobristKey()), updated by rehash() whenever one of them changes.
+    private long zobristKey;
+
+    /**
+     * @param pId        id of the player (its tile type key).
+     * @param gameMode   game mode, or null to leave the team, enemies and teammates unset.
+     * @param teamConfig teams of the game (see GameConfig.getTeamConfig()), which set up those of this avatar.
+     */
+    public Avatar(int pId, Types.GAME_MODE gameMode, IGameConfig teamConfig) {
         super(Types.TILETYPE.values()[pId]);
         playerID = pId;
 
         if(gameMode != null) {
             // Setup team, enemies and teammates
-            team = getGameConfig().getTeam(gameMode, playerID);
-            enemies = getGameConfig().getEnemies(gameMode, playerID);
-            teammates = getGameConfig().getTeammates(gameMode, playerID);
+            team = teamConfig.getTeam(gameMode, playerID);
+            enemies = teamConfig.getEnemies(gameMode, playerID);
+            teammates = teamConfig.getTeammates(gameMode, playerID);
         }
+        rehash();
     }
-    public Avatar(int pId, int x, int y, boolean canKick, int ammo, int blastStrength, Types.GAME_MODE gameMode){
+    public Avatar(int pId, int x, int y, boolean canKick, int ammo, int blastStrength, Types.GAME_MODE gameMode,
+                  IGameConfig teamConfig){
         // todo new constructor for building from observation
         // contain all info that we get
         super(Types.TILETYPE.values()[pId], x, y);
@@ -43,21 +55,24 @@ public class Avatar extends GameObject {
         this.blastStrength = blastStrength;
         if(gameMode != null) {
             // Setup team, enemies and teammates
-            team = getGameConfig().getTeam(gameMode, playerID);
-            enemies = getGameConfig().getEnemies(gameMode, playerID);
-            teammates = getGameConfig().getTeammates(gameMode, playerID);
+            team = teamConfig.getTeam(gameMode, playerID);
+            enemies = teamConfig.getEnemies(gameMode, playerID);
+            teammates = teamConfig.getTeammates(gameMode, playerID);
         }
+        rehash();
     }
 
     public void reset() {
         canKick = DEFAULT_BOMB_KICK;
         ammo = DEFAULT_BOMB_AMMO;
         blastStrength = DEFAULT_BOMB_BLAST;
+        rehash();
     }
 
     @Override
     public GameObject copy() {
-        Avatar copy = new Avatar(playerID, null);
+        // The copy takes its team, enemies and teammates from this avatar, not from a config
+        Avatar copy = new Avatar(playerID, null, null);
         copy.canKick = canKick;
         copy.ammo = ammo;
         copy.blastStrength = blastStrength;
@@ -81,6 +96,7 @@ public class Avatar extends GameObject {
         copy.team = team;
         copy.enemies = enemies.clone();
         copy.teammates = teammates.clone();
+        copy.zobristKey = zobristKey;
 
         return copy;
     }
@@ -107,30 +123,37 @@ public class Avatar extends GameObject {
 
     public void addBlastStrength() {
         this.blastStrength++;
+        rehash();
     }
 
     public void setBlastStrength(int blastStrength) {
         this.blastStrength = blastStrength;
+        rehash();
     }
 
     public void addAmmo() {
         this.ammo++;
+        rehash();
     }
 
     public void reduceAmmo() {
         this.ammo--;
+        rehash();
     }
 
     public void setAmmo(int ammo) {
         this.ammo = ammo;
+        rehash();
     }
 
     public void setCanKick() {
         this.canKick = true;
+        rehash();
     }
 
     public void setWinner(Types.RESULT winner) {
         this.winner = winner;
+        rehash();
     }
 
     public int getVisionRange() {
@@ -141,6 +164,84 @@ public class Avatar extends GameObject {
         this.visionRange = visionRange;
     }
 
+    /**
+     * Number of ints used by saveState().
+     */
+    public static final int STATE_SIZE = 11;
+    private static final Types.RESULT[] RESULTS = Types.RESULT.values();
+
+    /**
+     * Saves the properties of this avatar that change during a game (position, desired coordinate, life, ammo,
+     * blast strength, kick and result) into an array, so that they can be restored with restoreState().
+     *
+     * @param state  array to save to.
+     * @param offset first index to use in the array, STATE_SIZE ints are written.
+     */
+    public void saveState(int[] state, int offset) {
+        state[offset] = position == null ? 0 : 1;
+        state[offset + 1] = position == null ? 0 : position.x;
+        state[offset + 2] = position == null ? 0 : position.y;
+        state[offset + 3] = desiredCoordinate == null ? 0 : 1;
+        state[offset + 4] = desiredCoordinate == null ? 0 : desiredCoordinate.x;
+        state[offset + 5] = desiredCoordinate == null ? 0 : desiredCoordinate.y;
+        state[offset + 6] = life;
+        state[offset + 7] = ammo;
+        state[offset + 8] = blastStrength;
+        state[offset + 9] = canKick ? 1 : 0;
+        state[offset + 10] = winner.ordinal();
+    }
+
+    /**
+     * Restores the properties saved with saveState().
+     *
+     * @param state  array to restore from.
+     * @param offset first index used in the array.
+     */
+    public void restoreState(int[] state, int offset) {
+        if (state[offset] == 0) setPositionNull();
+        else setPosition(state[offset + 1], state[offset + 2]);
+        if (state[offset + 3] == 0) setDesiredCoordinateNull();
+        else setDesiredCoordinate(state[offset + 4], state[offset + 5]);
+        life = state[offset + 6];
+        ammo = state[offset + 7];
+        blastStrength = state[offset + 8];
+        canKick = state[offset + 9] != 0;
+        winner = RESULTS[state[offset + 10]];
+        rehash();
+    }
+
+    @Override
+    public void setPosition(Vector2d position) {
+        super.setPosition(position);
+        rehash();
+    }
+
+    @Override
+    public void setPosition(int x, int y) {
+        super.setPosition(x, y);
+        rehash();
+    }
+
+    @Override
+    public void setPositionNull() {
+        super.setPositionNull();
+        rehash();
+    }
+
+    /**
+     * @return the Zobrist key of this avatar: its position, ammo, blast strength, kick and result. Kept up to date as
+     * they change, so that the hash of a game state doesn't have to look at them.
+     */
+    public long zobristKey() {
+        return zobristKey;
+    }
+
+    private void rehash() {
+        int value = (position == null ? 0 : Zobrist.position(position.x, position.y) + 1) | ammo << 16
+                | blastStrength << 22 | (canKick ? 1 : 0) << 28 | winner.ordinal() << 29;
+        zobristKey = Zobrist.key(Zobrist.AVATAR, playerID - Types.TILETYPE.AGENT0.getKey(), value);
+    }
+
     public int getTeam() {
         return team;
     }
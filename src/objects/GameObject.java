@@ -3,7 +3,6 @@ package objects;
 import utils.Types;
 import utils.Vector2d;
 
-import java.awt.Image;
 import java.util.List;
 
 /**
@@ -19,28 +18,22 @@ public class GameObject {
     private utils.Types.TILETYPE type = Types.TILETYPE.PASSAGE;
     int id;
 
-    private Image img;
-
 
     public GameObject(utils.Types.TILETYPE type, int x, int y){
         this.type = type;
-        this.img = type.getImage();
         this.desiredCoordinate = new Vector2d(x, y);
     }
 
     public GameObject(utils.Types.TILETYPE type){
         this.type = type;
-        this.img = type.getImage();
         this.desiredCoordinate = new Vector2d();
     }
 
     public GameObject(int x, int y){
-        this.img = type.getImage();
         this.desiredCoordinate = new Vector2d(x, y);
     }
 
     public GameObject(){
-        this.img = type.getImage();
         this.desiredCoordinate = new Vector2d();
     }
 
@@ -120,6 +113,22 @@ public class GameObject {
         }
     }
 
+    /**
+     * Sets the position without allocating a new vector if this object already has one.
+     */
+    public void setPosition(int x, int y) {
+        if (position == null) position = new Vector2d(x, y);
+        else position.set(x, y);
+    }
+
+    /**
+     * Sets the desired coordinate without allocating a new vector if this object already has one.
+     */
+    public void setDesiredCoordinate(int x, int y) {
+        if (desiredCoordinate == null) desiredCoordinate = new Vector2d(x, y);
+        else desiredCoordinate.set(x, y);
+    }
+
     public void setPositionNull() {
         this.position = null;
     }
@@ -150,8 +159,6 @@ public class GameObject {
         return copy;
     }
 
-    public Image getImage() { return img;}
-
     /**
      * If this object is a copy, the id has been set to a non 0 value, the hashCode of the original
      * @return
@@ -59,6 +59,15 @@ public abstract class Player {
 
     public abstract Player copy();
 
+    /**
+     * Checks if the game has asked this player to stop deciding, because the decision time is over (see
+     * GameConfig.isAsyncDecisions()). Searches should then stop and act() return the best action found so far.
+     * @return - true if the current decision has been cancelled.
+     */
+    public static boolean decisionCancelled() {
+        return Thread.currentThread().isInterrupted();
+    }
+
     public void reset(long seed, int playerID) {
         this.playerID = playerID;
         this.seed = seed;
@@ -0,0 +1,113 @@
+package players;
+
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+import players.optimisers.ParameterSet;
+import players.rhea.RHEAPlayer;
+import players.rhea.utils.Constants;
+import players.rhea.utils.RHEAParams;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Creates the players available from the command line (see Run), by agent type:
+ * 0 DoNothing, 1 Random, 2 OSLA, 3 SimplePlayer (RuleBased), 4 RHEA, 5 MCTS.
+ */
+public class PlayerFactory {
+
+    private static final String[] NAMES = {"DoNothing", "Random", "OSLA", "RuleBased", "RHEA", "MCTS"};
+
+    /**
+     * @param agentType type of agent.
+     * @return name of the type of agent, or null if the type is not valid.
+     */
+    public static String name(int agentType) {
+        return agentType >= 0 && agentType < NAMES.length ? NAMES[agentType] : null;
+    }
+
+    /**
+     * Creates a player with the default parameters of its type: RHEA with 200 iterations, shift buffer,
+     * population size 1, random init and length 12; MCTS with 200 iterations and rollouts of length 12.
+     *
+     * @param agentType type of agent.
+     * @param seed      random seed of the player.
+     * @param playerID  ID of the player.
+     * @return the player, or null if the type is not valid.
+     */
+    public static Player create(int agentType, long seed, int playerID) {
+        return create(agentType, seed, playerID, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * Creates a player, changing some of the default parameters of RHEA or MCTS players.
+     *
+     * @param agentType  type of agent.
+     * @param seed       random seed of the player.
+     * @param playerID   ID of the player.
+     * @param rheaValues values of RHEAParams fields, by name, used if the player is RHEA.
+     * @param mctsValues values of MCTSParams fields, by name, used if the player is MCTS.
+     * @return the player, or null if the type is not valid.
+     */
+    public static Player create(int agentType, long seed, int playerID,
+                                Map<String, String> rheaValues, Map<String, String> mctsValues) {
+        switch (agentType) {
+            case 0:
+                return new DoNothingPlayer(playerID);
+            case 1:
+                return new RandomPlayer(seed, playerID);
+            case 2:
+                return new OSLAPlayer(seed, playerID);
+            case 3:
+                return new SimplePlayer(seed, playerID);
+            case 4:
+                RHEAParams rheaParams = new RHEAParams();
+                rheaParams.budget_type = Constants.ITERATION_BUDGET;
+                rheaParams.iteration_budget = 200;
+                rheaParams.individual_length = 12;
+                rheaParams.heuristic_type = Constants.CUSTOM_HEURISTIC;
+                setValues(rheaParams, rheaValues);
+                rheaParams.updateDependentVariables();
+                return new RHEAPlayer(seed, playerID, rheaParams);
+            case 5:
+                MCTSParams mctsParams = new MCTSParams();
+                mctsParams.stop_type = mctsParams.STOP_ITERATIONS;
+                mctsParams.num_iterations = 200;
+                mctsParams.rollout_depth = 12;
+                mctsParams.heuristic_method = mctsParams.CUSTOM_HEURISTIC;
+                setValues(mctsParams, mctsValues);
+                return new MCTSPlayer(seed, playerID, mctsParams);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Sets fields of a parameter set from their values as text.
+     *
+     * @throws IllegalArgumentException if a field doesn't exist, or its value can't be parsed.
+     */
+    private static void setValues(ParameterSet params, Map<String, String> values) {
+        for (Map.Entry<String, String> e : values.entrySet()) {
+            String name = e.getKey();
+            String value = e.getValue().trim();
+            try {
+                Field field = params.getClass().getField(name);
+                Class<?> type = field.getType();
+                if (type == int.class) {
+                    field.setInt(params, Integer.parseInt(value));
+                } else if (type == double.class) {
+                    field.setDouble(params, Double.parseDouble(value));
+                } else if (type == boolean.class) {
+                    field.setBoolean(params, Boolean.parseBoolean(value));
+                } else {
+                    throw new IllegalArgumentException("Parameter " + name + " of type " + type + " can't be set.");
+                }
+            } catch (NoSuchFieldException | IllegalAccessException ex) {
+                throw new IllegalArgumentException("Unknown parameter " + name + " of "
+                        + params.getClass().getSimpleName(), ex);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package players;
 
 import core.GameState;
+import core.StateBatch;
 import players.heuristics.CustomHeuristic;
 import players.heuristics.StateHeuristic;
 import utils.Types;
@@ -84,11 +85,20 @@ public class SimpleEvoAgent extends Player {
             solution = randomPoint(gameState.nActions());
         }
 
-        for (int i = 0; i < nEvals; i++) {
+        // The current solution and its mutation are evaluated together, from copies of the state that are rewound
+        // after each evaluation.
+        StateBatch batch = new StateBatch(gameState, 2);
+        int[][] seqs = new int[2][];
+        double[] scores = new double[2];
+        for (int i = 0; i < nEvals && !decisionCancelled(); i++) {
             // evaluate the current one
             int[] mut = mutate(solution, mutProb, gameState.nActions());
-            double curScore = evalSeq(gameState.copy(), solution, playerId);
-            double mutScore = evalSeq(gameState.copy(), mut, playerId);
+            seqs[0] = solution;
+            seqs[1] = mut;
+            evalSeqs(batch, seqs, playerId, scores);
+            batch.rewind();
+            double curScore = scores[0];
+            double mutScore = scores[1];
             if (mutScore >= curScore) {
                 solution = mut;
                 // System.out.println(mutScore + " : " + Arrays.toString(solution));
@@ -152,24 +162,48 @@ public class SimpleEvoAgent extends Player {
         return p;
     }
 
-    private double evalSeq(GameState gameState, int[] seq, int playerId) {
-        if (discountFactor == null) {
-            return evalSeqNoDiscount(gameState, seq, playerId);
-        } else {
-            return evalSeqDiscounted(gameState, seq, playerId, discountFactor);
+    /**
+     * Evaluates action sequences of the same length, each one in a state of the batch, stepping all of them
+     * together.
+     *
+     * @param batch    states to roll forward, one per sequence.
+     * @param seqs     sequences to evaluate.
+     * @param playerId id of this player.
+     * @param scores   array to write the score of each sequence to.
+     */
+    private void evalSeqs(StateBatch batch, int[][] seqs, int playerId, double[] scores) {
+        int n = batch.size();
+        double[] current = new double[n];
+        Types.ACTIONS[][] allActions = new Types.ACTIONS[n][];
+        for (int i = 0; i < n; i++) {
+            current[i] = rootStateHeuristic.evaluateState(batch.get(i));
+            scores[i] = 0;
         }
-    }
 
-    private double evalSeqNoDiscount(GameState gameState, int[] seq, int playerId) {
-        double current = rootStateHeuristic.evaluateState(gameState);
-        for (int action : seq) {
+        double discount = 1;
+        for (int t = 0; t < seqs[0].length; t++) {
+            for (int i = 0; i < n; i++) {
+                allActions[i] = actAllPlayers(batch.get(i), seqs[i][t], playerId);
+            }
+            batch.next(allActions);
+
+            if (discountFactor != null) {
+                for (int i = 0; i < n; i++) {
+                    double nextScore = rootStateHeuristic.evaluateState(batch.get(i));
+                    double tickDelta = nextScore - current[i];
+                    current[i] = nextScore;
+                    scores[i] += tickDelta * discount;
+                }
+                discount *= discountFactor;
+            }
+        }
 
-            Types.ACTIONS[] allActions = actAllPlayers(gameState, action, playerId);
-            gameState.next(allActions);
+        if (discountFactor == null) {
+            for (int i = 0; i < n; i++) {
+                double nextScore = rootStateHeuristic.evaluateState(batch.get(i));
+                scores[i] = nextScore - current[i];
+            }
         }
-        double nextScore = rootStateHeuristic.evaluateState(gameState);
-        double delta = nextScore - current;
-        return delta;
     }
 
     private Types.ACTIONS[] actAllPlayers(GameState gs, int myAction, int playerId)
@@ -189,24 +223,6 @@ public class SimpleEvoAgent extends Player {
         return actionsAll;
     }
 
-    private double evalSeqDiscounted(GameState gameState, int[] seq, int playerId, double discountFactor) {
-        double currentScore = rootStateHeuristic.evaluateState(gameState);
-        double delta = 0;
-        double discount = 1;
-
-        for (int action : seq) {
-            Types.ACTIONS[] allActions = actAllPlayers(gameState, action, playerId);
-            gameState.next(allActions);
-            double nextScore = rootStateHeuristic.evaluateState(gameState);
-            double tickDelta = nextScore - currentScore;
-            currentScore = nextScore;
-            delta += tickDelta * discount;
-            discount *= discountFactor;
-        }
-        return delta;
-
-    }
-
     public String toString() {
         return "SEA: " + nEvals + " : " + sequenceLength + " : " + opponent;
     }
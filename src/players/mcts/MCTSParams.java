@@ -21,6 +21,12 @@ public class MCTSParams implements ParameterSet {
     public final int CUSTOM_HEURISTIC = 0;
     public final int ADVANCED_HEURISTIC = 1;
 
+    public final int SEARCH_TREE = 0;
+    public final int SEARCH_TRANSPOSITIONS = 1;
+
+    public final int TT_REPLACE_ALWAYS = 0;
+    public final int TT_REPLACE_LESS_VISITED = 1;
+
     public double epsilon = 1e-6;
 
     // Parameters
@@ -35,12 +41,26 @@ public class MCTSParams implements ParameterSet {
     public int num_fmcalls = 2000;
     public int num_time = 40;
 
+    // Search structure: a tree, or states shared between action sequences that reach them (see TranspositionTable)
+    public int search_structure = SEARCH_TREE;
+    public int tt_memory_mb = 16;
+    public int tt_replacement = TT_REPLACE_LESS_VISITED;
+
+    // Keep searching in the background between decisions (SEARCH_TRANSPOSITIONS only, see TranspositionSearch.ponder)
+    public boolean ponder = false;
+    public int ponder_max_iterations = 100000;
+
     @Override
     public void setParameterValue(String param, Object value) {
         switch(param) {
             case "K": K = (double) value; break;
             case "rollout_depth": rollout_depth = (int) value; break;
             case "heuristic_method": heuristic_method = (int) value; break;
+            case "search_structure": search_structure = (int) value; break;
+            case "tt_memory_mb": tt_memory_mb = (int) value; break;
+            case "tt_replacement": tt_replacement = (int) value; break;
+            case "ponder": ponder = (boolean) value; break;
+            case "ponder_max_iterations": ponder_max_iterations = (int) value; break;
         }
     }
 
@@ -50,6 +70,11 @@ public class MCTSParams implements ParameterSet {
             case "K": return K;
             case "rollout_depth": return rollout_depth;
             case "heuristic_method": return heuristic_method;
+            case "search_structure": return search_structure;
+            case "tt_memory_mb": return tt_memory_mb;
+            case "tt_replacement": return tt_replacement;
+            case "ponder": return ponder;
+            case "ponder_max_iterations": return ponder_max_iterations;
         }
         return null;
     }
@@ -86,6 +111,8 @@ public class MCTSParams implements ParameterSet {
     public Map<String, String[]> constantNames() {
         HashMap<String, String[]> names = new HashMap<>();
         names.put("heuristic_method", new String[]{"CUSTOM_HEURISTIC", "ADVANCED_HEURISTIC"});
+        names.put("search_structure", new String[]{"SEARCH_TREE", "SEARCH_TRANSPOSITIONS"});
+        names.put("tt_replacement", new String[]{"TT_REPLACE_ALWAYS", "TT_REPLACE_LESS_VISITED"});
         return names;
     }
 }
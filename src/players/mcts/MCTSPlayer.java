@@ -27,6 +27,16 @@ public class MCTSPlayer extends ParameterizedPlayer {
      */
     public MCTSParams params;
 
+    /**
+     * Search used if params.search_structure is SEARCH_TRANSPOSITIONS, kept between decisions to reuse its table.
+     */
+    private TranspositionSearch transpositionSearch;
+
+    /**
+     * Thread pondering with transpositionSearch after the last decision, if params.ponder is set. Null if none.
+     */
+    private Thread ponderThread;
+
     public MCTSPlayer(long seed, int id) {
         this(seed, id, new MCTSParams(), null);
     }
@@ -50,7 +60,9 @@ public class MCTSPlayer extends ParameterizedPlayer {
     @Override
     public void reset(long seed, int playerID) {
         super.reset(seed, playerID);
+        stopPondering();
         m_rnd = new Random(seed);
+        transpositionSearch = null;
 
         this.params = (MCTSParams) getParameters();
         if (this.params == null) {
@@ -61,6 +73,7 @@ public class MCTSPlayer extends ParameterizedPlayer {
 
     @Override
     public Types.ACTIONS act(GameState gs) {
+        stopPondering();
 
         // TODO update gs
         if (gs.getGameMode().equals(Types.GAME_MODE.TEAM_RADIO)){
@@ -73,15 +86,27 @@ public class MCTSPlayer extends ParameterizedPlayer {
         // Number of actions available
         int num_actions = actions.length;
 
-        // Root of the tree
-        SingleTreeNode m_root = new SingleTreeNode(params, m_rnd, num_actions, actions);
-        m_root.setRootGameState(gs);
-
-        //Determine the action using MCTS...
-        m_root.mctsSearch(ect);
-
-        //Determine the best action to take and return it.
-        int action = m_root.mostVisitedAction();
+        int action;
+        if (params.search_structure == params.SEARCH_TRANSPOSITIONS) {
+            if (transpositionSearch == null) {
+                transpositionSearch = new TranspositionSearch(params, m_rnd, num_actions, actions);
+            }
+            transpositionSearch.setRootGameState(gs);
+            transpositionSearch.mctsSearch(ect);
+            action = transpositionSearch.mostVisitedAction();
+            if (params.ponder)
+                startPondering(action);
+        } else {
+            // Root of the tree
+            SingleTreeNode m_root = new SingleTreeNode(params, m_rnd, num_actions, actions);
+            m_root.setRootGameState(gs);
+
+            //Determine the action using MCTS...
+            m_root.mctsSearch(ect);
+
+            //Determine the best action to take and return it.
+            action = m_root.mostVisitedAction();
+        }
 
         // TODO update message memory
 
@@ -89,6 +114,40 @@ public class MCTSPlayer extends ParameterizedPlayer {
         return actions[action];
     }
 
+    @Override
+    public void result(double reward) {
+        stopPondering();
+    }
+
+    /**
+     * Stops pondering, if the player is, and waits until the search is left alone.
+     */
+    public void stopPondering() {
+        Thread t = ponderThread;
+        if (t == null)
+            return;
+        ponderThread = null;
+        t.interrupt();
+        boolean interrupted = false;
+        while (t.isAlive()) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                // The decision may be cancelled meanwhile, but the search can't be shared with the ponder thread
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void startPondering(int action) {
+        TranspositionSearch search = transpositionSearch;
+        ponderThread = new Thread(() -> search.ponder(action), "mcts-ponder-" + playerID);
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
     @Override
     public int[] getMessage() {
         // default message
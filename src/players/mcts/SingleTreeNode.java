@@ -1,6 +1,7 @@
 package players.mcts;
 
 import core.GameState;
+import players.Player;
 import players.heuristics.AdvancedHeuristic;
 import players.heuristics.CustomHeuristic;
 import players.heuristics.StateHeuristic;
@@ -75,13 +76,17 @@ public class SingleTreeNode
         int remainingLimit = 5;
         boolean stop = false;
 
+        // All iterations roll the same copy of the root state forward, and undo their moves when they are done.
+        GameState state = rootState.copy();
+
         while(!stop){
 
-            GameState state = rootState.copy();
             ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+            int rootMark = state.mark();
             SingleTreeNode selected = treePolicy(state);
             double delta = selected.rollOut(state);
             backUp(selected, delta);
+            state.undo(rootMark);
 
             //Stopping condition
             if(params.stop_type == params.STOP_TIME) {
@@ -98,6 +103,7 @@ public class SingleTreeNode
                 fmCallsCount+=params.rollout_depth;
                 stop = (fmCallsCount + params.rollout_depth) > params.num_fmcalls;
             }
+            stop = stop || Player.decisionCancelled();
         }
         //System.out.println(" ITERS " + numIters);
     }
@@ -143,6 +149,14 @@ public class SingleTreeNode
     }
 
     private void roll(GameState gs, Types.ACTIONS act)
+    {
+        roll(gs, act, m_rnd);
+    }
+
+    /**
+     * Rolls the state forward with the given action for the player, and random actions for the others.
+     */
+    static void roll(GameState gs, Types.ACTIONS act, Random m_rnd)
     {
         //Simple, all random first, then my position.
         int nPlayers = 4;
@@ -211,6 +225,14 @@ public class SingleTreeNode
     }
 
     private int safeRandomAction(GameState state)
+    {
+        return safeRandomAction(state, m_rnd, num_actions);
+    }
+
+    /**
+     * @return a random action that doesn't walk the player into flames, if there is one.
+     */
+    static int safeRandomAction(GameState state, Random m_rnd, int num_actions)
     {
         Types.TILETYPE[][] board = state.getBoard();
         ArrayList<Types.ACTIONS> actionsToTry = Types.ACTIONS.all();
@@ -0,0 +1,302 @@
+package players.mcts;
+
+import core.GameState;
+import players.Player;
+import players.heuristics.AdvancedHeuristic;
+import players.heuristics.CustomHeuristic;
+import players.heuristics.StateHeuristic;
+import utils.ElapsedCpuTimer;
+import utils.Types;
+import utils.Utils;
+
+import java.util.Random;
+
+/**
+ * MCTS over a transposition table instead of a tree (params.search_structure == SEARCH_TRANSPOSITIONS). Statistics
+ * are kept per state, so all action sequences reaching the same state (i.e. agents bumping into walls, or
+ * stopping) share them. Selection, expansion, rollouts and the budget follow SingleTreeNode; the values of actions
+ * are kept in the state they are taken from.
+ *
+ * Between decisions, the search can ponder (see ponder()): it keeps iterating from the last root, after the action
+ * chosen, while the rest of the game moves on. If the next root is one of the states reached then, its entry and all
+ * the statistics gathered below it are kept; otherwise the table starts over as usual.
+ */
+class TranspositionSearch {
+
+    private MCTSParams params;
+    private Random m_rnd;
+    private int num_actions;
+    private Types.ACTIONS[] actions;
+    private TranspositionTable table;
+
+    private GameState rootState;
+    private StateHeuristic rootStateHeuristic;
+    private int rootEntry;
+
+    // True if the table holds iterations of ponder() from the current root.
+    private boolean pondered;
+
+    // Entries, keys of their states and actions taken in the current iteration, root first.
+    private int[] pathEntries;
+    private long[] pathKeys;
+    private int[] pathActions;
+
+    TranspositionSearch(MCTSParams p, Random rnd, int num_actions, Types.ACTIONS[] actions) {
+        this.params = p;
+        this.m_rnd = rnd;
+        this.num_actions = num_actions;
+        this.actions = actions;
+        this.table = new TranspositionTable(p, num_actions);
+    }
+
+    void setRootGameState(GameState gs) {
+        this.rootState = gs;
+        if (params.heuristic_method == params.CUSTOM_HEURISTIC)
+            this.rootStateHeuristic = new CustomHeuristic(gs, params.heuristicWeights);
+        else if (params.heuristic_method == params.ADVANCED_HEURISTIC) // New method: combined heuristics
+            this.rootStateHeuristic = new AdvancedHeuristic(gs, m_rnd);
+
+        // Values of earlier searches are relative to their own root, start over, unless the new root was reached
+        // while pondering: its values are then relative to the previous root, which is close enough to keep them.
+        int ponderedEntry = pondered ? table.find(gs.hash()) : -1;
+        if (ponderedEntry >= 0) {
+            rootEntry = ponderedEntry;
+        } else {
+            table.newSearch();
+            rootEntry = table.add(gs.hash(), -1);
+        }
+        pondered = false;
+        if (pathEntries == null || pathEntries.length < params.rollout_depth + 1) {
+            pathEntries = new int[params.rollout_depth + 1];
+            pathKeys = new long[params.rollout_depth + 1];
+            pathActions = new int[params.rollout_depth + 1];
+        }
+    }
+
+    void mctsSearch(ElapsedCpuTimer elapsedTimer) {
+
+        double avgTimeTaken;
+        double acumTimeTaken = 0;
+        long remaining;
+        int numIters = 0;
+        int fmCallsCount = 0;
+
+        int remainingLimit = 5;
+        boolean stop = false;
+
+        // All iterations roll the same copy of the root state forward, and undo their moves when they are done.
+        GameState state = rootState.copy();
+
+        while (!stop) {
+
+            ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+            int rootMark = state.mark();
+            int pathLength = treePolicy(state, -1);
+            double delta = rollOut(state, pathLength - 1);
+            backUp(pathLength, delta);
+            state.undo(rootMark);
+
+            //Stopping condition
+            if (params.stop_type == params.STOP_TIME) {
+                numIters++;
+                acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
+                avgTimeTaken = acumTimeTaken / numIters;
+                remaining = elapsedTimer.remainingTimeMillis();
+                stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
+            } else if (params.stop_type == params.STOP_ITERATIONS) {
+                numIters++;
+                stop = numIters >= params.num_iterations;
+            } else if (params.stop_type == params.STOP_FMCALLS) {
+                fmCallsCount += params.rollout_depth;
+                stop = (fmCallsCount + params.rollout_depth) > params.num_fmcalls;
+            }
+            stop = stop || Player.decisionCancelled();
+        }
+    }
+
+    /**
+     * Keeps searching from the current root after a decision, with 'action' as the first action of every iteration,
+     * so that the states the game may reach next are explored. Runs until the thread is interrupted, or for
+     * params.ponder_max_iterations iterations. The next call to setRootGameState() keeps these statistics if its
+     * state was reached.
+     *
+     * @param action index of the action chosen from the root.
+     */
+    void ponder(int action) {
+        pondered = true;
+        GameState state = rootState.copy();
+        for (int i = 0; i < params.ponder_max_iterations && !Player.decisionCancelled(); i++) {
+            int rootMark = state.mark();
+            int pathLength = treePolicy(state, action);
+            double delta = rollOut(state, pathLength - 1);
+            backUp(pathLength, delta);
+            state.undo(rootMark);
+        }
+    }
+
+    /**
+     * Goes down from the root, until a state not in the table is reached (and added to it), or the game ends, or
+     * the depth limit is reached.
+     *
+     * @param firstAction action to take from the root, or -1 to select it as from any other state.
+     * @return length of the path followed, in pathEntries, pathKeys and pathActions. The last action is -1.
+     */
+    private int treePolicy(GameState state, int firstAction) {
+        int e = rootEntry;
+        long key = state.hash();
+        int depth = 0;
+
+        while (!state.isTerminal() && depth < params.rollout_depth) {
+            int action = depth == 0 && firstAction >= 0 ? firstAction : notFullyExpanded(e) ? expand(e) : uct(e);
+            pathEntries[depth] = e;
+            pathKeys[depth] = key;
+            pathActions[depth] = action;
+            depth++;
+
+            SingleTreeNode.roll(state, actions[action], m_rnd);
+            key = state.hash();
+            int next = table.find(key);
+            if (next < 0) {
+                e = table.add(key, rootEntry);
+                break;
+            }
+            e = next;
+        }
+
+        pathEntries[depth] = e;
+        pathKeys[depth] = key;
+        pathActions[depth] = -1;
+        return depth + 1;
+    }
+
+    private boolean notFullyExpanded(int e) {
+        for (int a = 0; a < num_actions; a++) {
+            if (table.actionVisits(e, a) == 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return a random action not taken yet from the state in entry 'e'.
+     */
+    private int expand(int e) {
+        int bestAction = 0;
+        double bestValue = -1;
+
+        for (int a = 0; a < num_actions; a++) {
+            double x = m_rnd.nextDouble();
+            if (x > bestValue && table.actionVisits(e, a) == 0) {
+                bestAction = a;
+                bestValue = x;
+            }
+        }
+        return bestAction;
+    }
+
+    private int uct(int e) {
+        int selected = -1;
+        double bestValue = -Double.MAX_VALUE;
+        for (int a = 0; a < num_actions; a++) {
+            int n = table.actionVisits(e, a);
+            double childValue = table.actionValue(e, a) / (n + params.epsilon);
+
+            childValue = Utils.normalise(childValue, table.lowerBound(e), table.upperBound(e));
+
+            double uctValue = childValue +
+                    params.K * Math.sqrt(Math.log(table.visits(e) + 1) / (n + params.epsilon));
+
+            uctValue = Utils.noise(uctValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+
+            if (uctValue > bestValue) {
+                selected = a;
+                bestValue = uctValue;
+            }
+        }
+        if (selected == -1) {
+            throw new RuntimeException("Warning! returning null: " + bestValue + " : " + num_actions + " " +
+                    +table.lowerBound(e) + " " + table.upperBound(e));
+        }
+        return selected;
+    }
+
+    private double rollOut(GameState state, int depth) {
+        while (depth < params.rollout_depth && !state.isTerminal()) {
+            int action = SingleTreeNode.safeRandomAction(state, m_rnd, num_actions);
+            SingleTreeNode.roll(state, actions[action], m_rnd);
+            depth++;
+        }
+
+        return rootStateHeuristic.evaluateState(state);
+    }
+
+    /**
+     * Adds the result of the iteration to the states in the path, skipping any replaced in the table meanwhile.
+     */
+    private void backUp(int pathLength, double result) {
+        if (Double.isNaN(result)) {
+            throw new AssertionError("NaN in node value");
+        }
+        for (int i = 0; i < pathLength; i++) {
+            if (table.holds(pathEntries[i], pathKeys[i])) {
+                table.update(pathEntries[i], pathActions[i], result);
+            }
+        }
+    }
+
+    int mostVisitedAction() {
+        int selected = -1;
+        double bestValue = -Double.MAX_VALUE;
+        boolean allEqual = true;
+        double first = -1;
+
+        for (int a = 0; a < num_actions; a++) {
+            int n = table.actionVisits(rootEntry, a);
+            if (n > 0) {
+                if (first == -1)
+                    first = n;
+                else if (first != n)
+                    allEqual = false;
+
+                double childValue = Utils.noise(n, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+                if (childValue > bestValue) {
+                    bestValue = childValue;
+                    selected = a;
+                }
+            }
+        }
+
+        if (selected == -1) {
+            selected = 0;
+        } else if (allEqual) {
+            //If all are equal, we opt to choose for the one with the best Q.
+            selected = bestAction();
+        }
+
+        return selected;
+    }
+
+    private int bestAction() {
+        int selected = -1;
+        double bestValue = -Double.MAX_VALUE;
+
+        for (int a = 0; a < num_actions; a++) {
+            int n = table.actionVisits(rootEntry, a);
+            if (n > 0) {
+                double childValue = table.actionValue(rootEntry, a) / (n + params.epsilon);
+                childValue = Utils.noise(childValue, params.epsilon, this.m_rnd.nextDouble());     //break ties randomly
+                if (childValue > bestValue) {
+                    bestValue = childValue;
+                    selected = a;
+                }
+            }
+        }
+
+        if (selected == -1) {
+            System.out.println("Unexpected selection!");
+            selected = 0;
+        }
+
+        return selected;
+    }
+}
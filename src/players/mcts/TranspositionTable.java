@@ -0,0 +1,171 @@
+package players.mcts;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of the states visited by a search, keyed by the hash of the state (see GameState.hash()). States
+ * reached by different sequences of actions share their statistics, which turns the search tree into a directed
+ * acyclic graph (game ticks always increase, so there are no cycles).
+ *
+ * The table has a fixed number of entries, given by a memory cap. Each state can go in one of two entries; when
+ * both are taken, one of them is replaced following the replacement policy in MCTSParams. Entries are stored as
+ * parallel primitive arrays, statistics of the actions of entry 'e' are at [e * nActions, (e + 1) * nActions).
+ */
+class TranspositionTable {
+
+    // Entries hold a key, the search they were written in, visits, value bounds, and visits and value per action.
+    private static final int ENTRY_BYTES = 8 + 4 + 4 + 2 * 8;
+    private static final int ACTION_BYTES = 4 + 8;
+
+    private final int nActions;
+    private final int replacement;
+    private final MCTSParams params;
+    private final int mask;
+
+    private final long[] keys;
+    private final int[] search;         // Search the entry was written in, 0 if the entry was never used
+    private final int[] visits;
+    private final double[] lowerBound;
+    private final double[] upperBound;
+    private final int[] actionVisits;
+    private final double[] actionValues;
+
+    // Current search. Entries written in previous searches are free: their values are relative to another root.
+    private int currentSearch = 1;
+
+    /**
+     * Creates a table as big as allowed by params.tt_memory_mb.
+     *
+     * @param params   parameters of the search.
+     * @param nActions number of actions in each state.
+     */
+    TranspositionTable(MCTSParams params, int nActions) {
+        this.params = params;
+        this.nActions = nActions;
+        this.replacement = params.tt_replacement;
+
+        // Largest power of two that fits in the memory cap, with at least one pair of entries
+        long maxEntries = (long) params.tt_memory_mb * 1024 * 1024 / (ENTRY_BYTES + nActions * ACTION_BYTES);
+        int capacity = 2;
+        while (capacity * 2L <= Math.min(maxEntries, 1 << 30)) {
+            capacity *= 2;
+        }
+        mask = capacity - 1;
+
+        keys = new long[capacity];
+        search = new int[capacity];
+        visits = new int[capacity];
+        lowerBound = new double[capacity];
+        upperBound = new double[capacity];
+        actionVisits = new int[capacity * nActions];
+        actionValues = new double[capacity * nActions];
+    }
+
+    /**
+     * @return number of entries in the table.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Starts a new search. All entries written so far are discarded.
+     */
+    void newSearch() {
+        currentSearch++;
+        if (currentSearch == Integer.MAX_VALUE) {
+            Arrays.fill(search, 0);
+            currentSearch = 1;
+        }
+    }
+
+    /**
+     * @param key hash of a state.
+     * @return entry of the state in the current search, or -1 if there isn't one.
+     */
+    int find(long key) {
+        int e = slot(key);
+        if (search[e] == currentSearch && keys[e] == key)
+            return e;
+        e ^= 1;
+        if (search[e] == currentSearch && keys[e] == key)
+            return e;
+        return -1;
+    }
+
+    /**
+     * Adds a state to the table, with no statistics. Must only be called if find() doesn't find it.
+     *
+     * @param key       hash of the state.
+     * @param keep      entry that must not be replaced (i.e. the root of the search).
+     * @return entry of the state.
+     */
+    int add(long key, int keep) {
+        int first = slot(key);
+        int second = first ^ 1;
+        int e;
+        if (first == keep) e = second;
+        else if (second == keep) e = first;
+        else if (search[first] != currentSearch) e = first;
+        else if (search[second] != currentSearch) e = second;
+        else if (replacement == params.TT_REPLACE_LESS_VISITED && visits[second] < visits[first]) e = second;
+        else e = first;
+
+        keys[e] = key;
+        search[e] = currentSearch;
+        visits[e] = 0;
+        lowerBound[e] = Double.MAX_VALUE;
+        upperBound[e] = -Double.MAX_VALUE;
+        Arrays.fill(actionVisits, e * nActions, (e + 1) * nActions, 0);
+        Arrays.fill(actionValues, e * nActions, (e + 1) * nActions, 0);
+        return e;
+    }
+
+    /**
+     * @return true if the entry still holds the given state, i.e. it hasn't been replaced.
+     */
+    boolean holds(int e, long key) {
+        return search[e] == currentSearch && keys[e] == key;
+    }
+
+    /**
+     * Adds the result of an iteration to an entry.
+     *
+     * @param e      entry of the state.
+     * @param action action taken from the state, -1 if the iteration ended in it.
+     * @param result value of the iteration.
+     */
+    void update(int e, int action, double result) {
+        visits[e]++;
+        if (result < lowerBound[e]) lowerBound[e] = result;
+        if (result > upperBound[e]) upperBound[e] = result;
+        if (action >= 0) {
+            actionVisits[e * nActions + action]++;
+            actionValues[e * nActions + action] += result;
+        }
+    }
+
+    int visits(int e) {
+        return visits[e];
+    }
+
+    double lowerBound(int e) {
+        return lowerBound[e];
+    }
+
+    double upperBound(int e) {
+        return upperBound[e];
+    }
+
+    int actionVisits(int e, int action) {
+        return actionVisits[e * nActions + action];
+    }
+
+    double actionValue(int e, int action) {
+        return actionValues[e * nActions + action];
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
@@ -2,6 +2,7 @@ package players.rhea;
 
 import core.GameState;
 import gnu.trove.set.hash.TIntHashSet;
+import players.Player;
 import players.heuristics.*;
 import players.rhea.evo.Individual;
 import players.rhea.evo.Mutation;
@@ -26,6 +27,7 @@ public class GameInterface {
     private StateHeuristic stateHeuristic;
     private FMBudget fmBudget;
     private GameState rootState;
+    private GameState workingState;  // Copy of the root state rolled forward by evaluations, which undo their moves
     private RHEAParams params;
     private int playerID;
     private Random random;
@@ -44,6 +46,7 @@ public class GameInterface {
 
     void initTick(GameState stateObs, ElapsedCpuTimer elapsedTimer) {
         rootState = stateObs;
+        workingState = stateObs.copy();
         this.elapsedTimer = elapsedTimer;
         fmBudget.reset();
         initStateInfo();
@@ -152,7 +155,8 @@ public class GameInterface {
     @SuppressWarnings("UnusedReturnValue")
     public double evaluate(Individual individual, Mutation mutation, int evaluation_update) {
         double[] values = new double[individual.get_length() + 1];
-        GameState stateObsCopy = rootState.copy();
+        GameState stateObsCopy = workingState;
+        int mark = stateObsCopy.mark();
         if (params.evaluate_act == EVALUATE_ACT_LAST) {  // This doesn't need first state value
             values[0] = 0;
         } else {
@@ -174,6 +178,7 @@ public class GameInterface {
         if (params.mc_rollouts && !stateObsCopy.isTerminal()) {
             state_value = MCrollouts(stateObsCopy, values);
         }
+        stateObsCopy.undo(mark);
 
         // Update value according to update rule
         double update_value;
@@ -308,7 +313,8 @@ public class GameInterface {
 
         // We may average over multiple repetitions of rollouts
         for (int k = 0; k < params.mc_rollouts_repeat; k++) {
-            GameState first = start.copy();
+            GameState first = start;
+            int mark = first.mark();
 
             // Save values of states we pass through in values array
             double[] values = new double[params.mc_rollouts_length + 1];
@@ -328,6 +334,7 @@ public class GameInterface {
             double thisReward = combineAndNormalize(ind_values, values);
 
             reward += thisReward;
+            first.undo(mark);
         }
 
         // Returned value is average over all rollout repetitions
@@ -379,7 +386,7 @@ public class GameInterface {
                 gotBudget = this.fmBudget.enoughBudgetIteration();
             }
         }
-        return gotBudget;
+        return gotBudget && !Player.decisionCancelled();
     }
 
     public void endIteration(ElapsedCpuTimer elapsedCpuTimer, FMBudget fmBudget) {
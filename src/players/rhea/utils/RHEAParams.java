@@ -480,7 +480,7 @@ public class RHEAParams implements ParameterSet {
      * Updates the variables used by RHEA which are set from other parameters.
      * Should call this whenever these parameters are changed.
      */
-    private void updateDependentVariables() {
+    public void updateDependentVariables() {
         mcts_fm_budget = (int) (fm_budget * mcts_budget_perc);
         mcts_iteration_budget = (int) (iteration_budget * mcts_budget_perc);
         tournament_size = (int) Math.min(2, population_size * tournament_size_perc);
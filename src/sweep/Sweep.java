@@ -0,0 +1,259 @@
+package sweep;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coordinator of a sweep: plays all the jobs of a grid (see SweepGrid) on a number of local worker processes (see
+ * SweepWorker), which get their jobs and send their results through their standard input and output. Each worker
+ * plays one job at a time and takes the next one from a shared queue when it is done, so faster workers play more
+ * games. If a worker dies, its job goes back to the queue for any worker, and a new worker process is started.
+ * A worker that doesn't send the result of a job before its deadline, or sends a reply that can't be read, is killed
+ * in the same way. Jobs that kill their worker MAX_ATTEMPTS times, or fail to play, are reported as failed.
+ *
+ * Each worker is a separate JVM, so settings kept in static fields (e.g. Types.DEFAULT_VISION_RANGE) don't clash
+ * between the games played at the same time.
+ */
+public class Sweep {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final List<SweepJob> jobs;
+    private final List<String> workerCommand;
+    private final PrintWriter resultsWriter;
+    private final long jobTimeoutMillis;
+
+    // Jobs waiting for a worker, times each job has been attempted, and jobs not finished yet.
+    private final BlockingDeque<SweepJob> queue = new LinkedBlockingDeque<>();
+    private final int[] attempts;
+    private final AtomicInteger remaining;
+
+    // Kills workers that miss the deadline of their job.
+    private ScheduledExecutorService watchdog;
+
+    // Games played, and wins of each player, by configuration (see SweepJob.configuration()).
+    private final Map<String, int[]> wins = new TreeMap<>();
+    private int failed;
+
+    /**
+     * Creates a sweep.
+     *
+     * @param jobs          jobs to play.
+     * @param workerCommand command that starts a worker process.
+     * @param resultsWriter writer the results are also appended to, or null.
+     * @param jobTimeoutMillis time a worker has to play a job, after which it is killed and the job attempted again.
+     */
+    public Sweep(List<SweepJob> jobs, List<String> workerCommand, PrintWriter resultsWriter, long jobTimeoutMillis) {
+        this.jobs = jobs;
+        this.workerCommand = workerCommand;
+        this.resultsWriter = resultsWriter;
+        this.jobTimeoutMillis = jobTimeoutMillis;
+        this.attempts = new int[jobs.size()];
+        this.remaining = new AtomicInteger(jobs.size());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Usage: java sweep.Sweep [grid file] [number of worker processes] [(optional) results file]");
+            return;
+        }
+
+        SweepGrid grid = SweepGrid.load(args[0]);
+        int nWorkers = Math.max(1, Integer.parseInt(args[1]));
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(grid.workerJvmArgs());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(SweepWorker.class.getName());
+
+        PrintWriter resultsWriter = args.length > 2 ? new PrintWriter(new FileWriter(args[2], true)) : null;
+        try {
+            Sweep sweep = new Sweep(grid.jobs(), command, resultsWriter, grid.jobTimeoutSeconds() * 1000L);
+            sweep.run(nWorkers);
+            sweep.printSummary();
+        } finally {
+            if (resultsWriter != null)
+                resultsWriter.close();
+        }
+    }
+
+    /**
+     * Plays all the jobs, printing a line with the result of each one as it finishes.
+     *
+     * @param nWorkers number of worker processes.
+     */
+    public void run(int nWorkers) throws InterruptedException {
+        queue.addAll(jobs);
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sweep-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Thread> threads = new ArrayList<>();
+            for (int w = 0; w < nWorkers; w++) {
+                Thread t = new Thread(this::serveWorker, "sweep-worker-" + w);
+                threads.add(t);
+                t.start();
+            }
+            for (Thread t : threads) {
+                t.join();
+            }
+        } finally {
+            watchdog.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends jobs to a worker process, one at a time, until all jobs are finished. Starts the process, and a new one
+     * if it dies.
+     */
+    private void serveWorker() {
+        Process process = null;
+        BufferedWriter toWorker = null;
+        BufferedReader fromWorker = null;
+        try {
+            while (remaining.get() > 0) {
+                SweepJob job = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (job == null)
+                    continue;
+
+                ScheduledFuture<?> deadline = null;
+                AtomicBoolean timedOut = new AtomicBoolean();
+                try {
+                    if (process == null) {
+                        process = new ProcessBuilder(workerCommand).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                        toWorker = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+                        fromWorker = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+                    }
+                    // Killing the worker ends its output, which stops the wait for the reply
+                    Process worker = process;
+                    deadline = watchdog.schedule(() -> {
+                        timedOut.set(true);
+                        worker.destroyForcibly();
+                    }, jobTimeoutMillis, TimeUnit.MILLISECONDS);
+                    toWorker.write(job.toLine());
+                    toWorker.newLine();
+                    toWorker.flush();
+                    String reply = readReply(fromWorker);
+                    deadline.cancel(false);
+                    handleReply(job, reply);
+                } catch (IOException e) {
+                    if (deadline != null)
+                        deadline.cancel(false);
+                    if (process != null)
+                        process.destroyForcibly();
+                    process = null;
+                    retry(job, timedOut.get() ? "no result after " + jobTimeoutMillis + " ms" : e.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (process != null) {
+                try {
+                    toWorker.close();
+                    process.waitFor(10, TimeUnit.SECONDS);
+                } catch (IOException | InterruptedException e) {
+                    // The worker is killed below
+                }
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * @return the next line with a result or an error from a worker, skipping anything else.
+     * @throws IOException if the worker died.
+     */
+    private static String readReply(BufferedReader fromWorker) throws IOException {
+        String line;
+        while ((line = fromWorker.readLine()) != null) {
+            if (line.startsWith(SweepWorker.RESULT_PREFIX) || line.startsWith(SweepWorker.ERROR_PREFIX))
+                return line;
+        }
+        throw new IOException("worker process ended");
+    }
+
+    private void handleReply(SweepJob job, String reply) throws IOException {
+        if (reply.startsWith(SweepWorker.ERROR_PREFIX)) {
+            fail(job, reply.substring(SweepWorker.ERROR_PREFIX.length()));
+            return;
+        }
+
+        // RESULT id ticks results overtimes
+        String[] fields = reply.substring(SweepWorker.RESULT_PREFIX.length()).split(" ");
+        int ticks;
+        try {
+            if (fields.length != 4 || Integer.parseInt(fields[0]) != job.getId())
+                throw new IOException("unexpected reply from worker: " + reply);
+            ticks = Integer.parseInt(fields[1]);
+        } catch (NumberFormatException e) {
+            throw new IOException("unexpected reply from worker: " + reply, e);
+        }
+        String[] results = fields[2].split(",");
+        if (results.length != job.getLineup().length)
+            throw new IOException("unexpected reply from worker: " + reply);
+        record(job, ticks, results, fields[3]);
+    }
+
+    private synchronized void retry(SweepJob job, String reason) {
+        if (++attempts[job.getId()] < MAX_ATTEMPTS) {
+            System.out.println("Worker died (" + reason + "), job " + job.getId() + " queued again.");
+            queue.addFirst(job);
+        } else {
+            fail(job, "worker died " + MAX_ATTEMPTS + " times: " + reason);
+        }
+    }
+
+    private synchronized void record(SweepJob job, int ticks, String[] results, String overtimes) {
+        int[] configWins = wins.computeIfAbsent(job.configuration(), k -> new int[1 + results.length]);
+        configWins[0]++;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i].equals("WIN"))
+                configWins[1 + i]++;
+        }
+        output(job.toLine() + " ticks=" + ticks + " results=" + String.join(",", results) + " overtimes=" + overtimes);
+    }
+
+    private synchronized void fail(SweepJob job, String reason) {
+        failed++;
+        output("FAILED " + job.toLine() + " " + reason);
+    }
+
+    private void output(String line) {
+        System.out.println(line);
+        if (resultsWriter != null) {
+            resultsWriter.println(line);
+            resultsWriter.flush();
+        }
+        remaining.decrementAndGet();
+    }
+
+    /**
+     * Prints the number of games and the win percentage of each player, by configuration.
+     */
+    public synchronized void printSummary() {
+        System.out.println("N \tWin % per player \tConfiguration");
+        for (Map.Entry<String, int[]> e : wins.entrySet()) {
+            int[] w = e.getValue();
+            StringBuilder sb = new StringBuilder().append(w[0]).append('\t');
+            for (int i = 1; i < w.length; i++)
+                sb.append(String.format("%.1f", w[i] * 100.0 / w[0])).append(i == w.length - 1 ? "\t" : " ");
+            System.out.println(sb.append(e.getKey()));
+        }
+        if (failed > 0)
+            System.out.println(failed + " jobs failed.");
+    }
+}
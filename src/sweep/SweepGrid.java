@@ -0,0 +1,166 @@
+package sweep;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Grid of settings of a sweep, read from a properties file, and expanded into one job per combination of settings,
+ * seed and repetition. Lists of values are separated by commas, lineups by semicolons:
+ *
+ *     # Game modes (0: FFA; 1: TEAM) and vision ranges (-1 for full observability)
+ *     modes = 0, 1
+ *     visionRanges = -1, 2
+ *     # Level seeds, "-1" for the 20 seeds of the paper
+ *     seeds = -1
+ *     repetitions = 5
+ *     # Agent types of the 4 players, as in Run
+ *     lineups = 5-3-3-3; 4-3-3-3
+ *     # Seed of the players of the first game, the players of job i use playerSeed + i
+ *     playerSeed = 0
+ *     # Values of RHEAParams and MCTSParams fields, used by RHEA and MCTS agents
+ *     mcts.num_iterations = 100, 200
+ *     rhea.individual_length = 8, 12
+ *     # (Optional) Extra arguments of the worker JVMs
+ *     workerJvmArgs = -Xmx512m
+ *     # (Optional) Seconds a worker has to play one game before it is killed and the game attempted again
+ *     jobTimeout = 600
+ */
+public class SweepGrid {
+
+    // Seeds of the experiments of the paper (see Run)
+    private static final long[] PAPER_SEEDS = {93988, 19067, 64416, 83884, 55636, 27599, 44350, 87872, 40815,
+            11772, 58367, 17546, 75375, 75772, 58237, 30464, 27180, 23643, 67054, 19508};
+
+    // Agent types using the RHEA and MCTS parameters (see PlayerFactory)
+    private static final int RHEA = 4, MCTS = 5;
+    private static final List<Map<String, String>> NO_VALUES = Collections.singletonList(Collections.emptyMap());
+
+    private final Properties properties;
+
+    private SweepGrid(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @param path path of the grid file.
+     * @return the grid in the file.
+     * @throws IOException if the file can't be read.
+     */
+    public static SweepGrid load(String path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader(path)) {
+            properties.load(reader);
+        }
+        return new SweepGrid(properties);
+    }
+
+    /**
+     * @return extra arguments for the worker JVMs.
+     */
+    public List<String> workerJvmArgs() {
+        String args = properties.getProperty("workerJvmArgs", "").trim();
+        return args.isEmpty() ? Collections.emptyList() : Arrays.asList(args.split("\\s+"));
+    }
+
+    /**
+     * @return seconds a worker has to play one job (600 if not set).
+     */
+    public int jobTimeoutSeconds() {
+        return Integer.parseInt(properties.getProperty("jobTimeout", "600").trim());
+    }
+
+    /**
+     * @return all jobs of the grid, numbered from 0: settings first, then seeds, then repetitions.
+     * @throws IllegalArgumentException if a setting is missing or can't be parsed.
+     */
+    public List<SweepJob> jobs() {
+        int[] modes = ints(required("modes"));
+        int[] visionRanges = ints(required("visionRanges"));
+        long[] seeds = seeds(required("seeds"));
+        int repetitions = Integer.parseInt(properties.getProperty("repetitions", "1").trim());
+        long playerSeed = Long.parseLong(properties.getProperty("playerSeed", "0").trim());
+
+        List<int[]> lineups = new ArrayList<>();
+        for (String lineup : required("lineups").split(";")) {
+            int[] agents = ints(lineup.replace('-', ','));
+            if (agents.length != 4)
+                throw new IllegalArgumentException("Lineups need 4 agents: " + lineup);
+            lineups.add(agents);
+        }
+
+        // Combinations of the agent parameters
+        List<Map<String, String>> rheaCombinations = combinations("rhea.");
+        List<Map<String, String>> mctsCombinations = combinations("mcts.");
+
+        List<SweepJob> jobs = new ArrayList<>();
+        for (int mode : modes)
+            for (int vr : visionRanges)
+                for (int[] lineup : lineups)
+                    // Agent parameters only vary for lineups with agents that use them
+                    for (Map<String, String> rhea : hasAgent(lineup, RHEA) ? rheaCombinations : NO_VALUES)
+                        for (Map<String, String> mcts : hasAgent(lineup, MCTS) ? mctsCombinations : NO_VALUES)
+                            for (long seed : seeds)
+                                for (int rep = 0; rep < repetitions; rep++) {
+                                    int id = jobs.size();
+                                    jobs.add(new SweepJob(id, mode, vr, lineup, seed, rep, playerSeed + id, rhea, mcts));
+                                }
+        return jobs;
+    }
+
+    private String required(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty())
+            throw new IllegalArgumentException("Missing setting in sweep grid: " + key);
+        return value;
+    }
+
+    /**
+     * @return all combinations of the values of the parameters with the given prefix, by parameter name.
+     */
+    private List<Map<String, String>> combinations(String prefix) {
+        List<Map<String, String>> combinations = new ArrayList<>();
+        combinations.add(new TreeMap<>());
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            if (!key.startsWith(prefix))
+                continue;
+            String name = key.substring(prefix.length());
+            List<Map<String, String>> extended = new ArrayList<>();
+            for (Map<String, String> c : combinations) {
+                for (String value : properties.getProperty(key).split(",")) {
+                    Map<String, String> e = new TreeMap<>(c);
+                    e.put(name, value.trim());
+                    extended.add(e);
+                }
+            }
+            combinations = extended;
+        }
+        return combinations;
+    }
+
+    private static boolean hasAgent(int[] lineup, int agentType) {
+        for (int a : lineup)
+            if (a == agentType)
+                return true;
+        return false;
+    }
+
+    private static int[] ints(String values) {
+        String[] parts = values.split(",");
+        int[] ints = new int[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            ints[i] = Integer.parseInt(parts[i].trim());
+        return ints;
+    }
+
+    private static long[] seeds(String values) {
+        if (values.trim().equals("-1"))
+            return PAPER_SEEDS.clone();
+        String[] parts = values.split(",");
+        long[] seeds = new long[parts.length];
+        for (int i = 0; i < parts.length; i++)
+            seeds[i] = Long.parseLong(parts[i].trim());
+        return seeds;
+    }
+}
@@ -0,0 +1,137 @@
+package sweep;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One game of a sweep: the settings of the game, its agents and their parameters. Jobs are sent to the worker
+ * processes as a single line of space-separated key=value pairs (see toLine() and parse()).
+ */
+public final class SweepJob {
+
+    private final int id;
+    private final int gameMode;      // 0: FFA; 1: TEAM (as in Run)
+    private final int visionRange;
+    private final int[] lineup;      // Agent types (as in Run)
+    private final long seed;
+    private final int repetition;
+    private final long playerSeed;
+    private final Map<String, String> rheaValues;
+    private final Map<String, String> mctsValues;
+
+    SweepJob(int id, int gameMode, int visionRange, int[] lineup, long seed, int repetition, long playerSeed,
+             Map<String, String> rheaValues, Map<String, String> mctsValues) {
+        this.id = id;
+        this.gameMode = gameMode;
+        this.visionRange = visionRange;
+        this.lineup = lineup.clone();
+        this.seed = seed;
+        this.repetition = repetition;
+        this.playerSeed = playerSeed;
+        this.rheaValues = Collections.unmodifiableMap(new TreeMap<>(rheaValues));
+        this.mctsValues = Collections.unmodifiableMap(new TreeMap<>(mctsValues));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getGameMode() {
+        return gameMode;
+    }
+
+    public int getVisionRange() {
+        return visionRange;
+    }
+
+    public int[] getLineup() {
+        return lineup.clone();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getRepetition() {
+        return repetition;
+    }
+
+    public long getPlayerSeed() {
+        return playerSeed;
+    }
+
+    public Map<String, String> getRheaValues() {
+        return rheaValues;
+    }
+
+    public Map<String, String> getMctsValues() {
+        return mctsValues;
+    }
+
+    /**
+     * @return the settings of the job that are the same for all its seeds and repetitions, to group results by.
+     */
+    public String configuration() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("mode=").append(gameMode).append(" vr=").append(visionRange).append(" lineup=").append(lineupString());
+        for (Map.Entry<String, String> e : rheaValues.entrySet())
+            sb.append(" rhea.").append(e.getKey()).append('=').append(e.getValue());
+        for (Map.Entry<String, String> e : mctsValues.entrySet())
+            sb.append(" mcts.").append(e.getKey()).append('=').append(e.getValue());
+        return sb.toString();
+    }
+
+    /**
+     * @return this job as a line of text, which parse() turns back into the job.
+     */
+    public String toLine() {
+        return "id=" + id + " seed=" + seed + " rep=" + repetition + " playerSeed=" + playerSeed + " " + configuration();
+    }
+
+    /**
+     * @param line a job, as written by toLine().
+     * @return the job.
+     * @throws IllegalArgumentException if the line is not a job.
+     */
+    public static SweepJob parse(String line) {
+        Map<String, String> values = new TreeMap<>();
+        Map<String, String> rhea = new TreeMap<>();
+        Map<String, String> mcts = new TreeMap<>();
+        for (String pair : line.trim().split("\\s+")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0)
+                throw new IllegalArgumentException("Not a job: " + line);
+            String key = pair.substring(0, eq);
+            String value = pair.substring(eq + 1);
+            if (key.startsWith("rhea."))
+                rhea.put(key.substring(5), value);
+            else if (key.startsWith("mcts."))
+                mcts.put(key.substring(5), value);
+            else
+                values.put(key, value);
+        }
+
+        try {
+            String[] agents = values.get("lineup").split("-");
+            int[] lineup = new int[agents.length];
+            for (int i = 0; i < agents.length; i++)
+                lineup[i] = Integer.parseInt(agents[i]);
+            return new SweepJob(Integer.parseInt(values.get("id")), Integer.parseInt(values.get("mode")),
+                    Integer.parseInt(values.get("vr")), lineup, Long.parseLong(values.get("seed")),
+                    Integer.parseInt(values.get("rep")), Long.parseLong(values.get("playerSeed")), rhea, mcts);
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException("Not a job: " + line, e);
+        }
+    }
+
+    private String lineupString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lineup.length; i++) {
+            if (i > 0)
+                sb.append('-');
+            sb.append(lineup[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package sweep;
+
+import core.Game;
+import core.gameConfig.GameConfig;
+import players.Player;
+import players.PlayerFactory;
+import utils.Types;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+
+/**
+ * Worker process of a sweep (see Sweep). Reads jobs from its standard input, one per line, plays each one and
+ * writes its result to its standard output, as a line:
+ *
+ *     RESULT id ticks result0,result1,result2,result3 overtime0,overtime1,overtime2,overtime3
+ *
+ * or "ERROR id message" if the job can't be played (e.g., it has an unknown agent parameter).
+ * Anything else printed while playing (game results, agents' debug output) goes to the standard error, so that it
+ * doesn't get mixed with the results. The worker ends when its input is closed.
+ */
+public class SweepWorker {
+
+    static final String RESULT_PREFIX = "RESULT ";
+    static final String ERROR_PREFIX = "ERROR ";
+
+    public static void main(String[] args) throws IOException {
+        PrintStream results = System.out;
+        System.setOut(System.err);
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.trim().isEmpty())
+                continue;
+            SweepJob job = null;
+            try {
+                job = SweepJob.parse(line);
+                results.println(RESULT_PREFIX + play(job));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                results.println(ERROR_PREFIX + (job == null ? -1 : job.getId()) + " " + e);
+            }
+            results.flush();
+        }
+    }
+
+    /**
+     * Plays the game of a job.
+     *
+     * @return the id of the job, the ticks played, the results and the overtimes of the players.
+     */
+    static String play(SweepJob job) {
+        // The vision range is read by the avatars when the game is created
+        Types.DEFAULT_VISION_RANGE = job.getVisionRange();
+        Types.GAME_MODE mode = job.getGameMode() == 1 ? Types.GAME_MODE.TEAM : Types.GAME_MODE.FFA;
+        Game game = new Game(job.getSeed(), mode, "sweep", GameConfig.defaults().toBuilder().visuals(false).build());
+        game.setRepetition(job.getRepetition());
+
+        ArrayList<Player> players = new ArrayList<>();
+        int playerID = Types.TILETYPE.AGENT0.getKey();
+        for (int agentType : job.getLineup()) {
+            Player p = PlayerFactory.create(agentType, job.getPlayerSeed(), playerID++,
+                    job.getRheaValues(), job.getMctsValues());
+            if (p == null)
+                throw new IllegalArgumentException("Invalid agent type: " + agentType);
+            players.add(p);
+        }
+        game.setPlayers(players);
+
+        Types.RESULT[] results = game.run(false);
+
+        StringBuilder sb = new StringBuilder().append(job.getId()).append(' ').append(game.getTick()).append(' ');
+        for (int i = 0; i < results.length; i++)
+            sb.append(i == 0 ? "" : ",").append(results[i].name());
+        sb.append(' ');
+        int[] overtimes = game.getPlayerOvertimes();
+        for (int i = 0; i < overtimes.length; i++)
+            sb.append(i == 0 ? "" : ",").append(overtimes[i]);
+        return sb.toString();
+    }
+}
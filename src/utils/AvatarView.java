@@ -66,7 +66,7 @@ public class AvatarView extends JComponent {
 
                     // Draw this avatar image
                     Rectangle rect = new Rectangle(x + cellSize/4, y, cellSize, cellSize);
-                    Image objImage = o.getImage();
+                    Image objImage = TileImages.get(o.getType());
                     drawImage(g, objImage, rect);
 
                     // Return to full opacity
@@ -84,7 +84,7 @@ public class AvatarView extends JComponent {
                         // Draw a skull on top of dead avatars.
                         int wh = cellSize / 2;
                         rect = new Rectangle(x + wh, y, wh, wh);
-                        drawImage(g, Objects.requireNonNull(AGENTDUMMY.getImage()), rect);
+                        drawImage(g, Objects.requireNonNull(TileImages.get(AGENTDUMMY)), rect);
                     }
 
                     _drawExtras(g, (Avatar)o, x, y + cellSize);
@@ -111,19 +111,19 @@ public class AvatarView extends JComponent {
         int offset2 = fontSize * blast.length();
 
         Rectangle rect = new Rectangle(x, y, wh, wh);
-        drawImage(g, Objects.requireNonNull(EXTRABOMB.getImage()), rect);
+        drawImage(g, Objects.requireNonNull(TileImages.get(EXTRABOMB)), rect);
 
         g.drawString(ammo, x + offset1, y + fontSize);
 
         rect = new Rectangle(x + offset1 + spacingPowerups, y, wh, wh);
-        drawImage(g, Objects.requireNonNull(INCRRANGE.getImage()), rect);
+        drawImage(g, Objects.requireNonNull(TileImages.get(INCRRANGE)), rect);
 
         g.drawString(blast, x + offset1 + offset2 + spacingPowerups, y + fontSize);
 
         if (a.canKick()) {
             wh = cellSize / 2;
             rect = new Rectangle(x + offset1 + offset2 + spacingPowerups*2, y, wh, wh);
-            drawImage(g, Objects.requireNonNull(KICK.getImage()), rect);
+            drawImage(g, Objects.requireNonNull(TileImages.get(KICK)), rect);
         }
     }
 
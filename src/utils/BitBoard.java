@@ -0,0 +1,238 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Bit masks over the tiles of a square board, one bit per tile (bit index y * size + x).
+ * A mask may hold several layers of the same board size (i.e. one layer per tile type), stored contiguously
+ * in a single array so that all of them are copied at once. The default 11x11 board needs 2 longs (128 bits)
+ * per layer.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BitBoard {
+
+    // Side of the board covered by this mask.
+    private final int size;
+
+    // Number of layers, and number of 64-bit words used by each layer.
+    private final int nLayers;
+    private final int layerWords;
+
+    // Bits of all layers, layer after layer.
+    private final long[] words;
+
+    /**
+     * Creates an empty mask with a single layer.
+     *
+     * @param size side of the board.
+     */
+    public BitBoard(int size) {
+        this(size, 1);
+    }
+
+    /**
+     * Creates an empty mask with several layers.
+     *
+     * @param size    side of the board.
+     * @param nLayers number of layers.
+     */
+    public BitBoard(int size, int nLayers) {
+        this.size = size;
+        this.nLayers = nLayers;
+        this.layerWords = (size * size + 63) >>> 6;
+        this.words = new long[layerWords * nLayers];
+    }
+
+    private BitBoard(BitBoard other) {
+        this.size = other.size;
+        this.nLayers = other.nLayers;
+        this.layerWords = other.layerWords;
+        this.words = other.words.clone();
+    }
+
+    /**
+     * @return a copy of this mask, including all its layers.
+     */
+    public BitBoard copy() {
+        return new BitBoard(this);
+    }
+
+    /**
+     * Overwrites the contents of this mask with the ones of another mask of the same dimensions.
+     *
+     * @param other mask to copy from.
+     */
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getLayers() {
+        return nLayers;
+    }
+
+    /* ----- Single tile access ----- */
+
+    public boolean get(int layer, int x, int y) {
+        int bit = y * size + x;
+        return (words[layer * layerWords + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    public void set(int layer, int x, int y) {
+        int bit = y * size + x;
+        words[layer * layerWords + (bit >>> 6)] |= (1L << bit);
+    }
+
+    public void clear(int layer, int x, int y) {
+        int bit = y * size + x;
+        words[layer * layerWords + (bit >>> 6)] &= ~(1L << bit);
+    }
+
+    public boolean get(int x, int y) {
+        return get(0, x, y);
+    }
+
+    public void set(int x, int y) {
+        set(0, x, y);
+    }
+
+    public void clear(int x, int y) {
+        clear(0, x, y);
+    }
+
+    /**
+     * Checks if the tile (x, y) is set in any of the two given layers.
+     */
+    public boolean getAny(int layer1, int layer2, int x, int y) {
+        int bit = y * size + x;
+        int w = bit >>> 6;
+        long b = 1L << bit;
+        return ((words[layer1 * layerWords + w] | words[layer2 * layerWords + w]) & b) != 0;
+    }
+
+    /**
+     * Checks if the tile (x, y) is set in any layer in the range [fromLayer, toLayer].
+     */
+    public boolean getAnyInRange(int fromLayer, int toLayer, int x, int y) {
+        int bit = y * size + x;
+        int w = bit >>> 6;
+        long b = 1L << bit;
+        for (int l = fromLayer; l <= toLayer; l++) {
+            if ((words[l * layerWords + w] & b) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /* ----- Whole layer operations ----- */
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    public void clearLayer(int layer) {
+        Arrays.fill(words, layer * layerWords, (layer + 1) * layerWords, 0L);
+    }
+
+    /**
+     * this[layer] = ~this[layer], over the tiles of the board.
+     */
+    public void flip(int layer) {
+        int a = layer * layerWords;
+        for (int w = 0; w < layerWords; w++) {
+            words[a + w] = ~words[a + w];
+        }
+        int tail = (size * size) & 63;
+        if (tail != 0) {
+            words[a + layerWords - 1] &= (1L << tail) - 1;
+        }
+    }
+
+    public boolean isEmpty(int layer) {
+        for (int w = layer * layerWords; w < (layer + 1) * layerWords; w++) {
+            if (words[w] != 0) return false;
+        }
+        return true;
+    }
+
+    public int cardinality(int layer) {
+        int count = 0;
+        for (int w = layer * layerWords; w < (layer + 1) * layerWords; w++) {
+            count += Long.bitCount(words[w]);
+        }
+        return count;
+    }
+
+    /**
+     * this[layer] |= other[otherLayer]
+     */
+    public void or(int layer, BitBoard other, int otherLayer) {
+        int a = layer * layerWords, b = otherLayer * other.layerWords;
+        for (int w = 0; w < layerWords; w++) {
+            words[a + w] |= other.words[b + w];
+        }
+    }
+
+    /**
+     * this[layer] &= other[otherLayer]
+     */
+    public void and(int layer, BitBoard other, int otherLayer) {
+        int a = layer * layerWords, b = otherLayer * other.layerWords;
+        for (int w = 0; w < layerWords; w++) {
+            words[a + w] &= other.words[b + w];
+        }
+    }
+
+    /**
+     * this[layer] &= ~other[otherLayer]
+     */
+    public void andNot(int layer, BitBoard other, int otherLayer) {
+        int a = layer * layerWords, b = otherLayer * other.layerWords;
+        for (int w = 0; w < layerWords; w++) {
+            words[a + w] &= ~other.words[b + w];
+        }
+    }
+
+    /**
+     * Checks if the given layers of this and another mask have any tile in common.
+     */
+    public boolean intersects(int layer, BitBoard other, int otherLayer) {
+        int a = layer * layerWords, b = otherLayer * other.layerWords;
+        for (int w = 0; w < layerWords; w++) {
+            if ((words[a + w] & other.words[b + w]) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BitBoard))
+            return false;
+        BitBoard bb = (BitBoard) o;
+        return size == bb.size && nLayers == bb.nLayers && Arrays.equals(words, bb.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int l = 0; l < nLayers; l++) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    sb.append(get(l, x, y) ? '1' : '.');
+                }
+                sb.append('\n');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -18,13 +18,11 @@ public class EventsStatistics {
     public int[] woodsDestroyed = {0, 0, 0, 0}; // TODO
     public int[] powerUpsTaken = {0, 0, 0, 0};
 
-    public static int REP = 0;
-
     public EventsStatistics(){
         events = new ArrayList<>();
     }
 
-    public void saveToTextFile(String gameIdStr, long seed){
+    public void saveToTextFile(String gameIdStr, long seed, int rep){
 
         File file = new File(experimentsFolderPath+ gameIdStr + "/");
         if (! file.exists()){
@@ -35,7 +33,7 @@ public class EventsStatistics {
             throw new Error("Folder specified at " + experimentsFolderPath + " does not exist nor could be created.");
         }
 
-        String path = experimentsFolderPath + gameIdStr + "/" + seed + "_" + REP + "_events.txt";
+        String path = experimentsFolderPath + gameIdStr + "/" + seed + "_" + rep + "_events.txt";
 
         try {
             FileWriter writer = new FileWriter(path, true);
@@ -3,6 +3,7 @@ package utils;
 import Message.MessageManager;
 import core.Game;
 import core.GameState;
+import core.gameConfig.GameConfig;
 import players.HumanPlayer;
 import players.KeyController;
 
@@ -46,14 +47,17 @@ public class GUI extends JFrame {
     public boolean[][][] receivedAlliances = new boolean[4][5][3];
     public boolean[][][] chosenAlliances = new boolean[4][5][3];
 
+    // Rules and settings of the game displayed
+    private GameConfig config;
+
     // Remaining alliance proposals for the player
-    private int proposalsLeft = NEGOTIATION_PROPOSAL_LIMIT;
+    private int proposalsLeft;
 
     // Time left during each negotiation phase
-    private int phaseTime1 = Types.NEGOTIATION_PHASE_ONE_LENGTH;
-    private int phaseTime2 = Types.NEGOTIATION_PHASE_TWO_LENGTH;
+    private int phaseTime1;
+    private int phaseTime2;
     private int stage = 0;
-    private int NextCollapse = COLLAPSE_START + 1;
+    private int NextCollapse;
 
     // game paused for negotiation phases
     private boolean gamePause1 = false;
@@ -91,6 +95,11 @@ public class GUI extends JFrame {
     public GUI(Game game, String title, KeyController ki, boolean closeAppOnClosingWindow, boolean displayPOHuman) {
         super(title);
         this.game = game;
+        this.config = game.getConfig();
+        this.proposalsLeft = config.getNegotiationProposalLimit();
+        this.phaseTime1 = config.getNegotiationPhaseOneLength();
+        this.phaseTime2 = config.getNegotiationPhaseTwoLength();
+        this.NextCollapse = config.getCollapseStart() + 1;
         this.ki = ki;
         this.displayPOHuman = displayPOHuman;
 
@@ -651,7 +660,7 @@ public class GUI extends JFrame {
                                     if (!allianceArray[curRow][curCol].isSelected() && proposalsLeft > 0)
                                         proposalsLeft--;
                                     else if (allianceArray[curRow][curCol].isSelected()) {
-                                        if (proposalsLeft < NEGOTIATION_PROPOSAL_LIMIT)
+                                        if (proposalsLeft < config.getNegotiationProposalLimit())
                                             proposalsLeft++;
                                     } else if (proposalsLeft == 0)
                                         allianceArray[curRow][curCol].setSelected(!allianceArray[curRow][curCol].isSelected());
@@ -733,8 +742,8 @@ public class GUI extends JFrame {
             this.requestFocus();
 
             // Reset negotiation times
-            phaseTime1 = Types.NEGOTIATION_PHASE_ONE_LENGTH;
-            phaseTime2 = Types.NEGOTIATION_PHASE_ONE_LENGTH;
+            phaseTime1 = config.getNegotiationPhaseOneLength();
+            phaseTime2 = config.getNegotiationPhaseOneLength();
 
             if (focusedPlayer > -1 && avatarDisplayPanel.getAlive()[focusedPlayer] == true)
                 allianceLabel.setText("current alliances: " + playerName);
@@ -881,7 +890,7 @@ public class GUI extends JFrame {
             }
 
             // Time of next screen collapse
-            NextCollapse = COLLAPSE_START + 1 + stage * COLLAPSE_STEP;
+            NextCollapse = config.getCollapseStart() + 1 + stage * config.getCollapseStep();
 
             // Update game tick.
             //appTick.setText("tick: " + game.getTick() + ". next round at " + NextCollapse);
@@ -905,8 +914,8 @@ public class GUI extends JFrame {
             // Move focus to buttons for human player
             if (humanIdx > -1) {
                 // Perform on first entering phase
-                if (phaseTime1 == NEGOTIATION_PHASE_ONE_LENGTH) {
-                    proposalsLeft = NEGOTIATION_PROPOSAL_LIMIT;
+                if (phaseTime1 == config.getNegotiationPhaseOneLength()) {
+                    proposalsLeft = config.getNegotiationProposalLimit();
                     // Enable buttons for player to press
                     for (int i = 0; i < allianceArray.length; i++) {
                         for (int j = 0; j < allianceArray[i].length; j++) {
@@ -925,13 +934,13 @@ public class GUI extends JFrame {
                     allianceArray[0][0].requestFocus();
                     rules[0].setSelected(true);
 
-                    allianceLabel.setText("request MAX " + NEGOTIATION_PROPOSAL_LIMIT + " alliances: " + playerName);
+                    allianceLabel.setText("request MAX " + config.getNegotiationProposalLimit() + " alliances: " + playerName);
                     appTick.setText(" PRESS 'p' TO CONTINUE.");
 
                     // Pause game
                     gamePause1 = true && this.isActive();
                     game.pauseGame(gamePause1);
-                } else if (phaseTime1 < NEGOTIATION_PHASE_ONE_LENGTH) {
+                } else if (phaseTime1 < config.getNegotiationPhaseOneLength()) {
                     appTick.setText("NEXT PHASE IN " + phaseTime1 / 10);
                 }
 
@@ -941,7 +950,7 @@ public class GUI extends JFrame {
             else if (humanIdx == -1) {
 
                 // Clear buttons on first entering phase
-                if (phaseTime1 == NEGOTIATION_PHASE_ONE_LENGTH) {
+                if (phaseTime1 == config.getNegotiationPhaseOneLength()) {
                     for (int i = 0; i < allianceArray.length; i++) {
                         for (int j = 0; j < allianceArray[i].length; j++) {
                             allianceArray[i][j].setSelected(false);
@@ -958,7 +967,7 @@ public class GUI extends JFrame {
                 appTick.setText("MAKING PROPOSALS IN " + phaseTime1 / 10);
 
                 // Fetch all proposed ai alliances and show using buttons
-                if (NEGOTIATION_PHASE_ONE_LENGTH - phaseTime1 == 15) {
+                if (config.getNegotiationPhaseOneLength() - phaseTime1 == 15) {
                     // Get each ai proposed alliances
                     MessageManager ms = gs.getMessageManager();
                     setAlliances = ms.proposalAsBool();
@@ -1019,7 +1028,7 @@ public class GUI extends JFrame {
                 //appTick.setText("SELECT FROM PROPOSALS IN " + phaseTime2/10);
 
                 // Perform on first entering phase
-                if (phaseTime2 == NEGOTIATION_PHASE_TWO_LENGTH) {
+                if (phaseTime2 == config.getNegotiationPhaseTwoLength()) {
 
                     //DEBUG
                     //receivedAlliances[playerNo] = testAlliance;
@@ -1125,7 +1134,7 @@ public class GUI extends JFrame {
                     }
 
 
-                } else if (phaseTime2 < NEGOTIATION_PHASE_TWO_LENGTH) {
+                } else if (phaseTime2 < config.getNegotiationPhaseTwoLength()) {
                     appTick.setText("REJOINING GAME IN " + phaseTime2 / 10);
                 }
 
@@ -1252,7 +1261,7 @@ public class GUI extends JFrame {
             // For ai game or after human player has died show selected alliances
             else if (humanIdx == -1) {
                 // Clear buttons on first entering phase
-                if (phaseTime2 == NEGOTIATION_PHASE_TWO_LENGTH) {
+                if (phaseTime2 == config.getNegotiationPhaseTwoLength()) {
                     for (int i = 0; i < allianceArray.length; i++) {
                         for (int j = 0; j < allianceArray[i].length; j++) {
                             allianceArray[i][j].setSelected(false);
@@ -1270,7 +1279,7 @@ public class GUI extends JFrame {
                         allianceLabel.setText(playerName + " is dead but not forgotten");
 
                     // Fetch chosen ai alliances and show using buttons
-                    if (NEGOTIATION_PHASE_TWO_LENGTH - phaseTime2 == 15) {
+                    if (config.getNegotiationPhaseTwoLength() - phaseTime2 == 15) {
                         // Get each ai proposed alliances
                         MessageManager ms = gs.getMessageManager();
                         chosenAlliances = ms.agreedPropToBool();
@@ -2,33 +2,43 @@ package utils;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import core.Game;
 import core.GameState;
+import core.gameConfig.GameConfig;
 
 import java.io.*;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
 
 /**
  * An object that stores the minimal information necessary to reproduce a full replay of a game.
  * It can be serialized and stored to the gamelogs folder
  */
 public class GameLog implements Serializable {
-    private List<Types.ACTIONS[]> actionsArrayList = new ArrayList<>(Types.MAX_GAME_TICKS);
+    private List<Types.ACTIONS[]> actionsArrayList;
     private long seed;
     private int size;
     private Types.GAME_MODE gameMode;
+
+    // Rules of the game logged. Not written to log files: team configs can't be read back from JSON, so replays of
+    // logs read from files take the config from the caller (see Game.getLastReplayGame(GameConfig)).
+    private transient GameConfig config;
+
     private final static String GAMELOGS_PATH = "res/gamelogs/ser";
     private final static String JSON_GAMELOGS_PATH = "res/gamelogs/";
 
-    public static int REP = 0;
+    // Gson instances are thread-safe, and cache the adapters of the classes they serialise
+    private final static Gson GSON = new Gson();
+    private final static Gson PRETTY_GSON = new GsonBuilder().setPrettyPrinting().create();
 
-    public GameLog(long seed, int size, Types.GAME_MODE gameMode){
+    public GameLog(long seed, int size, Types.GAME_MODE gameMode, GameConfig config){
         this.seed = seed;
         this.size = size;
         this.gameMode = gameMode;
+        this.config = config;
+        this.actionsArrayList = config == null ? new ArrayList<>() : new ArrayList<>(config.getMaxGameTicks());
     }
 
     public void addActions(Types.ACTIONS[] actions){
@@ -36,7 +46,30 @@ public class GameLog implements Serializable {
     }
 
     public GameState getStartingGameState(){
-        return new GameState(seed, size, gameMode);
+        return new Game(seed, gameMode, null, getReplayConfig()).getGameState();
+    }
+
+    /**
+     * @return rules of the game logged, or null if this log was read from a file.
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @param config rules the game was logged with, for logs read from files.
+     */
+    public void setConfig(GameConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @return rules to replay the game with: those it was logged with (the defaults if they are not known), with
+     * the size of the board logged and without logging the replay.
+     */
+    public GameConfig getReplayConfig() {
+        GameConfig c = config == null ? GameConfig.defaults() : config;
+        return c.toBuilder().boardSize(size).logGame(false).build();
     }
 
     /**
@@ -68,7 +101,7 @@ public class GameLog implements Serializable {
         }
     }
 
-    public void serializeJSON(String gameIdStr){
+    public void serializeJSON(String gameIdStr, int rep){
         File file = new File(JSON_GAMELOGS_PATH + gameIdStr + "/");
         if (! file.exists()){
             file.mkdir();
@@ -78,14 +111,11 @@ public class GameLog implements Serializable {
             throw new Error("Folder specified at "+ JSON_GAMELOGS_PATH +" does not exist nor could be created.");
         }
 
-        String path = JSON_GAMELOGS_PATH  + gameIdStr + "/" + seed + "_"+ REP +"_"+  gameMode.name() + "["+size+"x"+size+"].json";
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        String json = gson.toJson(this);
-
-        try {
-            PrintWriter out = new PrintWriter(path);
-            out.println(json);
-            out.close();
+        String path = JSON_GAMELOGS_PATH  + gameIdStr + "/" + seed + "_"+ rep +"_"+  gameMode.name() + "["+size+"x"+size+"].json";
+        // Written straight to the file, without building the whole JSON string first
+        try (Writer out = new BufferedWriter(new FileWriter(path))) {
+            PRETTY_GSON.toJson(this, out);
+            out.write(System.lineSeparator());
         } catch (IOException i) {
             i.printStackTrace();
         }
@@ -135,10 +165,8 @@ public class GameLog implements Serializable {
 
     private static GameLog deserializeJSON(String absolutePath) {
         GameLog gameLog;
-        try {
-            String json = new Scanner(new File(absolutePath)).useDelimiter("\\Z").next();
-            Gson gson = new Gson();
-            gameLog = gson.fromJson(json, GameLog.class);
+        try (Reader in = new BufferedReader(new FileReader(absolutePath))) {
+            gameLog = GSON.fromJson(in, GameLog.class);
             return gameLog;
         } catch (IOException i) {
             i.printStackTrace();
@@ -203,7 +231,7 @@ public class GameLog implements Serializable {
     }
 
     public GameLog copy() {
-        GameLog copy = new GameLog(seed, size, gameMode);
+        GameLog copy = new GameLog(seed, size, gameMode, config);
         List<Types.ACTIONS[]> actionsArrayList = new ArrayList<>();
         for (Types.ACTIONS[] actions : this.actionsArrayList) {
             Types.ACTIONS[] copyArr = Arrays.copyOf(actions, actions.length);
@@ -23,7 +23,7 @@ public class GameView extends JComponent {
         this.gridSize = objects.length;
         this.dimension = new Dimension(gridSize * cellSize, gridSize * cellSize);
         copyObjects(objects, new int[gridSize][gridSize]);
-        backgroundImg = Types.TILETYPE.PASSAGE.getImage();
+        backgroundImg = TileImages.get(Types.TILETYPE.PASSAGE);
     }
 
 
@@ -57,7 +57,7 @@ public class GameView extends JComponent {
                     }
 
                     // Actual image (admits transparencies).
-                    Image objImage = gobj.getImage();
+                    Image objImage = TileImages.get(gobj);
                     if (objImage != null) {
                         if (gobj == Types.TILETYPE.BOMB) {
                             drawBomb(g, objImage, rect, bombLife[i][j], cellSize);
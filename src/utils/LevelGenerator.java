@@ -1,5 +1,6 @@
 package utils;
 
+import core.gameConfig.GameConfig;
 import objects.Avatar;
 import objects.GameObject;
 
@@ -22,8 +23,28 @@ public class LevelGenerator {
      * @return board created by this algorithm
      */
     public static int[][] makeBoard(long seed, int size, int numRigid, int numWood, GameObject[] agents){
+        return makeBoard(seed, size, numRigid, numWood, Types.MAX_INACCESIBLE_TILES, Types.CORNER_DISTANCE,
+                BREATHING_SPACE, agents);
+    }
+
+    /**
+     * Constructs the board following the board settings of a game config (number of blocks, inaccessible tiles,
+     * distance of agents to the corners and breathing space around them).
+     * @param seed Unique seed to generate this board.
+     * @param size size of the board (size x size)
+     * @param config config of the game.
+     * @param agents Agents to put in the game.
+     * @return board created by this algorithm
+     */
+    public static int[][] makeBoard(long seed, int size, GameConfig config, GameObject[] agents){
+        return makeBoard(seed, size, config.getBoardNumRigid(), config.getBoardNumWood(),
+                config.getMaxInaccessibleTiles(), config.getCornerDistance(), config.getBreathingSpace(), agents);
+    }
+
+    private static int[][] makeBoard(long seed, int size, int numRigid, int numWood, int maxInaccessibleTiles,
+                                     int cornerDistance, int breathingSpace, GameObject[] agents){
         //Build the board
-        int[][] board = make(seed, size, numRigid, numWood, agents);
+        int[][] board = make(seed, size, numRigid, numWood, cornerDistance, breathingSpace, agents);
 
         //Make a record of all agent positions
         ArrayList<Vector2d> agent_positions = new ArrayList<>();
@@ -33,11 +54,11 @@ public class LevelGenerator {
 
         //Find out how many inaccessible passages exist in the board. If above certain threshold, repeat
         int inaccessPassages = inaccesibleTiles(board, agent_positions).size();
-        while (inaccessPassages > Types.MAX_INACCESIBLE_TILES){
+        while (inaccessPassages > maxInaccessibleTiles){
             if (VERBOSE) {
                 System.out.println("Size of inaccessible passages: " + inaccessPassages);
             }
-            board = make(seed, size, numRigid, numWood, agents);
+            board = make(seed, size, numRigid, numWood, cornerDistance, breathingSpace, agents);
             inaccessPassages = inaccesibleTiles(board, agent_positions).size();
         }
 
@@ -94,10 +115,13 @@ public class LevelGenerator {
      * @param size size of the board (size x size)
      * @param numRigid number of rigid, non-destructible, blocks to put in the board.
      * @param numWood number of wooden, destructible, blocks to put in the board.
+     * @param cornerDistance distance to the corner, in tiles, of the starting agent positions.
+     * @param breathingSpace size of the L shaped section left free around agents.
      * @param agents Agents to put in the game.
      * @return a int[][] with the walls and player locations in the board.
      */
-    private static int[][] make(long seed, int size, int numRigid, int numWood, GameObject[] agents){
+    private static int[][] make(long seed, int size, int numRigid, int numWood, int cornerDistance,
+                                int breathingSpace, GameObject[] agents){
 
         //Some strict checks
         assert numRigid%2 == 0: "number of rigid walls should be even";
@@ -123,19 +147,19 @@ public class LevelGenerator {
             }
         }
 
-        // Locate all the players in the board. they must respect a Types.CORNER_DISTANCE to
+        // Locate all the players in the board. they must respect a cornerDistance to
         // their respective corners.
-        board[Types.CORNER_DISTANCE][Types.CORNER_DISTANCE] = Types.TILETYPE.AGENT0.getKey();
-        board[size-Types.CORNER_DISTANCE -1][Types.CORNER_DISTANCE] = Types.TILETYPE.AGENT1.getKey();
-        board[size-Types.CORNER_DISTANCE -1][size-Types.CORNER_DISTANCE -1] = Types.TILETYPE.AGENT2.getKey();
-        board[Types.CORNER_DISTANCE][size-Types.CORNER_DISTANCE -1] = Types.TILETYPE.AGENT3.getKey();
+        board[cornerDistance][cornerDistance] = Types.TILETYPE.AGENT0.getKey();
+        board[size-cornerDistance -1][cornerDistance] = Types.TILETYPE.AGENT1.getKey();
+        board[size-cornerDistance -1][size-cornerDistance -1] = Types.TILETYPE.AGENT2.getKey();
+        board[cornerDistance][size-cornerDistance -1] = Types.TILETYPE.AGENT3.getKey();
 
         // Keep a list of the agent positions
         ArrayList<Vector2d> agent_positions = new ArrayList<>();
-        agent_positions.add(new Vector2d(Types.CORNER_DISTANCE, Types.CORNER_DISTANCE));
-        agent_positions.add(new Vector2d(size-Types.CORNER_DISTANCE -1, Types.CORNER_DISTANCE));
-        agent_positions.add(new Vector2d(size-Types.CORNER_DISTANCE -1, size-Types.CORNER_DISTANCE -1));
-        agent_positions.add(new Vector2d(Types.CORNER_DISTANCE, size-Types.CORNER_DISTANCE -1));
+        agent_positions.add(new Vector2d(cornerDistance, cornerDistance));
+        agent_positions.add(new Vector2d(size-cornerDistance -1, cornerDistance));
+        agent_positions.add(new Vector2d(size-cornerDistance -1, size-cornerDistance -1));
+        agent_positions.add(new Vector2d(cornerDistance, size-cornerDistance -1));
 
         // and mark those as not available places to put more stuff
         for (Vector2d agent_position : agent_positions) available_coordinates.remove(agent_position);
@@ -149,8 +173,8 @@ public class LevelGenerator {
         }
 
         //Some positions around the agent must be free, so those are not valid coordinates either.
-        int loc = Types.CORNER_DISTANCE;
-        for (int i = 1; i <= BREATHING_SPACE; i++){
+        int loc = cornerDistance;
+        for (int i = 1; i <= breathingSpace; i++){
             //top left
             int avX = loc, avY = loc; // location of the avatar in this corner
             available_coordinates.remove(new Vector2d(avX, avY + i));
@@ -173,7 +197,7 @@ public class LevelGenerator {
         }
 
         //Create a wooden passage in the rows and columns between agents
-        int passage_start = loc+BREATHING_SPACE+1;
+        int passage_start = loc+breathingSpace+1;
         int WOOD = Types.TILETYPE.WOOD.getKey();
         int n = size - (passage_start*2);
         for (int i = 0; i < n; i++){
@@ -362,11 +386,12 @@ public class LevelGenerator {
     public static void main(String[] args) {
 
         long seed = System.currentTimeMillis();
+        GameConfig config = GameConfig.defaults();
         GameObject[] agents = new GameObject[]{
-                new Avatar(Types.TILETYPE.AGENT0.getKey(), Types.GAME_MODE.FFA),
-                new Avatar(Types.TILETYPE.AGENT1.getKey(), Types.GAME_MODE.FFA),
-                new Avatar(Types.TILETYPE.AGENT2.getKey(), Types.GAME_MODE.FFA),
-                new Avatar(Types.TILETYPE.AGENT3.getKey(), Types.GAME_MODE.FFA)
+                new Avatar(Types.TILETYPE.AGENT0.getKey(), Types.GAME_MODE.FFA, config.getTeamConfig()),
+                new Avatar(Types.TILETYPE.AGENT1.getKey(), Types.GAME_MODE.FFA, config.getTeamConfig()),
+                new Avatar(Types.TILETYPE.AGENT2.getKey(), Types.GAME_MODE.FFA, config.getTeamConfig()),
+                new Avatar(Types.TILETYPE.AGENT3.getKey(), Types.GAME_MODE.FFA, config.getTeamConfig())
         };
         int[][] board = LevelGenerator.makeBoard(seed+4, 11, 20, 20, agents);
 
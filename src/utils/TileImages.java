@@ -0,0 +1,51 @@
+package utils;
+
+import java.awt.*;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Sprites to draw the different tile types. All of them are loaded together the first time a view draws a tile, and
+ * are not modified after that, so views in any thread can read them. Game objects hold no images: games run without
+ * visuals never load them.
+ */
+final class TileImages {
+
+    private static final Map<Types.TILETYPE, Image> IMAGES = load();
+
+    private TileImages() {}
+
+    /**
+     * @param type tile type to draw.
+     * @return the sprite of the tile type, or null if it has none or its file could not be read.
+     */
+    static Image get(Types.TILETYPE type) {
+        return IMAGES.get(type);
+    }
+
+    private static Map<Types.TILETYPE, Image> load() {
+        EnumMap<Types.TILETYPE, Image> images = new EnumMap<>(Types.TILETYPE.class);
+        put(images, Types.TILETYPE.PASSAGE, "img/passage.png");
+        put(images, Types.TILETYPE.RIGID, "img/rigid.png");
+        put(images, Types.TILETYPE.WOOD, "img/wood.png");
+        put(images, Types.TILETYPE.BOMB, "img/bomb.png");
+        put(images, Types.TILETYPE.FLAMES, "img/flames.png");
+        put(images, Types.TILETYPE.FOG, "img/fog.png");
+        put(images, Types.TILETYPE.EXTRABOMB, "img/extrabomb.png");
+        put(images, Types.TILETYPE.INCRRANGE, "img/incrrange.png");
+        put(images, Types.TILETYPE.KICK, "img/kick.png");
+        put(images, Types.TILETYPE.AGENTDUMMY, "img/skull1.png");
+        put(images, Types.TILETYPE.AGENT0, "img/agent0.png");
+        put(images, Types.TILETYPE.AGENT1, "img/agent1.png");
+        put(images, Types.TILETYPE.AGENT2, "img/agent2.png");
+        put(images, Types.TILETYPE.AGENT3, "img/agent3.png");
+        return Collections.unmodifiableMap(images);
+    }
+
+    private static void put(Map<Types.TILETYPE, Image> images, Types.TILETYPE type, String file) {
+        Image img = ImageIO.GetInstance().getImage(file);
+        if (img != null)
+            images.put(type, img);
+    }
+}
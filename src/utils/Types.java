@@ -1,15 +1,12 @@
 package utils;
 
-import core.gameConfig.IGameConfig;
-import core.gameConfig.OriginalGameConfig;
-
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.HashSet;
 
 public class Types {
 
-    // Game Configuration constants.
+    // Game Configuration constants. Those also in GameConfig are the defaults of new games.
     public static int MAX_GAME_TICKS = 1000;         //Maximum duration of the game.
     public static int BOMB_LIFE = 10;               //Ticks until a bomb explodes.
     public static int FLAME_LIFE = 5;               //Ticks until a flame disappears.
@@ -29,9 +26,6 @@ public class Types {
     public static int STAY_APART_DISTANCE = 3;
     public static int NO_BOMB_DISTANCE = 3;
 
-    //Game configuration to use in the game, which determines victory conditions.
-    private static IGameConfig gameConfig = new OriginalGameConfig();
-
     //Board configuration constants.
     public static int BOARD_SIZE = 11;              //Size of the board (n x n).
     public static int BOARD_NUM_RIGID = 20;         //Number of rigid blocks to put in the level.
@@ -65,6 +59,8 @@ public class Types {
     // Decision time limit
     public static boolean CHECK_DECISION_TIME = true;
     public static int DECISION_TIME_LIMIT = 100; // ms to decide an action
+    public static boolean ASYNC_DECISIONS = false; // agents decide in separate threads, stopped at the time limit
+    public static boolean VIRTUAL_AGENT_THREADS = false; // agents decide on virtual threads, if available (Java 21+)
 
     public enum GAME_PHASE {
         NORMAL,
@@ -73,8 +69,6 @@ public class Types {
         PAUSED
     }
 
-    public static IGameConfig getGameConfig() {return gameConfig;}
-
     /**
      * Different TILETYPES allowed in the game.
      * If more types are added, check methods in this enum to add them where they corresponds
@@ -103,30 +97,6 @@ public class Types {
         TILETYPE(int numVal) {  this.key = numVal;  }
         public int getKey() {  return key; }
 
-        /**
-         * Sprites (Image objects) to use in the game for the different elements.
-         * @return the image to use
-         */
-
-        public Image getImage()
-        {
-            if      (key == PASSAGE.key) return ImageIO.GetInstance().getImage("img/passage.png");
-            else if (key == RIGID.key) return ImageIO.GetInstance().getImage("img/rigid.png");
-            else if (key == WOOD.key) return ImageIO.GetInstance().getImage("img/wood.png");
-            else if (key == BOMB.key) return ImageIO.GetInstance().getImage("img/bomb.png");
-            else if (key == FLAMES.key) return ImageIO.GetInstance().getImage("img/flames.png");
-            else if (key == FOG.key) return ImageIO.GetInstance().getImage("img/fog.png");
-            else if (key == EXTRABOMB.key) return ImageIO.GetInstance().getImage("img/extrabomb.png");
-            else if (key == INCRRANGE.key) return ImageIO.GetInstance().getImage("img/incrrange.png");
-            else if (key == KICK.key) return ImageIO.GetInstance().getImage("img/kick.png");
-            else if (key == AGENTDUMMY.key) return ImageIO.GetInstance().getImage("img/skull1.png");
-            else if (key == AGENT0.key) return ImageIO.GetInstance().getImage("img/agent0.png");
-            else if (key == AGENT1.key) return ImageIO.GetInstance().getImage("img/agent1.png");
-            else if (key == AGENT2.key) return ImageIO.GetInstance().getImage("img/agent2.png");
-            else if (key == AGENT3.key) return ImageIO.GetInstance().getImage("img/agent3.png");
-            else return null;
-        }
-
         /**
          * Returns all agent types.
          * @return all agent types.
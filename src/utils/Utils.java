@@ -6,8 +6,6 @@ import objects.GameObject;
 
 import java.util.*;
 
-import static utils.Types.FLAME_LIFE;
-
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class Utils {
     // Takes an object from an array at random
@@ -267,36 +265,6 @@ public class Utils {
         return newArr;
     }
 
-    /**
-     * Adds copies of game objects to a new list, given original list, where items are within a certain range from the
-     * given position.
-     *
-     * @param originalList - original list of game objects to check.
-     * @param copyList     - list which will contain the new objects.
-     * @param refPosition  - a Set of position references from which items are visible
-     * @param range        - range within which the objects should be included. May be -1, which means all objects
-     *                     should be included
-     */
-    public static void _reduceHiddenList(ArrayList<GameObject> originalList, ArrayList<GameObject> copyList,
-                                         Set<Vector2d> refPosition, int range) {
-        for (GameObject g : originalList) {
-
-            Vector2d posG = (range >= 0) ? g.getPosition() : null;
-
-            // Check if the object is in range. If it is, add a copy of the object to the copy list.
-            if (range == -1 || posG != null && refPosition != null && refPosition.stream().anyMatch(v -> v.custom_dist(posG) <= range)) {
-                GameObject ob = g.copy();
-                if (ob.getType() == Types.TILETYPE.FLAMES) ob.setLife(FLAME_LIFE);
-                else if (ob.getType() == Types.TILETYPE.BOMB) {
-                    Bomb b = (Bomb) ob;
-                    b.setVelocity(new Vector2d());
-                    b.setPlayerIdx(-1);
-                }
-                copyList.add(ob);
-            }
-        }
-    }
-
     /**
      * Finds all agents which are still alive (win status INCOMPLETE), given list of all agents.
      *
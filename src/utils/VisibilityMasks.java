@@ -0,0 +1,57 @@
+package utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed masks of the tiles visible from each tile of a board, for a vision range. A tile is visible from
+ * another one if their custom_dist (the largest of the x and y distances) is within the range.
+ * The masks of a board size and range are computed once and shared by all games; they must not be modified.
+ */
+public final class VisibilityMasks {
+
+    // Masks already computed, by board size and vision range (see maskKey()).
+    private static final ConcurrentHashMap<Integer, BitBoard> MASKS = new ConcurrentHashMap<>();
+
+    private VisibilityMasks() {}
+
+    /**
+     * @param size  side of the board.
+     * @param range vision range, must not be negative.
+     * @return a mask with one layer per tile of the board: layer y * size + x holds the tiles visible from (x, y).
+     */
+    public static BitBoard get(int size, int range) {
+        return MASKS.computeIfAbsent(maskKey(size, range), k -> compute(size, range));
+    }
+
+    /**
+     * Adds the tiles visible from a position to a mask.
+     *
+     * @param visible mask (single layer) to add the tiles to.
+     * @param range   vision range, must not be negative.
+     * @param x       x coordinate of the position
+     * @param y       y coordinate of the position
+     */
+    public static void addVisible(BitBoard visible, int range, int x, int y) {
+        int size = visible.getSize();
+        visible.or(0, get(size, range), y * size + x);
+    }
+
+    private static BitBoard compute(int size, int range) {
+        BitBoard masks = new BitBoard(size, size * size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int layer = y * size + x;
+                for (int yy = Math.max(0, y - range); yy <= Math.min(size - 1, y + range); yy++) {
+                    for (int xx = Math.max(0, x - range); xx <= Math.min(size - 1, x + range); xx++) {
+                        masks.set(layer, xx, yy);
+                    }
+                }
+            }
+        }
+        return masks;
+    }
+
+    private static int maskKey(int size, int range) {
+        return size << 16 | Math.min(range, size);
+    }
+}
@@ -0,0 +1,48 @@
+package utils;
+
+/**
+ * Keys for Zobrist hashing of game states. The hash of a state is the XOR of the keys of all its features (a tile
+ * type at a position, a bomb, a flame, an avatar, the tick), so that it can be updated when a feature changes by
+ * XOR-ing out its old key and XOR-ing in the new one.
+ * Keys are pseudo-random 64-bit values derived from the feature, rather than read from a table, so that they don't
+ * depend on the board size and are the same in every run.
+ */
+public final class Zobrist {
+
+    // Kinds of features hashed.
+    public static final int TILE = 0;
+    public static final int BOMB = 1;
+    public static final int FLAME = 2;
+    public static final int AVATAR = 3;
+    public static final int TICK = 4;
+
+    private Zobrist() {}
+
+    /**
+     * Key of a feature.
+     *
+     * @param kind  kind of feature (TILE, BOMB, FLAME, AVATAR or TICK).
+     * @param index where the feature is, i.e. tile index (y * size + x), position (see position()) or avatar index.
+     * @param value value of the feature, i.e. tile type key.
+     * @return the key of the feature.
+     */
+    public static long key(int kind, int index, int value) {
+        return mix(((long) kind << 56) ^ ((long) index << 32) ^ (value & 0xffffffffL));
+    }
+
+    /**
+     * Index of a position that doesn't depend on the board size, for features that don't know it (bombs, flames and
+     * avatars). Coordinates must be lower than 256.
+     */
+    public static int position(int x, int y) {
+        return y << 8 | x;
+    }
+
+    // Finalizer of the SplitMix64 generator: maps each input to a different, well mixed, output.
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}